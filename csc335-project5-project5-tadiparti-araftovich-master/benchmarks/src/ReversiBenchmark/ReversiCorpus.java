@@ -0,0 +1,53 @@
+package ReversiBenchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import ReversiEngine.ReversiPosition;
+
+/**
+ * File: ReversiCorpus.java
+ * 
+ * The fixed set of positions every benchmark runs over, read from corpus.txt. Keeping the
+ * positions in a file keeps results comparable across versions of the engine.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiCorpus {
+	
+	private ReversiCorpus() {
+	}
+	
+	/**
+	 * Loads every position of the corpus.
+	 * @return the positions in file order
+	 */
+	public static ReversiPosition[] load() {
+		List<ReversiPosition> positions = new ArrayList<>();
+		try(InputStream stream = ReversiCorpus.class.getResourceAsStream("corpus.txt");
+				BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] fields = line.split("\\s+");
+				positions.add(new ReversiPosition(Long.parseUnsignedLong(fields[0], 16), 
+						Long.parseUnsignedLong(fields[1], 16), fields[2].charAt(0)));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return positions.toArray(new ReversiPosition[0]);
+	}
+	
+}
@@ -0,0 +1,94 @@
+package ReversiBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiEvaluator;
+import ReversiEngine.ReversiPatternEvaluator;
+import ReversiEngine.ReversiPatternIndexes;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiWeightedEvaluator;
+
+/**
+ * File: ReversiEvaluationBenchmark.java
+ * 
+ * Scores every corpus position with the default evaluation, and with the pattern
+ * evaluation both reading the board and looking up indexes a search would have kept.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiEvaluationBenchmark {
+	
+	private long[] players;
+	private long[] opponents;
+	private ReversiEvaluator evaluator;
+	private ReversiPatternEvaluator patternEvaluator;
+	private ReversiPatternIndexes[] indexes;
+	private char[] toMove;
+	
+	@Setup
+	public void setup() {
+		ReversiPosition[] corpus = ReversiCorpus.load();
+		this.players = new long[corpus.length];
+		this.opponents = new long[corpus.length];
+		for(int i = 0; i < corpus.length; i++) {
+			this.players[i] = corpus[i].getPlayer();
+			this.opponents[i] = corpus[i].getOpponent();
+		}
+		this.evaluator = new ReversiWeightedEvaluator();
+		this.patternEvaluator = new ReversiPatternEvaluator();
+		this.indexes = new ReversiPatternIndexes[corpus.length];
+		this.toMove = new char[corpus.length];
+		for(int i = 0; i < corpus.length; i++) {
+			this.indexes[i] = new ReversiPatternIndexes();
+			this.indexes[i].set(corpus[i].getBlack(), corpus[i].getWhite());
+			this.toMove[i] = corpus[i].getToMove();
+		}
+	}
+	
+	@Benchmark
+	public int weighted() {
+		int result = 0;
+		for(int i = 0; i < this.players.length; i++) {
+			result += this.evaluator.evaluate(this.players[i], this.opponents[i]);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public int pattern() {
+		int result = 0;
+		for(int i = 0; i < this.players.length; i++) {
+			result += this.patternEvaluator.evaluate(this.players[i], this.opponents[i]);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public int patternIncremental() {
+		int result = 0;
+		for(int i = 0; i < this.indexes.length; i++) {
+			result += this.patternEvaluator.evaluate(this.indexes[i], this.toMove[i]);
+		}
+		return result;
+	}
+	
+}
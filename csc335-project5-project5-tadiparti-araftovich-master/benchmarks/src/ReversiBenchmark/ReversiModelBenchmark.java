@@ -0,0 +1,155 @@
+package ReversiBenchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiSearchResult;
+import ReversiModel.ReversiModel;
+
+/**
+ * File: ReversiModelBenchmark.java
+ * 
+ * Replays random games move by move, reporting the time per move. model plays them through
+ * ReversiModel, which keeps both colors' legal moves up to date and answers the game-over
+ * question from them; bare makes the same moves on two masks with no bookkeeping, and
+ * rescan adds the legal move and game-over scans the controller used to run after every
+ * move. model minus bare is the cost of the bookkeeping.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiModelBenchmark {
+	
+	private static final int GAMES = 100;
+	/** Moves in all the games, passes left out; fixed by the seed. */
+	private static final int MOVES = 5999;
+	
+	private int[][] squares;
+	private char[][] colors;
+	private ReversiModel model;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(335);
+		this.squares = new int[GAMES][];
+		this.colors = new char[GAMES][];
+		int total = 0;
+		for(int g = 0; g < GAMES; g++) {
+			int[] moves = new int[ReversiBitboard.SQUARES];
+			char[] movers = new char[ReversiBitboard.SQUARES];
+			int count = 0;
+			ReversiPosition position = ReversiPosition.start();
+			while(!ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+				long legal = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+				if(legal == 0) {
+					position = position.play(ReversiSearchResult.PASS);
+					continue;
+				}
+				for(int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+					legal &= legal - 1;
+				}
+				movers[count] = position.getToMove();
+				moves[count++] = Long.numberOfTrailingZeros(legal);
+				position = position.play(Long.numberOfTrailingZeros(legal));
+			}
+			this.squares[g] = Arrays.copyOf(moves, count);
+			this.colors[g] = Arrays.copyOf(movers, count);
+			total += count;
+		}
+		if(total != MOVES) {
+			throw new IllegalStateException("Expected " + MOVES + " moves, generated " + total);
+		}
+		this.model = new ReversiModel(ReversiBitboard.SIZE, ReversiBitboard.SIZE);
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(MOVES)
+	public int model() {
+		int over = 0;
+		for(int g = 0; g < GAMES; g++) {
+			this.model.resetBoard();
+			for(int i = 0; i < this.squares[g].length; i++) {
+				this.model.applyMove(this.squares[g][i], this.colors[g][i]);
+				if(this.model.isGameOver() || !this.model.hasLegalMove(this.colors[g][i])) {
+					over++;
+				}
+			}
+		}
+		return over;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(MOVES)
+	public long bare() {
+		long result = 0;
+		for(int g = 0; g < GAMES; g++) {
+			long black = ReversiBitboard.startBlack();
+			long white = ReversiBitboard.startWhite();
+			for(int i = 0; i < this.squares[g].length; i++) {
+				int square = this.squares[g][i];
+				if(this.colors[g][i] == 'B') {
+					long flips = ReversiBitboard.flips(black, white, square);
+					black |= flips | (1L << square);
+					white ^= flips;
+				} else {
+					long flips = ReversiBitboard.flips(white, black, square);
+					white |= flips | (1L << square);
+					black ^= flips;
+				}
+			}
+			result += black ^ white;
+		}
+		return result;
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(MOVES)
+	public int rescan() {
+		int over = 0;
+		for(int g = 0; g < GAMES; g++) {
+			long black = ReversiBitboard.startBlack();
+			long white = ReversiBitboard.startWhite();
+			for(int i = 0; i < this.squares[g].length; i++) {
+				int square = this.squares[g][i];
+				boolean isBlack = this.colors[g][i] == 'B';
+				if(isBlack) {
+					long flips = ReversiBitboard.flips(black, white, square);
+					black |= flips | (1L << square);
+					white ^= flips;
+				} else {
+					long flips = ReversiBitboard.flips(white, black, square);
+					white |= flips | (1L << square);
+					black ^= flips;
+				}
+				long legal = isBlack ? ReversiBitboard.legalMoves(black, white) : ReversiBitboard.legalMoves(white, black);
+				if(ReversiBitboard.isGameOver(black, white) || legal == 0) {
+					over++;
+				}
+			}
+		}
+		return over;
+	}
+	
+}
@@ -0,0 +1,118 @@
+package ReversiBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiMoveStack;
+import ReversiEngine.ReversiPosition;
+
+/**
+ * File: ReversiMoveApplicationBenchmark.java
+ * 
+ * Computes the flips of, and applies, every legal move of every corpus position. play and
+ * makeUnmake compare a new immutable position per move with making and taking back the
+ * move in place on a ReversiMoveStack.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiMoveApplicationBenchmark {
+	
+	private long[] players;
+	private long[] opponents;
+	private int[] squares;
+	private ReversiPosition[] corpus;
+	private ReversiMoveStack stack = new ReversiMoveStack();
+	
+	@Setup
+	public void setup() {
+		ReversiPosition[] corpus = ReversiCorpus.load();
+		this.corpus = corpus;
+		int count = 0;
+		for(ReversiPosition position : corpus) {
+			count += Long.bitCount(ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent()));
+		}
+		this.players = new long[count];
+		this.opponents = new long[count];
+		this.squares = new int[count];
+		int i = 0;
+		for(ReversiPosition position : corpus) {
+			long moves = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+			while(moves != 0) {
+				this.players[i] = position.getPlayer();
+				this.opponents[i] = position.getOpponent();
+				this.squares[i++] = Long.numberOfTrailingZeros(moves);
+				moves &= moves - 1;
+			}
+		}
+	}
+	
+	@Benchmark
+	public long flips() {
+		long result = 0;
+		for(int i = 0; i < this.squares.length; i++) {
+			result ^= ReversiBitboard.flips(this.players[i], this.opponents[i], this.squares[i]);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public long makeMove() {
+		long result = 0;
+		for(int i = 0; i < this.squares.length; i++) {
+			long flips = ReversiBitboard.flips(this.players[i], this.opponents[i], this.squares[i]);
+			long player = this.players[i] | flips | (1L << this.squares[i]);
+			long opponent = this.opponents[i] ^ flips;
+			result += player ^ opponent;
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public long play() {
+		long result = 0;
+		for(ReversiPosition position : this.corpus) {
+			long moves = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+			while(moves != 0) {
+				result += position.play(Long.numberOfTrailingZeros(moves)).getBlack();
+				moves &= moves - 1;
+			}
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public long makeUnmake() {
+		long result = 0;
+		for(ReversiPosition position : this.corpus) {
+			this.stack.reset(position.getBlack(), position.getWhite(), position.getToMove());
+			long moves = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+			while(moves != 0) {
+				this.stack.make(Long.numberOfTrailingZeros(moves));
+				result += this.stack.getBlack();
+				this.stack.unmake();
+				moves &= moves - 1;
+			}
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,71 @@
+package ReversiBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiPosition;
+
+/**
+ * File: ReversiMoveGenerationBenchmark.java
+ * 
+ * Legal-move generation over the whole corpus, for the side to move and for both sides as
+ * the game-over check does.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiMoveGenerationBenchmark {
+	
+	private long[] players;
+	private long[] opponents;
+	
+	@Setup
+	public void setup() {
+		ReversiPosition[] corpus = ReversiCorpus.load();
+		this.players = new long[corpus.length];
+		this.opponents = new long[corpus.length];
+		for(int i = 0; i < corpus.length; i++) {
+			this.players[i] = corpus[i].getPlayer();
+			this.opponents[i] = corpus[i].getOpponent();
+		}
+	}
+	
+	@Benchmark
+	public long legalMoves() {
+		long result = 0;
+		for(int i = 0; i < this.players.length; i++) {
+			result ^= ReversiBitboard.legalMoves(this.players[i], this.opponents[i]);
+		}
+		return result;
+	}
+	
+	@Benchmark
+	public int gameOver() {
+		int result = 0;
+		for(int i = 0; i < this.players.length; i++) {
+			if(ReversiBitboard.isGameOver(this.players[i], this.opponents[i])) {
+				result++;
+			}
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,75 @@
+package ReversiBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiBitboard;
+
+/**
+ * File: ReversiPlayoutBenchmark.java
+ * 
+ * Plays whole games of pseudo-random moves from the starting position. The random
+ * sequence restarts from the same seed every invocation so every run plays the same games.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiPlayoutBenchmark {
+	
+	private static final int GAMES = 16;
+	
+	@Benchmark
+	public int playout() {
+		long seed = 0x2545F4914F6CDD1DL;
+		int result = 0;
+		for(int game = 0; game < GAMES; game++) {
+			long player = ReversiBitboard.startBlack();
+			long opponent = ReversiBitboard.startWhite();
+			boolean passed = false;
+			while(true) {
+				long moves = ReversiBitboard.legalMoves(player, opponent);
+				if(moves == 0) {
+					if(passed) {
+						break;
+					}
+					passed = true;
+				} else {
+					passed = false;
+					seed ^= seed << 13;
+					seed ^= seed >>> 7;
+					seed ^= seed << 17;
+					int pick = (int) ((seed >>> 1) % Long.bitCount(moves));
+					for(int i = 0; i < pick; i++) {
+						moves &= moves - 1;
+					}
+					int square = Long.numberOfTrailingZeros(moves);
+					long flips = ReversiBitboard.flips(player, opponent, square);
+					player |= flips | (1L << square);
+					opponent ^= flips;
+				}
+				long swap = player;
+				player = opponent;
+				opponent = swap;
+			}
+			result += Long.bitCount(player) - Long.bitCount(opponent);
+		}
+		return result;
+	}
+	
+}
@@ -0,0 +1,78 @@
+package ReversiBenchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiSearch;
+import ReversiEngine.ReversiSearchLimits;
+import ReversiEngine.ReversiTranspositionTable;
+
+/**
+ * File: ReversiSearchBenchmark.java
+ * 
+ * Searches every eighth corpus position to a fixed depth, with and without a transposition
+ * table. The table is cleared before each pass so every pass does the same work.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReversiSearchBenchmark {
+	
+	private static final int TABLE_MEGABYTES = 4;
+	
+	@Param({"4", "6"})
+	public int depth;
+	
+	@Param({"false", "true"})
+	public boolean table;
+	
+	private ReversiPosition[] positions;
+	private ReversiSearch search;
+	private ReversiSearchLimits limits;
+	
+	@Setup
+	public void setup() {
+		ReversiPosition[] corpus = ReversiCorpus.load();
+		this.positions = new ReversiPosition[(corpus.length + 7) / 8];
+		for(int i = 0; i < this.positions.length; i++) {
+			this.positions[i] = corpus[i * 8];
+		}
+		this.search = new ReversiSearch();
+		if(this.table) {
+			this.search.setTranspositionTable(new ReversiTranspositionTable(TABLE_MEGABYTES));
+		}
+		this.limits = new ReversiSearchLimits(this.depth);
+	}
+	
+	@Benchmark
+	public long fixedDepth() {
+		if(this.table) {
+			this.search.getTranspositionTable().clear();
+		}
+		long nodes = 0;
+		for(ReversiPosition position : this.positions) {
+			nodes += this.search.findBestMove(position, this.limits).getNodes();
+		}
+		return nodes;
+	}
+	
+}
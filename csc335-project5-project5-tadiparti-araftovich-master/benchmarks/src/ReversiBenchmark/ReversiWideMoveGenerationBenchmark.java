@@ -0,0 +1,94 @@
+package ReversiBenchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ReversiEngine.ReversiSearchResult;
+import ReversiEngine.ReversiWideBitboard;
+import ReversiEngine.ReversiWideBoard;
+
+/**
+ * File: ReversiWideMoveGenerationBenchmark.java
+ *
+ * Legal-move generation with ReversiWideBitboard at each board size, over positions taken
+ * from seeded random games. The 8x8 figure can be set against ReversiMoveGenerationBenchmark
+ * to see what the word loops cost over the single-long generator.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReversiWideMoveGenerationBenchmark {
+
+	private static final int POSITIONS = 1000;
+	private static final long SEED = 335;
+
+	@Param({"6", "8", "10", "12", "16"})
+	private int size;
+
+	private ReversiWideBitboard rules;
+	private long[][] players;
+	private long[][] opponents;
+	private long[] moves;
+
+	@Setup
+	public void setup() {
+		this.rules = new ReversiWideBitboard(this.size, this.size);
+		this.players = new long[POSITIONS][];
+		this.opponents = new long[POSITIONS][];
+		this.moves = this.rules.newSet();
+		Random random = new Random(SEED);
+		ReversiWideBoard board = new ReversiWideBoard(this.size, this.size);
+		long[] legal = this.rules.newSet();
+		for(int i = 0; i < POSITIONS; i++) {
+			if(board.isGameOver()) {
+				board.reset();
+			}
+			char player = board.getToMove();
+			this.players[i] = board.getDiscs(player).clone();
+			this.opponents[i] = board.getDiscs((player == 'B') ? 'W' : 'B').clone();
+			board.make(randomMove(board, legal, random));
+		}
+	}
+
+	private int randomMove(ReversiWideBoard board, long[] legal, Random random) {
+		if(!board.legalMoves(board.getToMove(), legal)) {
+			return ReversiSearchResult.PASS;
+		}
+		int pick = random.nextInt(ReversiWideBitboard.count(legal));
+		for(int square = 0; ; square++) {
+			if(ReversiWideBitboard.isSet(legal, square) && pick-- == 0) {
+				return square;
+			}
+		}
+	}
+
+	@Benchmark
+	public long legalMoves() {
+		long result = 0;
+		for(int i = 0; i < POSITIONS; i++) {
+			this.rules.legalMoves(this.players[i], this.opponents[i], this.moves);
+			result ^= this.moves[0];
+		}
+		return result;
+	}
+
+}
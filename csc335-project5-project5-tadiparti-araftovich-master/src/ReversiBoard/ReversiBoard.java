@@ -2,11 +2,10 @@ package ReversiBoard;
 
 import java.io.Serializable;
 
-import javafx.scene.Node;
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiWideBitboard;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
@@ -16,55 +15,147 @@ import javafx.scene.text.Text;
  * 
  * This  class that captures the row, column, and color of a move that the user played.
  * 
+ * Boards of any size are kept as sets of 64-bit words, square (row * cols + col) being bit
+ * square % 64 of word square / 64, so an 8x8 board is one word for each color.
+ * 
  * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
  * 
  * @author Andrew Raftovich araftovich@email.arizona.edu
  */
 public class ReversiBoard implements Serializable {
 	
-	private static final long serialVersionUID = 1L;
-	private char[][] tokens;
+	private static final long serialVersionUID = 3L;
+	private int rows;
+	private int cols;
+	private long[] black;
+	private long[] white;
 	
 	/**
 	 * Initializes valuable data required to 'paint' the board.
-	 * @param token - a 2d char list that contains all the tokens that have been played
-	 * @param board - GridPane
+	 * @param black - mask of every black token that has been played
+	 * @param white - mask of every white token that has been played
 	 * 
 	 * @author Benhur J. Tadiparti
 	 */
-	public ReversiBoard(char[][] token) {
-		this.tokens = token;
+	public ReversiBoard(long black, long white) {
+		this(ReversiBitboard.SIZE, ReversiBitboard.SIZE, new long[] {black}, new long[] {white});
 	}
 	
 	/**
-	 * Colors each token that is on the board.
+	 * Initializes a board of any size.
+	 * @param rows - number of rows
+	 * @param cols - number of columns
+	 * @param black - every black token, one bit per square, kept by the board
+	 * @param white - every white token, one bit per square, kept by the board
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public ReversiBoard(int rows, int cols, long[] black, long[] white) {
+		this.rows = rows;
+		this.cols = cols;
+		this.black = black;
+		this.white = white;
+	}
+	
+	/**
+	 * Colors only the given squares. The cells are looked up by square index, so the cost is
+	 * one lookup per changed square rather than a pass over every node of the grid.
+	 * The mask names the squares of an 8x8 board, so boards of other sizes are repainted
+	 * whole.
+	 * @param cells the token of each square, indexed by row * cols + col
+	 * @param changed mask of the squares to repaint
 	 * 
 	 * @author Benhur J. Tadiparti
-	 * @author Andrew Raftovich
 	 */
-	public void updateBoard(GridPane board) {
-		for(Node child : board.getChildren()) {
-			Circle circle = (Circle) ((Pane) child).getChildren().get(0);
-			if (this.tokens[GridPane.getRowIndex(child)][GridPane.getColumnIndex(child)] == 'W') {
-				circle.setOpacity(1);
-				circle.setFill(Color.WHITE);
-			} else if (this.tokens[GridPane.getRowIndex(child)][GridPane.getColumnIndex(child)] == 'B') {
-				circle.setOpacity(1);
-				circle.setFill(Color.BLACK);
-			} else {
-				circle.setOpacity(0);
+	public void updateSquares(Circle[] cells, long changed) {
+		if(cells.length != ReversiBitboard.SQUARES) {
+			for(int square = 0; square < cells.length; square++) {
+				paint(cells[square], square);
 			}
+			return;
+		}
+		while(changed != 0) {
+			int square = Long.numberOfTrailingZeros(changed);
+			changed &= changed - 1;
+			paint(cells[square], square);
 		}
 	}
 	
 	/**
-	 * Sends the board for Model usage.
-	 * @return Sends board of checkers that are either black or white.
+	 * Colors the token of one square.
+	 */
+	private void paint(Circle circle, int square) {
+		if(ReversiWideBitboard.isSet(this.white, square)) {
+			circle.setOpacity(1);
+			circle.setFill(Color.WHITE);
+		} else if(ReversiWideBitboard.isSet(this.black, square)) {
+			circle.setOpacity(1);
+			circle.setFill(Color.BLACK);
+		} else {
+			circle.setOpacity(0);
+		}
+	}
+	
+	/**
+	 * Sends the black checkers for Model usage.
+	 * @return mask of every black checker on the board, of the first 64 squares on boards
+	 * larger than 8x8.
 	 * 
 	 * @author Andrew Raftovich
 	 */
-	public char[][] getBoard() {
-		return this.tokens;
+	public long getBlack() {
+		return this.black[0];
+	}
+	
+	/**
+	 * Sends the white checkers for Model usage.
+	 * @return mask of every white checker on the board, of the first 64 squares on boards
+	 * larger than 8x8.
+	 * 
+	 * @author Andrew Raftovich
+	 */
+	public long getWhite() {
+		return this.white[0];
+	}
+	
+	/**
+	 * Returns the black checkers of a board of any size.
+	 * @return the board's own words of black checkers, one bit per square
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public long[] getBlackWords() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the white checkers of a board of any size.
+	 * @return the board's own words of white checkers, one bit per square
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public long[] getWhiteWords() {
+		return this.white;
+	}
+	
+	/**
+	 * Returns the number of rows.
+	 * @return the height of the board
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+	
+	/**
+	 * Returns the number of columns.
+	 * @return the width of the board
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public int getCols() {
+		return this.cols;
 	}
 		
 	/**
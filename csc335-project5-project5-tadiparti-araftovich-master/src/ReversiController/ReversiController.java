@@ -5,43 +5,136 @@ import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ReversiBoard.ReversiBoard;
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiAI;
+import ReversiEngine.ReversiAsyncAI;
+import ReversiEngine.ReversiEndgameSolver;
+import ReversiEngine.ReversiEvaluator;
+import ReversiEngine.ReversiOpeningBook;
+import ReversiEngine.ReversiParallelSearch;
+import ReversiEngine.ReversiPatternEvaluator;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiSearchLimits;
+import ReversiEngine.ReversiSearchResult;
+import ReversiEngine.ReversiTranspositionTable;
+import ReversiEngine.ReversiWeightedEvaluator;
+import ReversiEngine.ReversiWideBoard;
+import ReversiEngine.ReversiWideSearch;
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
 
 /**
  * File: ReversiController.java
  * 
  * Modifies the user input for the model and also contains logic for checker replacement.
  * 
+ * The AI searches on a thread of its own and its move is played on the JavaFX thread when
+ * the search is done, so the board stays responsive while it thinks. A new game, a reset
+ * or a lost connection cancels the search, and a move found for an earlier game is thrown
+ * away.
+ * 
+ * On boards other than 8x8 the AI is a ReversiWideSearch, without the opening book,
+ * endgame solver or pondering, and network games are not offered.
+ * 
  * @author Andrew Raftovich araftovich@email.arizona.edu
  * 
  * @author Benhur Tadiparti tadiparti@email.arizona.edu
  */
 public class ReversiController {
+	
+	private static final int DEFAULT_SEARCH_DEPTH = 6;
+	private static final long DEFAULT_SEARCH_MILLIS = 1000;
+	/** Time the endgame solver may take; an exact solve is worth a longer wait. */
+	private static final long DEFAULT_ENDGAME_MILLIS = 3000;
+	private static final String DEFAULT_BOOK = "reversi.book";
+	private static final String DEFAULT_WEIGHTS = "reversi.weights";
+	private static final int DEFAULT_TABLE_MEGABYTES = 16;
+	/** The color the player plays in games against the AI on this computer. */
+	private static final char HUMAN_COLOR = 'B';
 		
 	private ReversiModel myModel;
-	private int flip;
+	private ReversiAI search;
+	private ReversiEndgameSolver endgame;
+	private ReversiSearchLimits searchLimits;
+	private ReversiAsyncAI asyncSearch;
+	private ReversiWideSearch wideSearch;
+	private ReversiAsyncAI wideAsyncSearch;
+	private Executor uiExecutor = Platform::runLater;
+	private final AtomicInteger generation = new AtomicInteger();
+	private boolean thinking;
+	private boolean pondering;
 	
 	private ServerSocket serverSocket;
 	private Socket socket;
-	private ObjectOutputStream outputStream;
-	private ObjectInputStream inputStream;
+	private OutputStream outputStream;
+	private DataInputStream inputStream;
 	private Thread t;
-    private ReversiBoard board;	
+    private int sequence;
+    private int lastMove = ReversiSearchResult.PASS;
     private boolean freezeBoard = false;
     private boolean isServer;
+    private char myColor;
     private boolean isHuman;
     private boolean gameOver = false;
 
 	public ReversiController(ReversiModel myModel) {
 		this.myModel = myModel;
-		this.flip = 0; // Keeps score of how many tokens were turned.
+		ReversiEvaluator evaluator = new ReversiWeightedEvaluator();
+		Path weights = Paths.get(DEFAULT_WEIGHTS);
+		if(Files.isReadable(weights)) {
+			try {
+				evaluator = ReversiPatternEvaluator.load(weights);
+			} catch (IOException e) {
+				System.err.println("Pattern weights not loaded: " + e.getMessage());
+			}
+		}
+		ReversiAI midgame = new ReversiParallelSearch(Runtime.getRuntime().availableProcessors(), evaluator, 
+				new ReversiTranspositionTable(DEFAULT_TABLE_MEGABYTES));
+		this.endgame = new ReversiEndgameSolver(midgame, ReversiEndgameSolver.DEFAULT_EMPTIES);
+		this.endgame.setTimeMillis(DEFAULT_ENDGAME_MILLIS);
+		this.search = this.endgame;
+		Path book = Paths.get(DEFAULT_BOOK);
+		if(Files.isReadable(book)) {
+			try {
+				this.search = new ReversiOpeningBook(book, this.endgame);
+			} catch (IOException e) {
+				System.err.println("Opening book not loaded: " + e.getMessage());
+			}
+		}
+		this.searchLimits = new ReversiSearchLimits(DEFAULT_SEARCH_DEPTH);
+		this.searchLimits.setTimeMillis(DEFAULT_SEARCH_MILLIS);
+		this.asyncSearch = new ReversiAsyncAI(this.search);
+		if(myModel.getRow() != ReversiBitboard.SIZE || myModel.getCol() != ReversiBitboard.SIZE) {
+			this.wideSearch = new ReversiWideSearch();
+			this.wideAsyncSearch = new ReversiAsyncAI(this.wideSearch);
+		}
+	}
+	
+	/**
+	 * Sets where the AI's moves are played once found. The JavaFX thread by default.
+	 * @param uiExecutor runs the code that plays a found move
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setUIExecutor(Executor uiExecutor) {
+		this.uiExecutor = uiExecutor;
 	}
 	
 	/**
@@ -52,9 +145,9 @@ public class ReversiController {
 	 * @author Andrew Raftovich araftovich@email.arizona.edu
 	 */
 	public void humanTurn(int row, int col) {
-		if(isValidPosition(col, row) && validMoveOrFlip(col, row, 'v', this.myModel.getPlayer()) && !freezeBoard && !gameOver) {
-			this.myModel.setToken(col, row, this.myModel.getPlayer());
-			validMoveOrFlip(col, row, 'f', this.myModel.getPlayer());
+		if(this.myModel.isLegalMove(row, col, this.myModel.getPlayer()) && !freezeBoard && !gameOver && !thinking) {
+			this.lastMove = row * this.myModel.getCol() + col;
+			this.myModel.applyMove(this.lastMove, this.myModel.getPlayer());
 
 			if(this.myModel.getIsNetwork()) {
 				sendData();
@@ -66,30 +159,41 @@ public class ReversiController {
 	}
 	
 	/**
-	 * Sends data to a Server/Client
+	 * Sends the last move played here to a Server/Client, as the next ply of the game.
 	 * 
 	 * @author Andrew Raftovich
-	 * @throws InterruptedException 
 	 */
 	public void sendData() {
-		
 		if(!gameOver) {
-			ReversiBoard tempBoard = new ReversiBoard(this.myModel.getTokens());
-			try {
-				outputStream.writeObject(tempBoard);
-				outputStream.flush();
-			} catch (IOException e) {
-				endConnection();
-				new Alert(AlertType.INFORMATION, "Connection Closed.").showAndWait();
-				return;
-			} catch (NullPointerException e) {
-				new Alert(AlertType.INFORMATION, "Connection Closed.").showAndWait();
+			if(!send(ReversiMessage.move(this.sequence, this.lastMove))) {
 				return;
 			}
+			this.sequence++;
 			freezeBoard = true;
 			isGameOver();
 		}
 	}
+	
+	/**
+	 * Writes one message to the Server/Client.
+	 * @param message the message to send
+	 * @return true if it was sent, false if the connection is closed
+	 * 
+	 * @author Andrew Raftovich
+	 */
+	private boolean send(ReversiMessage message) {
+		try {
+			ReversiProtocol.write(message, outputStream);
+		} catch (IOException e) {
+			endConnection();
+			new Alert(AlertType.INFORMATION, "Connection Closed.").showAndWait();
+			return false;
+		} catch (NullPointerException e) {
+			new Alert(AlertType.INFORMATION, "Connection Closed.").showAndWait();
+			return false;
+		}
+		return true;
+	}
 		
 	/**
 	 * Creates a network connection to a Server or Client
@@ -101,9 +205,16 @@ public class ReversiController {
 	 * @author Andrew Raftovich
 	 */
 	public void setNetwork(int port, String host, boolean isServer, boolean isHuman) {
+		if(this.wideSearch != null) {
+			new Alert(AlertType.INFORMATION, "Network games are played on 8x8 boards.").showAndWait();
+			return;
+		}
 		this.myModel.setIsNetwork(true);
 		this.isServer = isServer;
 		this.isHuman = isHuman;
+		this.myColor = isServer ? 'B' : 'W';
+		this.sequence = 0;
+		cancelComputerTurn();
 		
 		try {
 			if(isServer) {
@@ -115,13 +226,17 @@ public class ReversiController {
 				socket = new Socket("localhost", 4000);
 				freezeBoard = true;
 			}
-			outputStream = new ObjectOutputStream(socket.getOutputStream());
-			outputStream.flush();
-			inputStream = new ObjectInputStream(socket.getInputStream());
+			socket.setTcpNoDelay(true);
+			outputStream = new BufferedOutputStream(socket.getOutputStream());
+			inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			ReversiProtocol.write(ReversiMessage.hello(ReversiProtocol.VERSION), outputStream);
+			ReversiMessage hello = ReversiProtocol.read(inputStream);
+			if(hello.getType() != ReversiMessage.HELLO || hello.getSequence() != ReversiProtocol.VERSION) {
+				throw new IOException("Peer speaks protocol " + hello);
+			}
 			
 			if(this.isServer && !this.isHuman) {
-				computerTurn();
-				sendData();
+				computerTurn().thenRun(this::sendData);
 			}
 		} catch (UnknownHostException e) {
 			new Alert(AlertType.INFORMATION, "Connection Closed.").showAndWait();
@@ -133,47 +248,85 @@ public class ReversiController {
 			
 			while(socket.isConnected() && !gameOver) {
 				
+				ReversiMessage message;
 				try{
-					board = (ReversiBoard)inputStream.readObject();
-				} catch (ClassNotFoundException e) {
-					endConnection();
-					return;
+					message = ReversiProtocol.read(inputStream);
 				} catch (IOException e) {
 					endConnection();
 					return;
 				}
 					
-				Platform.runLater(() -> {
-					this.myModel.setBoard(board);
-					this.freezeBoard = false;
-					if(!isGameOver()) {
-						if(this.isServer) {
-							this.myModel.setPlayer('B');
-							if(!this.isHuman) {
-								computerTurn();
-								sendData();
-							}
-						} else {
-							this.myModel.setPlayer('W');
-							if(!this.isHuman) {
-								computerTurn();
-								sendData();
-							}
-						}
-					}
-				});
+				Platform.runLater(() -> receive(message));
 
 			}
 		});
 		t.start();
 	}
 	
+	/**
+	 * Handles a message from the Server/Client. A move that is not the next ply, or that is
+	 * not legal here, means the two boards differ, so the position is asked for instead.
+	 * @param message the message that arrived
+	 * 
+	 * @author Andrew Raftovich
+	 */
+	private void receive(ReversiMessage message) {
+		char myColor = this.myColor;
+		char peerColor = (myColor == 'B') ? 'W' : 'B';
+		switch(message.getType()) {
+		case ReversiMessage.START:
+			// A game server has paired us with an opponent and picked our color.
+			this.myColor = message.getToMove();
+			this.sequence = 0;
+			this.myModel.setPlayer(this.myColor);
+			this.freezeBoard = this.myColor != 'B';
+			if(this.myColor == 'B' && !this.isHuman) {
+				computerTurn().thenRun(this::sendData);
+			}
+			return;
+		case ReversiMessage.MOVE:
+			boolean inStep = message.getSequence() == (this.sequence & 0xFFFF);
+			if(!inStep || (message.getSquare() != ReversiMessage.PASS && this.myModel.applyMove(message.getSquare(), peerColor) == 0)) {
+				send(ReversiMessage.syncRequest(this.sequence));
+				return;
+			}
+			this.sequence++;
+			break;
+		case ReversiMessage.SYNC:
+			this.myModel.setBoard(new ReversiBoard(message.getBlack(), message.getWhite()));
+			this.sequence = message.getSequence();
+			if(message.getToMove() != myColor) {
+				this.freezeBoard = true;
+				return;
+			}
+			break;
+		case ReversiMessage.SYNC_REQUEST:
+			char toMove = this.freezeBoard ? peerColor : myColor;
+			send(ReversiMessage.sync(this.sequence, this.myModel.getDiscs('B'), this.myModel.getDiscs('W'), toMove));
+			return;
+		default:
+			return;
+		}
+		
+		this.freezeBoard = false;
+		if(!isGameOver()) {
+			this.myModel.setPlayer(myColor);
+			if(!this.myModel.hasLegalMove(myColor)) {
+				this.lastMove = ReversiSearchResult.PASS;
+				sendData();
+			} else if(!this.isHuman) {
+				computerTurn().thenRun(this::sendData);
+			}
+		}
+	}
+	
 	/**
 	 * Ends connection with a Server/Client
 	 * 
 	 * @author Andrew Raftovich
 	 */
 	public void endConnection() {
+		cancelComputerTurn();
 		if(socket != null) {
 			try {
 				socket.close();
@@ -192,237 +345,6 @@ public class ReversiController {
 		this.t = null;
 	}
 	
-	/**
-	 * Checks if the checker placement on the board is near an opposing color/Valid position.
-	 * @param row the horizontal position of the checker.
-	 * @param col the vertical position of the checker.
-	 * @return If the checker placement is valid.
-	 * 
-	 * @author Andrew Raftovich araftovich@email.arizona.edu
-	 */
-	private boolean isValidPosition(int row, int col) {
-		char[][] board = this.myModel.getTokens();
-		char oppositeTeam = (this.myModel.getPlayer() == 'B') ? 'W' : 'B';
-		int maxRows = this.myModel.getRow();
-		int maxCols = this.myModel.getCol();
-
-		// Check if in bounds and the position is empty
-		if(row > maxRows || col > maxCols || row < 0 || col < 0 || board[col][row] != 0) {
-			return false;
-		}
-
-		//FOR loop for above row if in range of board
-		if(col-1 >= 0) {
-			for(int tempRow = row-1; tempRow <= row+1; tempRow++) {
-				if(tempRow >= 0 && tempRow < maxRows && board[col-1][tempRow] == oppositeTeam ) {
-					return true;
-				}
-			}
-		}
-
-		//FOR loop for below row if in range of board
-		if(col+1 < maxCols) {
-			for(int tempRow = row-1; tempRow <= row+1; tempRow++) {
-				if(tempRow >= 0 && tempRow < maxRows && board[col+1][tempRow] == oppositeTeam) {
-					return true;
-				}
-			}
-		}
-
-		//Check left
-		if(row-1 >= 0 && board[col][row-1] == oppositeTeam) {
-			return true;
-		}
-
-		//Check right
-		if(row+1 < maxRows && board[col][row+1] == oppositeTeam) {
-			return true;
-		}
-
-		return false;
-	}
-	
-	/**
-	 * Checks to see if this is a valid move, meaning that at least one token of the 
-	 * opponents team will be swapped, or flips tokens to match token that was placed.
-	 * @param row the horizontal position of the checker.
-	 * @param col the vertical position of the checker.
-	 * @return true if and only if there are tokens that can be turned or have been turned.
-	 * @author Andrew Raftovich
-	 * @author Benhur Tadiparti
-	 */
-	private Boolean validMoveOrFlip(int row, int col, char type, char player) {
-		char[][] board = this.myModel.getTokens();
-		char oppositeTeam = (player == 'B') ? 'W' : 'B';
-		int maxRows = this.myModel.getRow();
-		int maxCols = this.myModel.getCol();
-		
-		// Check right for same colored token at 1 > distance
-		if(row+1 < maxRows && board[col][row+1] == oppositeTeam) {
-			int tempRow = row+1;
-			while(tempRow+1 < maxRows && board[col][tempRow+1] == oppositeTeam) {
-				tempRow++;
-			}
-			if(tempRow+1 < maxRows && board[col][tempRow+1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between RIGHT");
-					for(int rowItem = row+1; rowItem < tempRow+1; rowItem++) {
-						this.myModel.flipToken(rowItem, col);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}
-			}
-		}
-		
-		// Check left 
-		if(row-1 >= 0 && board[col][row-1] == oppositeTeam) {
-			int tempRow = row-1;
-			while(tempRow-1 >= 0 && board[col][tempRow-1] == oppositeTeam) {
-				tempRow--;
-			}
-			if(tempRow-1 >= 0 && board[col][tempRow-1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between LEFT");
-					for(int rowItem = tempRow; rowItem < row; rowItem++) {
-						this.myModel.flipToken(rowItem, col);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}
-			}
-		}
-		
-		// Check up
-		if(col-1 >= 0 && board[col-1][row] == oppositeTeam) {
-			int tempCol = col-1;
-			while(tempCol-1 >= 0 && board[tempCol-1][row] == oppositeTeam) {
-				tempCol--;
-			}
-			if(tempCol-1 >= 0 && board[tempCol-1][row] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between UP");
-					for(int colItem = col-1; colItem > tempCol-1; colItem--) {
-						this.myModel.flipToken(row, colItem);
-					}
-				} else {
-					this.flip = tempCol;
-					return true;
-				}
-			}
-		}
-		
-		// Check down
-		if(col+1 < maxCols && board[col+1][row] == oppositeTeam) {
-			int tempCol = col+1;
-			while(tempCol+1 < maxCols && board[tempCol+1][row] == oppositeTeam) {
-				tempCol++;
-			}
-			if(tempCol+1 < 8 && board[tempCol+1][row] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between DOWN");
-					for(int colItem = col+1; colItem < tempCol+1; colItem++) {
-						this.myModel.flipToken(row, colItem);
-					}
-				} else {
-					this.flip = tempCol;
-					return true;
-				}
-			}
-		}
-
-		// Check diagonal upper right
-		if(row+1 < maxRows && col-1 >= 0 && board[col-1][row+1] == oppositeTeam) {
-			int tempRow = row+1;
-			int tempCol = col-1;
-			while(tempRow+1 < maxRows && tempCol-1 >= 0 && board[tempCol-1][tempRow+1] == oppositeTeam) {
-				tempRow++;
-				tempCol--;
-			}
-			if(tempRow+1 < maxRows && tempCol-1 >= 0 && board[tempCol-1][tempRow+1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between UP RIGHT");
-					int colItem = col-1;
-					for(int rowItem = row+1; rowItem < tempRow+1; rowItem++) {
-						this.myModel.flipToken(rowItem, colItem--);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}	
-			}
-		}
-		
-		// Check diagonal upper left
-		if(row-1 >= 0 && col-1 >= 0 && board[col-1][row-1] == oppositeTeam) {
-			int tempRow = row-1;
-			int tempCol = col-1;
-			while(tempRow-1 >= 0 && tempCol-1 >= 0 && board[tempCol-1][tempRow-1] == oppositeTeam) {
-				tempRow--;
-				tempCol--;
-			}
-			if(tempRow-1 >= 0 && tempCol-1 >= 0 && board[tempCol-1][tempRow-1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between UP LEFT");
-					int colItem = col-1;
-					for(int rowItem = row-1; rowItem > tempRow-1; rowItem--) {
-						this.myModel.flipToken(rowItem, colItem--);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}
-			}
-		}
-		
-		// Check diagonal lower right
-		if(row+1 < maxRows && col+1 < maxCols && board[col+1][row+1] == oppositeTeam) {
-			int tempRow = row+1;
-			int tempCol = col+1;
-			while(tempRow+1 < maxRows && tempCol+1 < maxCols && board[tempCol+1][tempRow+1] == oppositeTeam) {
-				tempRow++;
-				tempCol++;
-			}
-			if(tempRow+1 < maxRows && tempCol+1 < maxCols && board[tempCol+1][tempRow+1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between DOWN RIGHT");
-					int colItem = col+1;
-					for(int rowItem = row+1; rowItem < tempRow+1; rowItem++) {
-						this.myModel.flipToken(rowItem, colItem++);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}
-			}
-		}
-		
-		// Check diagonal lower left
-		if(row-1 >= 0 && col+1 < maxCols && board[col+1][row-1] == oppositeTeam) {
-			int tempRow = row-1;
-			int tempCol = col+1;
-			while(tempRow-1 >= 0 && tempCol+1 < maxCols && board[tempCol+1][tempRow-1] == oppositeTeam) {
-				tempRow--;
-				tempCol++;
-			}
-			if(tempRow-1 >= 0 && tempCol+1 < maxCols && board[tempCol+1][tempRow-1] == player) {
-				if (type == 'f') {
-					System.out.println("Flip all coins between DOWN LEFT");
-					int rowItem = row-1;
-					for(int colItem = col+1; colItem < tempCol+1; colItem++) {
-						this.myModel.flipToken(rowItem--, colItem);
-					}
-				} else {
-					this.flip = tempRow;
-					return true;
-				}
-			}
-		}
-		return false;
-	}
-	
 	/**
 	 * Checks if the game is over and update model.
 	 * 
@@ -433,7 +355,6 @@ public class ReversiController {
 		int colSize = this.myModel.getCol();
 		int whitePieces = this.myModel.getWhite();
 		int blackPieces = this.myModel.getBlack();
-		char oppositeTeam = (this.myModel.getPlayer() == 'B') ? 'W' : 'B';
 		if((rowSize*colSize) == (whitePieces+blackPieces)) {
 			if(whitePieces > blackPieces) {
 				if (this.myModel.getPlayer() == 'B') {
@@ -455,18 +376,7 @@ public class ReversiController {
 			}
 		} else {
 			// Check if no more valid positions left on board.
-			boolean noMoreMoves = true;
-			for(int col = 0; col < colSize; col++) {
-				for(int row = 0; row < rowSize; row++) {
-					if(this.myModel.getPosition(col, row) == 0 && (validMoveOrFlip(col, row, 'v', this.myModel.getPlayer()) 
-							|| validMoveOrFlip(col, row, 'v', oppositeTeam))) {
-						noMoreMoves = false;
-						break;
-					}
-				}
-			}
-			
-			if(noMoreMoves) {
+			if(this.myModel.isGameOver()) {
 				if(whitePieces > blackPieces) {
 					if (this.myModel.getPlayer() == 'B') {
 						this.myModel.setLoser("Black");
@@ -491,35 +401,199 @@ public class ReversiController {
 	}
 	
 	/**
-	 * This is the AI program, and it chooses the best move to play aganist the user.
+	 * This is the AI program, and it searches ahead for the best move to play aganist the user.
+	 * The search runs on the AI's thread; the move is played on the JavaFX thread.
+	 * @return completes once the move is on the board, or is cancelled with the search
 	 * @author Benhur Tadiparti
 	 */
-	public void computerTurn() {
-		if(!gameOver) {			
-			int bestRow = 0;
-			int bestCol = 0;
-			int numFlip = 0;
-			for(int col = 0; col < this.myModel.getCol(); col++) {
-				for(int row = 0; row < this.myModel.getRow(); row++) {
-					if(this.myModel.getPosition(col, row) == 0 && isValidPosition(col, row) && 
-							validMoveOrFlip(col, row, 'v', this.myModel.getPlayer())) {
-						if(numFlip < this.flip) {
-							bestRow = row;
-							bestCol = col;
-							numFlip = this.flip;
-						} 
-					}
-				}
+	public CompletableFuture<Integer> computerTurn() {
+		if(gameOver) {
+			return CompletableFuture.completedFuture(ReversiSearchResult.PASS);
+		}
+		int game = this.generation.get();
+		char player = this.myModel.getPlayer();
+		this.thinking = true;
+		CompletableFuture<ReversiSearchResult> search;
+		if(this.wideSearch != null) {
+			ReversiWideBoard position = this.myModel.getWideGamePosition();
+			search = this.wideAsyncSearch.submit(() -> this.wideSearch.findBestMove(position, this.searchLimits));
+		} else {
+			search = this.asyncSearch.findBestMove(this.myModel.getGamePosition(), this.searchLimits);
+		}
+		return search.thenApplyAsync(result -> {
+			if(game != this.generation.get()) {
+				throw new CancellationException("The game the move was found for is over");
+			}
+			this.thinking = false;
+			this.lastMove = result.getMove();
+			if(result.getMove() != ReversiSearchResult.PASS) {
+				this.myModel.applyMove(result.getMove(), player);
+			}
+			if(this.pondering && this.wideSearch == null) {
+				char opponent = (player == 'B') ? 'W' : 'B';
+				this.asyncSearch.ponder(new ReversiPosition(this.myModel.getDiscs('B'), this.myModel.getDiscs('W'), opponent), this.searchLimits);
 			}
-			
-			this.flip = 0;
-			this.myModel.setToken(bestCol, bestRow, this.myModel.getPlayer());
-			validMoveOrFlip(bestCol, bestRow, 'f', this.myModel.getPlayer());
 
 			if(!this.myModel.getIsNetwork()) {
 				this.myModel.nextMove();
 				isGameOver();
+				passIfStuck();
+			}
+			return result.getMove();
+		}, this.uiExecutor).whenCompleteAsync((move, error) -> {
+			// A failed search must not leave the board locked against the human's moves.
+			if(error != null && game == this.generation.get()) {
+				this.thinking = false;
+				System.err.println("AI search failed: " + error);
 			}
+		}, this.uiExecutor);
+	}
+	
+	/**
+	 * Stops the AI's search, if it is thinking, and drops the move it would have played.
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void cancelComputerTurn() {
+		this.generation.incrementAndGet();
+		this.asyncSearch.cancel();
+		if(this.wideAsyncSearch != null) {
+			this.wideAsyncSearch.cancel();
+		}
+		this.thinking = false;
+	}
+	
+	/**
+	 * Stops the AI for good when the application closes.
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void shutdown() {
+		this.asyncSearch.shutdown();
+		if(this.wideAsyncSearch != null) {
+			this.wideAsyncSearch.shutdown();
+		}
+	}
+	
+	/**
+	 * Sets how many moves ahead the AI looks.
+	 * @param depth number of plies to search
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setSearchDepth(int depth) {
+		this.searchLimits.setDepth(depth);
+	}
+	
+	/**
+	 * Sets how many empty squares are left when the AI starts playing perfectly.
+	 * @param empties empty squares at which the endgame solver takes over
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setEndgameEmpties(int empties) {
+		this.endgame.setEmpties(empties);
+	}
+	
+	/**
+	 * Sets the longest the AI may think about one move.
+	 * @param millis wall-clock budget per move, or 0 for no limit
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setSearchTime(long millis) {
+		this.searchLimits.setTimeMillis(millis);
+	}
+	
+	/**
+	 * Sets the most positions the AI may look at for one move.
+	 * @param nodes node budget per move, or 0 for no limit
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setSearchNodes(long nodes) {
+		this.searchLimits.setNodes(nodes);
+	}
+	
+	/**
+	 * Sets whether the AI keeps searching while its opponent thinks. It guesses the reply
+	 * and searches on from there, so when the guess is right its next move has had the
+	 * opponent's thinking time as well as its own.
+	 * @param pondering true to search on the opponent's time
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void setPondering(boolean pondering) {
+		this.pondering = pondering;
+	}
+	
+	/**
+	 * Takes back the player's last move, and the AI's reply if it has played one, so it is
+	 * the player's turn again. Only in games against the AI on this computer.
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void undo() {
+		if(this.myModel.getIsNetwork() || !this.myModel.canUndo()) {
+			return;
+		}
+		cancelComputerTurn();
+		do {
+			this.myModel.undo();
+		} while(this.myModel.getPlayer() != HUMAN_COLOR && this.myModel.canUndo());
+	}
+	
+	/**
+	 * Plays again the moves undo() took back, up to the player's next turn. If the AI's
+	 * reply was not played before, the AI plays it now.
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void redo() {
+		if(this.myModel.getIsNetwork() || this.thinking || !this.myModel.canRedo()) {
+			return;
+		}
+		do {
+			this.myModel.redo();
+		} while(this.myModel.getPlayer() != HUMAN_COLOR && this.myModel.canRedo());
+		resumeAfterHistoryMove();
+	}
+	
+	/**
+	 * Shows the game as it was after a number of moves, for looking through the game. A
+	 * move played from there replaces the rest of the game.
+	 * @param ply number of moves from the start, from 0 to the length of the game
+	 * 
+	 * @author Benhur Tadiparti
+	 */
+	public void goToPly(int ply) {
+		if(this.myModel.getIsNetwork()) {
+			return;
+		}
+		cancelComputerTurn();
+		this.myModel.goToPly(ply);
+		resumeAfterHistoryMove();
+	}
+	
+	/**
+	 * Lets the AI move if the board was left on its turn.
+	 */
+	private void resumeAfterHistoryMove() {
+		if(this.myModel.getPlayer() != HUMAN_COLOR && !this.myModel.isGameOver()) {
+			computerTurn();
+		} else {
+			passIfStuck();
+		}
+	}
+	
+	/**
+	 * Passes for the player when it is their turn and they have no legal move but the AI
+	 * has, and lets the AI move again.
+	 */
+	private void passIfStuck() {
+		if(!this.gameOver && this.myModel.getPlayer() == HUMAN_COLOR && this.myModel.mustPass(HUMAN_COLOR)) {
+			this.myModel.nextMove();
+			computerTurn();
 		}
 	}
 	
@@ -529,6 +603,7 @@ public class ReversiController {
 	 * @author Andrew Raftovich
 	 */
 	public void resetBoard() {
+		cancelComputerTurn();
 		this.myModel.resetBoard();
 		this.myModel.setIsNetwork(false);
 		this.gameOver = false;
@@ -0,0 +1,41 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiAI.java
+ * 
+ * Anything that can choose a move for the side to move in a position.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public interface ReversiAI {
+	
+	/**
+	 * Searches a position and returns the best move for the side to move.
+	 * @param position the position to search, which is left unchanged
+	 * @param limits how far to search
+	 * @return the best move found, or PASS if there is no legal move
+	 */
+	ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits);
+	
+	/**
+	 * Asks a running search to return as soon as possible. A stop that comes before the
+	 * search starts is kept, and stops it as soon as it does.
+	 */
+	void stop();
+	
+	/**
+	 * Clears a stop left from an earlier search. Whoever calls stop() calls this before
+	 * queueing the next search; searches do not clear it themselves, so that a stop sent
+	 * just before one starts is not lost.
+	 */
+	void resetStop();
+	
+	/**
+	 * Forgets what earlier games left behind, such as the transposition table, so that
+	 * the next game is played as if by a new AI.
+	 */
+	void newGame();
+	
+}
@@ -0,0 +1,208 @@
+package ReversiEngine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * File: ReversiAsyncAI.java
+ * 
+ * Runs another AI's searches on a thread of its own, so whoever asks for a move is free
+ * while the engine thinks. Searches run one at a time; asking for a new one cancels the
+ * one before. Cancelling a future stops its search if it has started, and skips it if it
+ * has not.
+ * 
+ * While the opponent thinks, ponder() puts the thread to work. It first searches the
+ * opponent's position as if for the opponent, which predicts the reply and fills the
+ * transposition table under every reply, then searches the position after the predicted
+ * reply with no time limit. If the real reply is the predicted one, findBestMove() takes
+ * that search over as it stands and gives it the usual time from then on; otherwise the
+ * ponder search is stopped and a new search starts from what the table has learned.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiAsyncAI {
+	
+	private final ReversiAI ai;
+	private final ExecutorService executor;
+	private CompletableFuture<ReversiSearchResult> current;
+	private ReversiPosition predicted;
+	private CompletableFuture<ReversiSearchResult> pondering;
+	private int ponderHits;
+	private int ponderMisses;
+	
+	/**
+	 * Wraps an AI.
+	 * @param ai the AI that searches
+	 */
+	public ReversiAsyncAI(ReversiAI ai) {
+		this.ai = ai;
+		this.executor = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "ReversiSearch");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * Starts a search.
+	 * @param position the position to search, which is left unchanged
+	 * @param limits how far to search
+	 * @return completes with the best move found, or is cancelled
+	 */
+	public synchronized CompletableFuture<ReversiSearchResult> findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		if(this.pondering != null) {
+			if(this.predicted != null && this.predicted.getBlack() == position.getBlack() 
+					&& this.predicted.getWhite() == position.getWhite() && this.predicted.getToMove() == position.getToMove()) {
+				return ponderHit(limits);
+			}
+			this.ponderMisses++;
+		}
+		return submit(() -> this.ai.findBestMove(position, limits));
+	}
+	
+	/**
+	 * Starts a search that calls the wrapped AI some other way, such as ReversiWideSearch on
+	 * a board that is not 8x8. It is run, and cancelled, like findBestMove().
+	 * @param search calls the wrapped AI and returns its result
+	 * @return completes with the best move found, or is cancelled
+	 */
+	public synchronized CompletableFuture<ReversiSearchResult> submit(Supplier<ReversiSearchResult> search) {
+		cancel();
+		CompletableFuture<ReversiSearchResult> future = newSearch();
+		this.executor.execute(() -> {
+			if(!begin(future)) {
+				return;
+			}
+			try {
+				future.complete(search.get());
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		this.current = future;
+		return future;
+	}
+	
+	/**
+	 * Searches on the opponent's time. The ponder search runs until findBestMove() is called
+	 * for the next move, or it is cancelled.
+	 * @param position the position after this side's move, with the opponent to move
+	 * @param limits the limits the next move will be searched with; the ponder search keeps
+	 * to the depth but has no time or node limit
+	 */
+	public synchronized void ponder(ReversiPosition position, ReversiSearchLimits limits) {
+		cancel();
+		if(ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+			return;
+		}
+		ReversiSearchLimits ponderLimits = new ReversiSearchLimits(limits.getDepth());
+		CompletableFuture<ReversiSearchResult> future = newSearch();
+		this.executor.execute(() -> {
+			if(!begin(future)) {
+				return;
+			}
+			try {
+				ReversiPosition reply = position.play(this.ai.findBestMove(position, limits).getMove());
+				synchronized(this) {
+					if(future.isDone()) {
+						return;
+					}
+					this.predicted = reply;
+				}
+				future.complete(this.ai.findBestMove(reply, ponderLimits));
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			}
+		});
+		this.pondering = future;
+	}
+	
+	/**
+	 * Returns how many times the opponent played the predicted reply.
+	 * @return ponder hit count
+	 */
+	public synchronized int getPonderHits() {
+		return this.ponderHits;
+	}
+	
+	/**
+	 * Returns how many times the opponent played something else.
+	 * @return ponder miss count
+	 */
+	public synchronized int getPonderMisses() {
+		return this.ponderMisses;
+	}
+	
+	private CompletableFuture<ReversiSearchResult> ponderHit(ReversiSearchLimits limits) {
+		CompletableFuture<ReversiSearchResult> future = this.pondering;
+		this.ponderHits++;
+		this.pondering = null;
+		this.predicted = null;
+		this.current = future;
+		if(!future.isDone() && limits.getTimeMillis() > 0) {
+			CompletableFuture.delayedExecutor(limits.getTimeMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+				// The AI's stop is shared by every search, so it is only sent while this
+				// search is still the one running; a later search would be stopped instead.
+				synchronized(this) {
+					if(this.current == future && !future.isDone()) {
+						this.ai.stop();
+					}
+				}
+			});
+		}
+		return future;
+	}
+	
+	private CompletableFuture<ReversiSearchResult> newSearch() {
+		CompletableFuture<ReversiSearchResult> future = new CompletableFuture<>();
+		future.whenComplete((result, error) -> {
+			if(future.isCancelled()) {
+				this.ai.stop();
+			}
+		});
+		return future;
+	}
+	
+	/**
+	 * Clears the stop left by the search before, on the search thread, unless the search
+	 * about to start was cancelled while it waited. Cancelling holds the same lock, so a
+	 * cancel either skips the search or stops it once it runs; it is never cleared away.
+	 * @return true if the search should run
+	 */
+	private synchronized boolean begin(CompletableFuture<ReversiSearchResult> future) {
+		if(future.isDone()) {
+			return false;
+		}
+		this.ai.resetStop();
+		return true;
+	}
+	
+	/**
+	 * Cancels the search in progress, if any, and any pondering.
+	 */
+	public synchronized void cancel() {
+		if(this.current != null) {
+			this.current.cancel(false);
+			this.current = null;
+		}
+		if(this.pondering != null) {
+			this.pondering.cancel(false);
+			this.pondering = null;
+			this.predicted = null;
+		}
+	}
+	
+	/**
+	 * Cancels the search in progress and lets the search thread end.
+	 */
+	public synchronized void shutdown() {
+		cancel();
+		this.executor.shutdown();
+	}
+	
+}
@@ -0,0 +1,201 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiBitboard.java
+ *
+ * Rule core of the game. A position is stored as two 64-bit masks, one per color, where
+ * bit (row * 8 + col) is set when that color owns the square. Legal moves and flips are
+ * computed with shift-and-mask operations instead of walking the board square by square.
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public final class ReversiBitboard {
+
+	public static final int SIZE = 8;
+	public static final int SQUARES = SIZE * SIZE;
+
+	/** Every square except those in column 0 and column 7. */
+	private static final long INNER_COLS = 0x7e7e7e7e7e7e7e7eL;
+
+	private ReversiBitboard() {
+	}
+
+	/**
+	 * Returns the square index of a board coordinate.
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 * @return the square index from 0 to 63
+	 */
+	public static int index(int row, int col) {
+		return row * SIZE + col;
+	}
+
+	/**
+	 * Returns the single-bit mask of a board coordinate.
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 * @return a mask with only that square set
+	 */
+	public static long mask(int row, int col) {
+		return 1L << index(row, col);
+	}
+
+	/**
+	 * Names a square the way recorded games do, column letter then row number.
+	 * @param square the square index, or a negative number for a pass
+	 * @return a name such as "f5", or "pass"
+	 */
+	public static String squareName(int square) {
+		if(square < 0) {
+			return "pass";
+		}
+		return "" + (char) ('a' + square % SIZE) + (char) ('1' + square / SIZE);
+	}
+
+	/**
+	 * Black's discs in the four-disc starting position.
+	 * @return mask of the black starting discs
+	 */
+	public static long startBlack() {
+		return mask(3, 4) | mask(4, 3);
+	}
+
+	/**
+	 * White's discs in the four-disc starting position.
+	 * @return mask of the white starting discs
+	 */
+	public static long startWhite() {
+		return mask(3, 3) | mask(4, 4);
+	}
+
+	/**
+	 * Computes every square the player may play on. Each direction is unrolled; runs that go
+	 * sideways only pass through opponent discs off the edge columns, which also stops them
+	 * from wrapping around to the next row.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return mask of legal moves, 0 if the player has to pass
+	 */
+	public static long legalMoves(long player, long opponent) {
+		long empty = ~(player | opponent);
+		long inner = opponent & INNER_COLS;
+		long moves = 0;
+		long run;
+		
+		// A run of opponent discs is at most six long on an 8x8 board.
+		run = (player << 1) & inner;
+		run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner;
+		moves |= (run << 1) & empty;
+		run = (player >>> 1) & inner;
+		run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner;
+		moves |= (run >>> 1) & empty;
+		
+		run = (player << 8) & opponent;
+		run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent;
+		moves |= (run << 8) & empty;
+		run = (player >>> 8) & opponent;
+		run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent;
+		moves |= (run >>> 8) & empty;
+		
+		run = (player << 7) & inner;
+		run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner;
+		moves |= (run << 7) & empty;
+		run = (player >>> 7) & inner;
+		run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner;
+		moves |= (run >>> 7) & empty;
+		
+		run = (player << 9) & inner;
+		run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner;
+		moves |= (run << 9) & empty;
+		run = (player >>> 9) & inner;
+		run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner;
+		moves |= (run >>> 9) & empty;
+		return moves;
+	}
+	
+	/**
+	 * Computes the discs that are turned over when the player moves on a square.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square index of the square being played
+	 * @return mask of flipped discs, 0 if the move is illegal
+	 */
+	public static long flips(long player, long opponent, int square) {
+		long move = 1L << square;
+		if(((player | opponent) & move) != 0) {
+			return 0;
+		}
+		long inner = opponent & INNER_COLS;
+		long flipped = 0;
+		long run;
+		
+		run = (move << 1) & inner;
+		run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner; run |= (run << 1) & inner;
+		if(((run << 1) & player) != 0) {
+			flipped |= run;
+		}
+		run = (move >>> 1) & inner;
+		run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner; run |= (run >>> 1) & inner;
+		if(((run >>> 1) & player) != 0) {
+			flipped |= run;
+		}
+		
+		run = (move << 8) & opponent;
+		run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent; run |= (run << 8) & opponent;
+		if(((run << 8) & player) != 0) {
+			flipped |= run;
+		}
+		run = (move >>> 8) & opponent;
+		run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent; run |= (run >>> 8) & opponent;
+		if(((run >>> 8) & player) != 0) {
+			flipped |= run;
+		}
+		
+		run = (move << 7) & inner;
+		run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner; run |= (run << 7) & inner;
+		if(((run << 7) & player) != 0) {
+			flipped |= run;
+		}
+		run = (move >>> 7) & inner;
+		run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner; run |= (run >>> 7) & inner;
+		if(((run >>> 7) & player) != 0) {
+			flipped |= run;
+		}
+		
+		run = (move << 9) & inner;
+		run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner; run |= (run << 9) & inner;
+		if(((run << 9) & player) != 0) {
+			flipped |= run;
+		}
+		run = (move >>> 9) & inner;
+		run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner; run |= (run >>> 9) & inner;
+		if(((run >>> 9) & player) != 0) {
+			flipped |= run;
+		}
+		return flipped;
+	}
+	
+	/**
+	 * Returns true if the player may play on a square.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square index of the square being played
+	 * @return true if the move turns over at least one disc
+	 */
+	public static boolean isLegal(long player, long opponent, int square) {
+		return flips(player, opponent, square) != 0;
+	}
+
+	/**
+	 * Returns true if neither side has a legal move.
+	 * @param black black's discs
+	 * @param white white's discs
+	 * @return true if the game is finished
+	 */
+	public static boolean isGameOver(long black, long white) {
+		return legalMoves(black, white) == 0 && legalMoves(white, black) == 0;
+	}
+
+}
@@ -0,0 +1,24 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiBitboardRules.java
+ * 
+ * The shift-and-mask move generator of ReversiBitboard, which the search uses.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiBitboardRules implements ReversiRules {
+	
+	@Override
+	public long legalMoves(long player, long opponent) {
+		return ReversiBitboard.legalMoves(player, opponent);
+	}
+	
+	@Override
+	public long flips(long player, long opponent, int square) {
+		return ReversiBitboard.flips(player, opponent, square);
+	}
+	
+}
@@ -0,0 +1,251 @@
+package ReversiEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File: ReversiBookBuilder.java
+ *
+ * Grows an opening book from recorded games. Every move of the first plies of a game adds
+ * to the weight of that move in the canonical form of its position; moves by the side
+ * that went on to win count double. An existing book can be loaded first so that new
+ * games add to it.
+ *
+ * Games are read one per line as squares written column letter then row number, such as
+ * "f5d6c3d3c4". Passes are not written. Reading stops at the first illegal move of a line.
+ *
+ * Usage: java ReversiEngine.ReversiBookBuilder book.bin [-plies N] [-min W] games.txt...
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiBookBuilder {
+
+	public static final int DEFAULT_PLIES = 20;
+
+	private final Map<BookMove, Integer> weights = new HashMap<>();
+	private int plies = DEFAULT_PLIES;
+	private int games;
+
+	/**
+	 * A canonical position key and a move in canonical orientation.
+	 */
+	private static final class BookMove implements Comparable<BookMove> {
+		final long key;
+		final int move;
+
+		BookMove(long key, int move) {
+			this.key = key;
+			this.move = move;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof BookMove && ((BookMove) other).key == this.key && ((BookMove) other).move == this.move;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.key) * 31 + this.move;
+		}
+
+		@Override
+		public int compareTo(BookMove other) {
+			int compare = Long.compare(this.key, other.key);
+			return (compare != 0) ? compare : Integer.compare(this.move, other.move);
+		}
+	}
+
+	/**
+	 * Sets how many plies of each game go into the book.
+	 * @param plies moves from the start, counting both sides
+	 */
+	public void setPlies(int plies) {
+		this.plies = plies;
+	}
+
+	/**
+	 * Returns the number of games added so far.
+	 * @return game count
+	 */
+	public int getGames() {
+		return this.games;
+	}
+
+	/**
+	 * Returns the number of distinct book moves collected so far.
+	 * @return move count
+	 */
+	public int size() {
+		return this.weights.size();
+	}
+
+	/**
+	 * Adds the moves of an existing book file.
+	 * @param file the book file
+	 * @throws IOException if the file cannot be read or is not a book
+	 */
+	public void load(Path file) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		if(buffer.capacity() < ReversiOpeningBook.HEADER_BYTES || buffer.getInt(0) != ReversiOpeningBook.MAGIC
+				|| buffer.getInt(4) != ReversiOpeningBook.VERSION) {
+			throw new IOException("Not an opening book: " + file);
+		}
+		int count = buffer.getInt(8);
+		for(int record = 0; record < count; record++) {
+			int offset = ReversiOpeningBook.HEADER_BYTES + record * ReversiOpeningBook.RECORD_BYTES;
+			this.weights.merge(new BookMove(buffer.getLong(offset), buffer.get(offset + 12)), buffer.getInt(offset + 8), Integer::sum);
+		}
+	}
+
+	/**
+	 * Adds one recorded game.
+	 * @param game squares in column-letter row-number form, such as "f5d6c3"
+	 * @return the number of plies that were read before the game ended or a move was illegal
+	 */
+	public int addGame(String game) {
+		int[] squares = new int[ReversiBitboard.SQUARES];
+		int count = 0;
+		String text = game.trim().toLowerCase();
+		for(int i = 0; i + 1 < text.length() && count < squares.length; i += 2) {
+			int col = text.charAt(i) - 'a';
+			int row = text.charAt(i + 1) - '1';
+			if(col < 0 || col >= ReversiBitboard.SIZE || row < 0 || row >= ReversiBitboard.SIZE) {
+				break;
+			}
+			squares[count++] = ReversiBitboard.index(row, col);
+		}
+		return addGame(squares, count);
+	}
+
+	/**
+	 * Adds one recorded game.
+	 * @param squares the squares played in order, passes left out
+	 * @param count number of squares in the array
+	 * @return the number of plies that were read before the game ended or a move was illegal
+	 */
+	public int addGame(int[] squares, int count) {
+		long[] players = new long[count];
+		long[] opponents = new long[count];
+		char[] movers = new char[count];
+		ReversiPosition position = ReversiPosition.start();
+		int played = 0;
+		while(played < count) {
+			if(ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent()) == 0) {
+				if(ReversiBitboard.legalMoves(position.getOpponent(), position.getPlayer()) == 0) {
+					break;
+				}
+				position = position.play(ReversiSearchResult.PASS);
+			}
+			if(!ReversiBitboard.isLegal(position.getPlayer(), position.getOpponent(), squares[played])) {
+				break;
+			}
+			players[played] = position.getPlayer();
+			opponents[played] = position.getOpponent();
+			movers[played] = position.getToMove();
+			position = position.play(squares[played]);
+			played++;
+		}
+		if(played == 0) {
+			return 0;
+		}
+
+		// The winner is only known if the record reaches the end of the game.
+		char winner = 0;
+		if(ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+			int difference = Long.bitCount(position.getBlack()) - Long.bitCount(position.getWhite());
+			winner = (difference > 0) ? 'B' : (difference < 0) ? 'W' : 0;
+		}
+		for(int ply = 0; ply < Math.min(played, this.plies); ply++) {
+			int symmetry = ReversiSymmetry.canonical(players[ply], opponents[ply]);
+			long key = ReversiOpeningBook.key(players[ply], opponents[ply]);
+			int move = ReversiSymmetry.transformSquare(symmetry, squares[ply]);
+			this.weights.merge(new BookMove(key, move), (movers[ply] == winner) ? 2 : 1, Integer::sum);
+		}
+		this.games++;
+		return played;
+	}
+
+	/**
+	 * Adds every game of a text file, one per line.
+	 * @param file the game file
+	 * @throws IOException if the file cannot be read
+	 */
+	public void addGames(Path file) throws IOException {
+		try(BufferedReader reader = Files.newBufferedReader(file)) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(!line.isEmpty()) {
+					addGame(line);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the book file.
+	 * @param file the book file, replaced if it exists
+	 * @param minWeight moves with less weight are left out
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file, int minWeight) throws IOException {
+		List<BookMove> moves = new ArrayList<>();
+		for(Map.Entry<BookMove, Integer> entry : this.weights.entrySet()) {
+			if(entry.getValue() >= minWeight) {
+				moves.add(entry.getKey());
+			}
+		}
+		moves.sort(null);
+		try(OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(ReversiOpeningBook.MAGIC);
+			out.writeInt(ReversiOpeningBook.VERSION);
+			out.writeInt(moves.size());
+			out.writeInt(0);
+			for(BookMove move : moves) {
+				out.writeLong(move.key);
+				out.writeInt(this.weights.get(move));
+				out.writeByte(move.move);
+				out.writeByte(0);
+				out.writeShort(0);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("Usage: java ReversiEngine.ReversiBookBuilder book.bin [-plies N] [-min W] games.txt...");
+			System.exit(1);
+		}
+		Path book = Paths.get(args[0]);
+		ReversiBookBuilder builder = new ReversiBookBuilder();
+		int minWeight = 1;
+		if(Files.exists(book)) {
+			builder.load(book);
+		}
+		for(int i = 1; i < args.length; i++) {
+			if(args[i].equals("-plies")) {
+				builder.setPlies(Integer.parseInt(args[++i]));
+			} else if(args[i].equals("-min")) {
+				minWeight = Integer.parseInt(args[++i]);
+			} else {
+				builder.addGames(Paths.get(args[i]));
+			}
+		}
+		builder.write(book, minWeight);
+		System.out.println(builder.getGames() + " games, " + builder.size() + " book moves written to " + book);
+	}
+
+}
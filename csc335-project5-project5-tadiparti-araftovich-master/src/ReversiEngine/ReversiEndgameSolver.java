@@ -0,0 +1,591 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiEndgameSolver.java
+ *
+ * Plays perfectly once few enough squares are left, and hands earlier positions to another
+ * AI. The solver either finds the exact final disc difference or only whether the game is
+ * won, lost or drawn, which is faster. The last four empty squares are handled by
+ * dedicated routines that try the empty squares directly instead of generating moves.
+ * Above that, moves that leave the opponent the fewest replies are tried first, and close
+ * to the end moves in regions with an odd number of empties are tried first. Move lists
+ * live in arrays allocated once per solver, so nothing is allocated per node.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiEndgameSolver implements ReversiAI {
+
+	/**
+	 * Number of empty squares at which the solver takes over by default. Exact solves from
+	 * here take well under a second; from 20 empties they can take several.
+	 */
+	public static final int DEFAULT_EMPTIES = 18;
+
+	/** Above this many empties, moves are ordered by the opponent's mobility. */
+	private static final int FASTEST_FIRST_EMPTIES = 6;
+	/** At and above this many empties, results are kept in the transposition table. */
+	private static final int TABLE_EMPTIES = 8;
+	private static final int TABLE_MEGABYTES = 16;
+	private static final int POLL_MASK = 4095;
+
+	/** The four 4x4 corners of the board, used for parity ordering. */
+	private static final long[] QUADRANTS = {
+		0x000000000f0f0f0fL, 0x00000000f0f0f0f0L, 0x0f0f0f0f00000000L, 0xf0f0f0f000000000L
+	};
+
+	private static final long CORNERS = 0x8100000000000081L;
+
+	private final ReversiAI midgame;
+	private final ReversiTranspositionTable table;
+	private int empties;
+	private boolean exact;
+	private long timeMillis;
+
+	private final int[][] moveSquares = new int[ReversiBitboard.SQUARES + 1][ReversiBitboard.SQUARES];
+	private final int[][] moveKeys = new int[ReversiBitboard.SQUARES + 1][ReversiBitboard.SQUARES];
+	private final long[][] moveFlips = new long[ReversiBitboard.SQUARES + 1][ReversiBitboard.SQUARES];
+
+	private long nodes;
+	private long deadline;
+	private int rootMove;
+	private int rootScore;
+	private volatile boolean stopped;
+	private boolean aborted;
+
+	/**
+	 * Creates a solver for every position, with no AI before it.
+	 */
+	public ReversiEndgameSolver() {
+		this(null, ReversiBitboard.SQUARES);
+	}
+
+	/**
+	 * Creates a solver that takes over from another AI near the end of the game.
+	 * @param midgame plays positions with more than the given number of empties, may be null
+	 * @param empties number of empty squares at which the solver takes over
+	 */
+	public ReversiEndgameSolver(ReversiAI midgame, int empties) {
+		this.midgame = midgame;
+		this.table = new ReversiTranspositionTable(TABLE_MEGABYTES);
+		this.empties = empties;
+		this.exact = true;
+	}
+
+	/**
+	 * Sets the number of empty squares at which the solver takes over.
+	 * @param empties empty squares left on the board
+	 */
+	public void setEmpties(int empties) {
+		this.empties = empties;
+	}
+
+	/**
+	 * Returns the number of empty squares at which the solver takes over.
+	 * @return empty squares left on the board
+	 */
+	public int getEmpties() {
+		return this.empties;
+	}
+
+	/**
+	 * Gives the solver more time than the limits it is asked with allow. A solve is worth
+	 * waiting for where a midgame search is not, so the solver may take this long whenever
+	 * the limits have a time limit; searches with none are left unlimited.
+	 * @param timeMillis the solver's time in milliseconds, 0 to keep to the limits
+	 */
+	public void setTimeMillis(long timeMillis) {
+		this.timeMillis = timeMillis;
+	}
+
+	/**
+	 * Chooses between exact scores and the faster win/loss/draw mode.
+	 * @param exact true for the exact final disc difference, false for only its sign
+	 */
+	public void setExact(boolean exact) {
+		this.exact = exact;
+	}
+
+	/**
+	 * Returns true if the solver finds exact scores.
+	 * @return false in win/loss/draw mode
+	 */
+	public boolean isExact() {
+		return this.exact;
+	}
+
+	/**
+	 * Returns the AI used before the solver takes over.
+	 * @return the midgame AI, or null
+	 */
+	public ReversiAI getMidgame() {
+		return this.midgame;
+	}
+
+	/**
+	 * Returns the solver's own transposition table.
+	 * @return the table
+	 */
+	public ReversiTranspositionTable getTranspositionTable() {
+		return this.table;
+	}
+
+	/**
+	 * Solves the position if it has few enough empty squares, otherwise asks the midgame AI.
+	 * A solved result has the final disc difference as its score (or -1, 0, 1 in win/loss/draw
+	 * mode) and the number of empties as its depth. Only the time limit of the limits is used
+	 * by the solver. If it runs out once the win/loss/draw pass is done, the best move proven
+	 * so far is returned with depth 0; if it runs out before, nothing is proven and the
+	 * midgame AI chooses the move instead.
+	 */
+	@Override
+	public ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		int empty = position.getEmpties();
+		if(empty > this.empties && this.midgame != null) {
+			return this.midgame.findBestMove(position, limits);
+		}
+		this.nodes = 0;
+		this.aborted = false;
+		long millis = (limits.getTimeMillis() > 0) ? Math.max(limits.getTimeMillis(), this.timeMillis) : 0;
+		this.deadline = (millis > 0) ? System.nanoTime() + millis * 1000000L : Long.MAX_VALUE;
+		this.table.newSearch();
+
+		long player = position.getPlayer();
+		long opponent = position.getOpponent();
+		if(ReversiBitboard.legalMoves(player, opponent) == 0) {
+			return new ReversiSearchResult(ReversiSearchResult.PASS, 0, 0, 0);
+		}
+
+		int count = orderMoves(player, opponent, empty);
+		this.rootMove = this.moveSquares[empty][0];
+		this.rootScore = -ReversiSearch.INFINITY;
+		// Win/loss/draw first: it is cheap, fills the table, and narrows the exact window.
+		int score = solveRoot(player, opponent, empty, count, -1, 1);
+		if(this.aborted && this.midgame != null) {
+			// The first root move of an unfinished pass is only the one ordered first.
+			return this.midgame.findBestMove(position, limits);
+		}
+		if(this.exact && score != 0 && !this.aborted) {
+			for(int i = 1; i < count; i++) {
+				if(this.moveSquares[empty][i] == this.rootMove) {
+					swap(empty, 0, i);
+				}
+			}
+			if(score > 0) {
+				score = solveRoot(player, opponent, empty, count, 0, ReversiBitboard.SQUARES + 1);
+			} else {
+				score = solveRoot(player, opponent, empty, count, -ReversiBitboard.SQUARES - 1, 0);
+			}
+		} else {
+			score = Integer.signum(score);
+		}
+		if(this.aborted) {
+			return new ReversiSearchResult(this.rootMove, this.rootScore, 0, this.nodes);
+		}
+		return new ReversiSearchResult(this.rootMove, score, empty, this.nodes);
+	}
+
+	/**
+	 * Searches every root move inside a window, keeping the best one in rootMove.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param empty number of empty squares
+	 * @param count number of moves in the root move list
+	 * @param alpha lower end of the window
+	 * @param beta upper end of the window
+	 * @return the best score found
+	 */
+	private int solveRoot(long player, long opponent, int empty, int count, int alpha, int beta) {
+		int best = -ReversiSearch.INFINITY;
+		int bestMove = this.moveSquares[empty][0];
+		for(int i = 0; i < count && alpha < beta; i++) {
+			int square = this.moveSquares[empty][i];
+			long flips = this.moveFlips[empty][i];
+			int score = pvs(opponent ^ flips, player | flips | (1L << square), alpha, beta, empty - 1, i == 0);
+			if(this.aborted) {
+				break;
+			}
+			if(score > best) {
+				best = score;
+				bestMove = square;
+				alpha = Math.max(alpha, score);
+			}
+		}
+		if(best > -ReversiSearch.INFINITY) {
+			this.rootMove = bestMove;
+			this.rootScore = best;
+		}
+		return best;
+	}
+
+	@Override
+	public void stop() {
+		this.stopped = true;
+		if(this.midgame != null) {
+			this.midgame.stop();
+		}
+	}
+
+	@Override
+	public void resetStop() {
+		this.stopped = false;
+		if(this.midgame != null) {
+			this.midgame.resetStop();
+		}
+	}
+
+	@Override
+	public void newGame() {
+		this.table.clear();
+		if(this.midgame != null) {
+			this.midgame.newGame();
+		}
+	}
+
+	/**
+	 * Alpha-beta search to the end of the game.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param alpha score the side to move is already guaranteed
+	 * @param beta score the opponent is already guaranteed
+	 * @param empty number of empty squares
+	 * @param passed true if the other side just passed
+	 * @return the final disc difference for the side to move, as far as the window allows
+	 */
+	private int solve(long player, long opponent, int alpha, int beta, int empty, boolean passed) {
+		if(empty <= 4) {
+			long free = ~(player | opponent);
+			switch(empty) {
+			case 0:
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			case 1:
+				return solve1(player, opponent, Long.numberOfTrailingZeros(free));
+			case 2:
+				return solve2(player, opponent, alpha, beta, Long.numberOfTrailingZeros(free), 63 - Long.numberOfLeadingZeros(free), false);
+			case 3:
+				int s1 = Long.numberOfTrailingZeros(free);
+				free &= free - 1;
+				int s2 = Long.numberOfTrailingZeros(free);
+				return solve3(player, opponent, alpha, beta, s1, s2, 63 - Long.numberOfLeadingZeros(free), false);
+			default:
+				return solve4(player, opponent, alpha, beta, free);
+			}
+		}
+
+		if((++this.nodes & POLL_MASK) == 0 && (this.stopped || System.nanoTime() >= this.deadline)) {
+			this.aborted = true;
+		}
+		if(this.aborted) {
+			return 0;
+		}
+
+		long moves = ReversiBitboard.legalMoves(player, opponent);
+		if(moves == 0) {
+			if(passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve(opponent, player, -beta, -alpha, empty, true);
+		}
+
+		long hash = 0;
+		int hashMove = ReversiSearchResult.PASS;
+		if(empty >= TABLE_EMPTIES) {
+			hash = ReversiZobrist.mix(player, opponent);
+			long entry = this.table.probe(hash);
+			if(entry != 0) {
+				int score = ReversiTranspositionTable.score(entry);
+				int bound = ReversiTranspositionTable.bound(entry);
+				if(bound == ReversiTranspositionTable.EXACT
+						|| (bound == ReversiTranspositionTable.LOWER && score >= beta)
+						|| (bound == ReversiTranspositionTable.UPPER && score <= alpha)) {
+					return score;
+				}
+				hashMove = ReversiTranspositionTable.move(entry);
+			}
+		}
+
+		int originalAlpha = alpha;
+		int best = -ReversiSearch.INFINITY;
+		int bestMove = ReversiSearchResult.PASS;
+		if(empty > FASTEST_FIRST_EMPTIES) {
+			int count = orderMoves(player, opponent, empty);
+			int[] squares = this.moveSquares[empty];
+			long[] flipped = this.moveFlips[empty];
+			if(hashMove != ReversiSearchResult.PASS) {
+				for(int i = 1; i < count; i++) {
+					if(squares[i] == hashMove) {
+						swap(empty, 0, i);
+						break;
+					}
+				}
+			}
+			for(int i = 0; i < count; i++) {
+				int square = squares[i];
+				long flips = flipped[i];
+				int score = pvs(opponent ^ flips, player | flips | (1L << square), alpha, beta, empty - 1, i == 0);
+				if(score > best) {
+					best = score;
+					bestMove = square;
+					if(score > alpha) {
+						alpha = score;
+						if(alpha >= beta) {
+							break;
+						}
+					}
+				}
+			}
+		} else {
+			// Parity: squares in a quadrant with an odd number of empties first.
+			long odd = oddQuadrants(~(player | opponent));
+			search:
+			for(int pass = 0; pass < 2; pass++) {
+				long ordered = moves & ((pass == 0) ? odd : ~odd);
+				while(ordered != 0) {
+					int square = Long.numberOfTrailingZeros(ordered);
+					ordered &= ordered - 1;
+					long flips = ReversiBitboard.flips(player, opponent, square);
+					int score = pvs(opponent ^ flips, player | flips | (1L << square), alpha, beta, empty - 1, best == -ReversiSearch.INFINITY);
+					if(score > best) {
+						best = score;
+						bestMove = square;
+						if(score > alpha) {
+							alpha = score;
+							if(alpha >= beta) {
+								break search;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		if(this.aborted) {
+			return 0;
+		}
+		if(empty >= TABLE_EMPTIES) {
+			int bound = (best <= originalAlpha) ? ReversiTranspositionTable.UPPER
+					: (best >= beta) ? ReversiTranspositionTable.LOWER : ReversiTranspositionTable.EXACT;
+			this.table.store(hash, best, empty, bound, bestMove);
+		}
+		return best;
+	}
+
+	/**
+	 * Scores a move from the mover's side. Every move but the first is only tested against
+	 * alpha with a null window, and searched again with the full window if it beats alpha.
+	 * @param player discs of the side to move after the move
+	 * @param opponent discs of the side that made the move
+	 * @param alpha score the mover is already guaranteed
+	 * @param beta score the other side is already guaranteed
+	 * @param empty number of empty squares after the move
+	 * @param first true for the first move tried in its position
+	 * @return the score of the move for the side that made it
+	 */
+	private int pvs(long player, long opponent, int alpha, int beta, int empty, boolean first) {
+		if(first || beta - alpha <= 1) {
+			return -solve(player, opponent, -beta, -alpha, empty, false);
+		}
+		int score = -solve(player, opponent, -alpha - 1, -alpha, empty, false);
+		if(score > alpha && score < beta) {
+			score = -solve(player, opponent, -beta, -score, empty, false);
+		}
+		return score;
+	}
+	
+	/**
+	 * Solves a position with four empty squares, playing squares alone in their quadrant first.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param alpha score the side to move is already guaranteed
+	 * @param beta score the opponent is already guaranteed
+	 * @param free mask of the four empty squares
+	 * @return the final disc difference for the side to move
+	 */
+	private int solve4(long player, long opponent, int alpha, int beta, long free) {
+		long first = free & oddQuadrants(free);
+		long later = free & ~first;
+		int s1 = Long.numberOfTrailingZeros((first != 0) ? first : later);
+		first &= ~(1L << s1);
+		later &= ~(1L << s1);
+		int s2 = Long.numberOfTrailingZeros((first != 0) ? first : later);
+		first &= ~(1L << s2);
+		later &= ~(1L << s2);
+		int s3 = Long.numberOfTrailingZeros((first != 0) ? first : later);
+		first &= ~(1L << s3);
+		later &= ~(1L << s3);
+		int s4 = Long.numberOfTrailingZeros((first != 0) ? first : later);
+		return solve4(player, opponent, alpha, beta, s1, s2, s3, s4, false);
+	}
+
+	private int solve4(long player, long opponent, int alpha, int beta, int s1, int s2, int s3, int s4, boolean passed) {
+		this.nodes++;
+		int best = -ReversiSearch.INFINITY;
+		long flips;
+		if((flips = ReversiBitboard.flips(player, opponent, s1)) != 0) {
+			best = -solve3(opponent ^ flips, player | flips | (1L << s1), -beta, -alpha, s2, s3, s4, false);
+			if(best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s2)) != 0) {
+			best = Math.max(best, -solve3(opponent ^ flips, player | flips | (1L << s2), -beta, -alpha, s1, s3, s4, false));
+			if(best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s3)) != 0) {
+			best = Math.max(best, -solve3(opponent ^ flips, player | flips | (1L << s3), -beta, -alpha, s1, s2, s4, false));
+			if(best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s4)) != 0) {
+			best = Math.max(best, -solve3(opponent ^ flips, player | flips | (1L << s4), -beta, -alpha, s1, s2, s3, false));
+		}
+		if(best == -ReversiSearch.INFINITY) {
+			if(passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve4(opponent, player, -beta, -alpha, s1, s2, s3, s4, true);
+		}
+		return best;
+	}
+
+	private int solve3(long player, long opponent, int alpha, int beta, int s1, int s2, int s3, boolean passed) {
+		this.nodes++;
+		int best = -ReversiSearch.INFINITY;
+		long flips;
+		if((flips = ReversiBitboard.flips(player, opponent, s1)) != 0) {
+			best = -solve2(opponent ^ flips, player | flips | (1L << s1), -beta, -alpha, s2, s3, false);
+			if(best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s2)) != 0) {
+			best = Math.max(best, -solve2(opponent ^ flips, player | flips | (1L << s2), -beta, -alpha, s1, s3, false));
+			if(best >= beta) {
+				return best;
+			}
+			alpha = Math.max(alpha, best);
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s3)) != 0) {
+			best = Math.max(best, -solve2(opponent ^ flips, player | flips | (1L << s3), -beta, -alpha, s1, s2, false));
+		}
+		if(best == -ReversiSearch.INFINITY) {
+			if(passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve3(opponent, player, -beta, -alpha, s1, s2, s3, true);
+		}
+		return best;
+	}
+
+	private int solve2(long player, long opponent, int alpha, int beta, int s1, int s2, boolean passed) {
+		this.nodes++;
+		int best = -ReversiSearch.INFINITY;
+		long flips;
+		if((flips = ReversiBitboard.flips(player, opponent, s1)) != 0) {
+			best = -solve1(opponent ^ flips, player | flips | (1L << s1), s2);
+			if(best >= beta) {
+				return best;
+			}
+		}
+		if((flips = ReversiBitboard.flips(player, opponent, s2)) != 0) {
+			best = Math.max(best, -solve1(opponent ^ flips, player | flips | (1L << s2), s1));
+		}
+		if(best == -ReversiSearch.INFINITY) {
+			if(passed) {
+				return Long.bitCount(player) - Long.bitCount(opponent);
+			}
+			return -solve2(opponent, player, -beta, -alpha, s1, s2, true);
+		}
+		return best;
+	}
+
+	/**
+	 * Scores the last empty square without making the move: each flipped disc swings the
+	 * difference by two, and the placed disc by one.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square the only empty square
+	 * @return the final disc difference for the side to move
+	 */
+	private int solve1(long player, long opponent, int square) {
+		this.nodes++;
+		int score = 2 * Long.bitCount(player) - (ReversiBitboard.SQUARES - 1);
+		int flipped = Long.bitCount(ReversiBitboard.flips(player, opponent, square));
+		if(flipped != 0) {
+			return score + 2 * flipped + 1;
+		}
+		flipped = Long.bitCount(ReversiBitboard.flips(opponent, player, square));
+		if(flipped != 0) {
+			return score - 2 * flipped - 1;
+		}
+		return score;
+	}
+
+	/**
+	 * Fills the move list for this number of empties, sorted so that the moves leaving the
+	 * opponent the fewest replies come first.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param empty number of empty squares, which selects the move list
+	 * @return number of moves in the list
+	 */
+	private int orderMoves(long player, long opponent, int empty) {
+		int[] squares = this.moveSquares[empty];
+		int[] keys = this.moveKeys[empty];
+		long[] flipped = this.moveFlips[empty];
+		long moves = ReversiBitboard.legalMoves(player, opponent);
+		int count = 0;
+		while(moves != 0) {
+			int square = Long.numberOfTrailingZeros(moves);
+			moves &= moves - 1;
+			long flips = ReversiBitboard.flips(player, opponent, square);
+			long replies = ReversiBitboard.legalMoves(opponent ^ flips, player | flips | (1L << square));
+			// Replies on a corner count double, and taking a corner ourselves goes first.
+			int key = Long.bitCount(replies) + Long.bitCount(replies & CORNERS) - (((CORNERS >>> square) & 1) != 0 ? 2 : 0);
+			int i = count++;
+			while(i > 0 && keys[i - 1] > key) {
+				squares[i] = squares[i - 1];
+				keys[i] = keys[i - 1];
+				flipped[i] = flipped[i - 1];
+				i--;
+			}
+			squares[i] = square;
+			keys[i] = key;
+			flipped[i] = flips;
+		}
+		return count;
+	}
+
+	private void swap(int empty, int i, int j) {
+		int square = this.moveSquares[empty][i];
+		this.moveSquares[empty][i] = this.moveSquares[empty][j];
+		this.moveSquares[empty][j] = square;
+		long flips = this.moveFlips[empty][i];
+		this.moveFlips[empty][i] = this.moveFlips[empty][j];
+		this.moveFlips[empty][j] = flips;
+	}
+
+	/**
+	 * Returns the union of the quadrants holding an odd number of empty squares.
+	 * @param free mask of the empty squares
+	 * @return mask of the odd quadrants
+	 */
+	private static long oddQuadrants(long free) {
+		long odd = 0;
+		for(long quadrant : QUADRANTS) {
+			if((Long.bitCount(free & quadrant) & 1) != 0) {
+				odd |= quadrant;
+			}
+		}
+		return odd;
+	}
+
+}
@@ -0,0 +1,194 @@
+package ReversiEngine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * File: ReversiEngineConfig.java
+ * 
+ * A named AI setup: how to build the AI and the limits it searches under. Search objects
+ * are not thread-safe, so every thread that plays builds its own AI from the config.
+ * 
+ * A config can be read from a comma-separated spec such as "depth=6,endgame=14,table=16".
+ * Keys: depth, ms and nodes set the limits; table sets the transposition table size in
+ * megabytes, 0 for none; endgame sets the empties at which the exact solver takes over,
+ * 0 for never; book names an opening book file; eval picks the evaluation, weighted or
+ * pattern; weights names a pattern weight file and implies eval=pattern; name sets the name
+ * shown in reports.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiEngineConfig {
+	
+	private final String name;
+	private final Function<Random, ReversiAI> factory;
+	private final ReversiSearchLimits limits;
+	
+	/**
+	 * Creates a config.
+	 * @param name name shown in reports
+	 * @param factory builds a new AI each time it is called
+	 * @param limits the limits every move is searched under
+	 */
+	public ReversiEngineConfig(String name, Supplier<ReversiAI> factory, ReversiSearchLimits limits) {
+		this(name, random -> factory.get(), limits);
+	}
+	
+	/**
+	 * Creates a config whose AIs make random choices, such as between book moves.
+	 * @param name name shown in reports
+	 * @param factory builds a new AI each time it is called, drawing its random choices from
+	 * the generator it is given
+	 * @param limits the limits every move is searched under
+	 */
+	public ReversiEngineConfig(String name, Function<Random, ReversiAI> factory, ReversiSearchLimits limits) {
+		this.name = name;
+		this.factory = factory;
+		this.limits = limits;
+	}
+	
+	/**
+	 * Reads a config from a spec.
+	 * @param spec comma-separated key=value pairs
+	 * @return the config
+	 * @throws IllegalArgumentException if a key is unknown or a value is not a number
+	 */
+	public static ReversiEngineConfig parse(String spec) {
+		String name = spec;
+		int depth = 4;
+		long millis = 0;
+		long nodes = 0;
+		int megabytes = 4;
+		int empties = 0;
+		String book = null;
+		String eval = "weighted";
+		String weights = null;
+		for(String pair : spec.split(",")) {
+			String[] keyValue = pair.split("=", 2);
+			if(keyValue.length != 2) {
+				throw new IllegalArgumentException("Expected key=value in engine spec: " + pair);
+			}
+			String value = keyValue[1].trim();
+			switch(keyValue[0].trim()) {
+			case "name":
+				name = value;
+				break;
+			case "depth":
+				depth = Integer.parseInt(value);
+				break;
+			case "ms":
+				millis = Long.parseLong(value);
+				break;
+			case "nodes":
+				nodes = Long.parseLong(value);
+				break;
+			case "table":
+				megabytes = Integer.parseInt(value);
+				break;
+			case "endgame":
+				empties = Integer.parseInt(value);
+				break;
+			case "book":
+				book = value;
+				break;
+			case "eval":
+				eval = value;
+				break;
+			case "weights":
+				weights = value;
+				eval = "pattern";
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown key in engine spec: " + keyValue[0]);
+			}
+		}
+		
+		ReversiSearchLimits limits = new ReversiSearchLimits((millis > 0 || nodes > 0) ? ReversiSearchLimits.MAX_DEPTH : depth);
+		limits.setTimeMillis(millis);
+		limits.setNodes(nodes);
+		int tableMegabytes = megabytes;
+		int endgameEmpties = empties;
+		String bookFile = book;
+		// Evaluators are shared by every AI the config builds, so the weights are read once.
+		ReversiEvaluator evaluator;
+		if(eval.equals("weighted")) {
+			evaluator = new ReversiWeightedEvaluator();
+		} else if(eval.equals("pattern") && weights == null) {
+			evaluator = new ReversiPatternEvaluator();
+		} else if(eval.equals("pattern")) {
+			try {
+				evaluator = ReversiPatternEvaluator.load(Paths.get(weights));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			throw new IllegalArgumentException("Unknown evaluation in engine spec: " + eval);
+		}
+		return new ReversiEngineConfig(name, (Random random) -> {
+			ReversiSearch search = new ReversiSearch(evaluator);
+			if(tableMegabytes > 0) {
+				search.setTranspositionTable(new ReversiTranspositionTable(tableMegabytes));
+			}
+			ReversiAI ai = search;
+			if(endgameEmpties > 0) {
+				ai = new ReversiEndgameSolver(ai, endgameEmpties);
+			}
+			if(bookFile != null) {
+				try {
+					ReversiOpeningBook opening = new ReversiOpeningBook(Paths.get(bookFile), ai);
+					opening.setRandom(random);
+					ai = opening;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			return ai;
+		}, limits);
+	}
+	
+	/**
+	 * Returns the name shown in reports.
+	 * @return the config name
+	 */
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	 * Builds a new AI for one thread to play with, whose random choices are not repeatable.
+	 * @return a new AI
+	 */
+	public ReversiAI newAI() {
+		return newAI(new Random());
+	}
+	
+	/**
+	 * Builds a new AI for one thread to play with.
+	 * @param random the generator its random choices are drawn from; the AI keeps it, so
+	 * reseeding it makes the next game's choices repeatable
+	 * @return a new AI
+	 */
+	public ReversiAI newAI(Random random) {
+		return this.factory.apply(random);
+	}
+	
+	/**
+	 * Returns the limits every move is searched under.
+	 * @return the search limits
+	 */
+	public ReversiSearchLimits getLimits() {
+		return this.limits;
+	}
+	
+	@Override
+	public String toString() {
+		return this.name;
+	}
+	
+}
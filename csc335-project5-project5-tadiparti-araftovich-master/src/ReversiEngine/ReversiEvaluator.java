@@ -0,0 +1,23 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiEvaluator.java
+ * 
+ * Scores a position from the point of view of the side to move. Implementations are
+ * called at every leaf of the search, so they should not allocate.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public interface ReversiEvaluator {
+	
+	/**
+	 * Scores a position that is not finished.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return a score, positive when the side to move stands better
+	 */
+	int evaluate(long player, long opponent);
+	
+}
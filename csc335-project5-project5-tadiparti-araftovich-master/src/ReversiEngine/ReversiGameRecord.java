@@ -0,0 +1,124 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiGameRecord.java
+ * 
+ * The record of one finished game between two engines: who played which color, the moves,
+ * and the final disc counts. An engine that plays an illegal move forfeits the game.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiGameRecord {
+	
+	private final int game;
+	private final String black;
+	private final String white;
+	private final int[] moves;
+	private final int blackDiscs;
+	private final int whiteDiscs;
+	private final char forfeit;
+	
+	/**
+	 * Creates a game record.
+	 * @param game index of the game in its match
+	 * @param black name of the engine that played black
+	 * @param white name of the engine that played white
+	 * @param moves the squares played in order, passes left out
+	 * @param blackDiscs black's discs at the end
+	 * @param whiteDiscs white's discs at the end
+	 * @param forfeit the color that forfeited by playing an illegal move, or 0
+	 */
+	public ReversiGameRecord(int game, String black, String white, int[] moves, int blackDiscs, int whiteDiscs, char forfeit) {
+		this.game = game;
+		this.black = black;
+		this.white = white;
+		this.moves = moves;
+		this.blackDiscs = blackDiscs;
+		this.whiteDiscs = whiteDiscs;
+		this.forfeit = forfeit;
+	}
+	
+	/**
+	 * Returns the index of the game in its match.
+	 * @return the game index
+	 */
+	public int getGame() {
+		return this.game;
+	}
+	
+	/**
+	 * Returns the name of the engine that played black.
+	 * @return engine name
+	 */
+	public String getBlack() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the name of the engine that played white.
+	 * @return engine name
+	 */
+	public String getWhite() {
+		return this.white;
+	}
+	
+	/**
+	 * Returns the squares played in order, passes left out.
+	 * @return the moves of the game
+	 */
+	public int[] getMoves() {
+		return this.moves.clone();
+	}
+	
+	/**
+	 * Returns black's discs at the end of the game.
+	 * @return disc count
+	 */
+	public int getBlackDiscs() {
+		return this.blackDiscs;
+	}
+	
+	/**
+	 * Returns white's discs at the end of the game.
+	 * @return disc count
+	 */
+	public int getWhiteDiscs() {
+		return this.whiteDiscs;
+	}
+	
+	/**
+	 * Returns the color that won.
+	 * @return 'B' or 'W', or 0 for a draw
+	 */
+	public char getWinner() {
+		if(this.forfeit != 0) {
+			return (this.forfeit == 'B') ? 'W' : 'B';
+		}
+		return (this.blackDiscs > this.whiteDiscs) ? 'B' : (this.whiteDiscs > this.blackDiscs) ? 'W' : 0;
+	}
+	
+	/**
+	 * Returns the moves as recorded games are written, such as "f5d6c3".
+	 * @return the move list
+	 */
+	public String getMoveText() {
+		StringBuilder text = new StringBuilder(this.moves.length * 2);
+		for(int move : this.moves) {
+			text.append(ReversiBitboard.squareName(move));
+		}
+		return text.toString();
+	}
+	
+	/**
+	 * Returns the record as one tab-separated line: game, black, white, black discs, white
+	 * discs, forfeiting color or "-", and the moves.
+	 */
+	@Override
+	public String toString() {
+		return this.game + "\t" + this.black + "\t" + this.white + "\t" + this.blackDiscs + "\t" + this.whiteDiscs 
+				+ "\t" + ((this.forfeit != 0) ? String.valueOf(this.forfeit) : "-") + "\t" + getMoveText();
+	}
+	
+}
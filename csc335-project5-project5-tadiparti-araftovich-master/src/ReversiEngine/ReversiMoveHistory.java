@@ -0,0 +1,195 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiMoveHistory.java
+ *
+ * The moves that led to a mutable position, kept in preallocated arrays so that playing and
+ * taking back moves does not allocate. Subclasses hold the discs and the flipped discs of
+ * every move in whatever form suits their board size; this class keeps the line of moves
+ * and whose turn it is.
+ *
+ * Moves that were taken back stay in the line until a different move replaces them, so
+ * redo() can play them again. Playing the move that redo() would play keeps the rest of
+ * that line.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public abstract class ReversiMoveHistory {
+
+	private final int[] squares;
+	private final char[] movers;
+	private char toMove;
+	private int ply;
+	private int length;
+
+	/**
+	 * Creates an empty line with black to move.
+	 * @param capacity the most plies, passes included, the line can hold
+	 */
+	protected ReversiMoveHistory(int capacity) {
+		this.squares = new int[capacity];
+		this.movers = new char[capacity];
+		this.toMove = 'B';
+	}
+
+	/**
+	 * Saves the flipped discs of the move being played, which the subclass has just worked
+	 * out, as the flips of a ply.
+	 * @param ply the ply the move is played at
+	 */
+	protected abstract void storeFlips(int ply);
+
+	/**
+	 * Toggles a move's square and the flipped discs stored for its ply, which plays the move
+	 * or takes it back. Never called for a pass.
+	 * @param square the square of the move
+	 * @param ply the ply of the move
+	 * @param mover the color that played it
+	 */
+	protected abstract void apply(int square, int ply, char mover);
+
+	/**
+	 * Clears every move. Subclasses call this when they set a new position.
+	 * @param toMove the color whose turn it is, 'B' or 'W'
+	 */
+	protected void clearMoves(char toMove) {
+		this.toMove = toMove;
+		this.ply = 0;
+		this.length = 0;
+	}
+
+	/**
+	 * Adds a legal move to the line and plays it. Moves after it that redo() could play
+	 * are dropped unless it is the move redo() would play.
+	 * @param square the square, or ReversiSearchResult.PASS
+	 * @param mover the color playing it, 'B' or 'W'
+	 * @throws IllegalStateException if the line is full
+	 */
+	protected void push(int square, char mover) {
+		if(this.ply == this.squares.length) {
+			throw new IllegalStateException("More than " + this.squares.length + " plies");
+		}
+		// Replaying the next move of the line keeps the moves after it for redo.
+		if(this.ply >= this.length || this.squares[this.ply] != square || this.movers[this.ply] != mover) {
+			this.length = this.ply + 1;
+		}
+		this.squares[this.ply] = square;
+		this.movers[this.ply] = mover;
+		storeFlips(this.ply);
+		if(square != ReversiSearchResult.PASS) {
+			apply(square, this.ply, mover);
+		}
+		this.ply++;
+		this.toMove = opponent(mover);
+	}
+
+	/**
+	 * Takes back the last move.
+	 * @return the square of the move taken back, or ReversiSearchResult.PASS
+	 * @throws IllegalStateException if no move has been made
+	 */
+	public int unmake() {
+		if(this.ply == 0) {
+			throw new IllegalStateException("No move to take back");
+		}
+		this.ply--;
+		int square = this.squares[this.ply];
+		char mover = this.movers[this.ply];
+		// Toggling the same bits again undoes the move.
+		if(square != ReversiSearchResult.PASS) {
+			apply(square, this.ply, mover);
+		}
+		this.toMove = mover;
+		return square;
+	}
+
+	/**
+	 * Plays again the move that was last taken back.
+	 * @return the square of the move, or ReversiSearchResult.PASS
+	 * @throws IllegalStateException if there is no move to play again
+	 */
+	public int redo() {
+		if(this.ply == this.length) {
+			throw new IllegalStateException("No move to play again");
+		}
+		int square = this.squares[this.ply];
+		char mover = this.movers[this.ply];
+		if(square != ReversiSearchResult.PASS) {
+			apply(square, this.ply, mover);
+		}
+		this.ply++;
+		this.toMove = opponent(mover);
+		return square;
+	}
+
+	/**
+	 * Returns true if a move can be taken back.
+	 * @return true after at least one move
+	 */
+	public boolean canUndo() {
+		return this.ply > 0;
+	}
+
+	/**
+	 * Returns true if a move that was taken back can be played again.
+	 * @return true if redo() has a move
+	 */
+	public boolean canRedo() {
+		return this.ply < this.length;
+	}
+
+	/**
+	 * Returns the number of moves made since the last reset, not counting ones taken back.
+	 * @return the current ply
+	 */
+	public int getPly() {
+		return this.ply;
+	}
+
+	/**
+	 * Returns the number of moves in the line, counting ones taken back that redo() can
+	 * play again.
+	 * @return the length of the line
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Returns a move of the line.
+	 * @param ply the ply of the move, from 0 to getLength() - 1
+	 * @return its square, or ReversiSearchResult.PASS
+	 */
+	public int getSquare(int ply) {
+		return this.squares[ply];
+	}
+
+	/**
+	 * Returns the color that played a move of the line.
+	 * @param ply the ply of the move, from 0 to getLength() - 1
+	 * @return 'B' or 'W'
+	 */
+	public char getMover(int ply) {
+		return this.movers[ply];
+	}
+
+	/**
+	 * Returns the color whose turn it is.
+	 * @return 'B' or 'W'
+	 */
+	public char getToMove() {
+		return this.toMove;
+	}
+
+	/**
+	 * Returns the other color.
+	 * @param color 'B' or 'W'
+	 * @return 'W' or 'B'
+	 */
+	protected static char opponent(char color) {
+		return (color == 'B') ? 'W' : 'B';
+	}
+
+}
@@ -0,0 +1,156 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiMoveStack.java
+ * 
+ * A mutable 8x8 position with the moves that led to it. make() plays a move in place and
+ * pushes its square and flipped discs onto preallocated arrays; unmake() pops them and puts
+ * the discs back. Neither allocates, so a search or an analysis can make and take back
+ * millions of moves for the cost of a few array writes. The line of moves, with redo() of
+ * moves taken back, is kept by ReversiMoveHistory.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiMoveStack extends ReversiMoveHistory {
+	
+	/** Enough for any game: every pass is followed by a move, and there are 60 moves. */
+	public static final int DEFAULT_CAPACITY = 2 * (ReversiBitboard.SQUARES - 4);
+	
+	private final long[] flips;
+	private long black;
+	private long white;
+	/** Flipped discs of the move being pushed, until storeFlips() saves them. */
+	private long pending;
+	
+	/**
+	 * Creates a stack at the starting position.
+	 * @param capacity the most plies, passes included, the stack can hold
+	 */
+	public ReversiMoveStack(int capacity) {
+		super(capacity);
+		this.flips = new long[capacity];
+		reset(ReversiBitboard.startBlack(), ReversiBitboard.startWhite(), 'B');
+	}
+	
+	/**
+	 * Creates a stack at the starting position that can hold any game.
+	 */
+	public ReversiMoveStack() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Clears every move and sets the position.
+	 * @param black mask of the black discs
+	 * @param white mask of the white discs
+	 * @param toMove the color whose turn it is, 'B' or 'W'
+	 */
+	public void reset(long black, long white, char toMove) {
+		this.black = black;
+		this.white = white;
+		clearMoves(toMove);
+	}
+	
+	/**
+	 * Plays a move for the side to move.
+	 * @param square the square, or ReversiSearchResult.PASS
+	 * @return mask of the flipped discs; 0 for a pass, or for an illegal move, which is not
+	 * played
+	 */
+	public long make(int square) {
+		return make(square, getToMove());
+	}
+	
+	/**
+	 * Plays a move for a given color, whether or not it is that color's turn. The other
+	 * color is to move afterwards.
+	 * @param square the square, or ReversiSearchResult.PASS
+	 * @param mover the color playing it, 'B' or 'W'
+	 * @return mask of the flipped discs; 0 for a pass, or for an illegal move, which is not
+	 * played
+	 * @throws IllegalStateException if the stack is full
+	 */
+	public long make(int square, char mover) {
+		long flipped = 0;
+		if(square != ReversiSearchResult.PASS) {
+			flipped = (mover == 'B') ? ReversiBitboard.flips(this.black, this.white, square) 
+					: ReversiBitboard.flips(this.white, this.black, square);
+			if(flipped == 0) {
+				return 0;
+			}
+		}
+		this.pending = flipped;
+		push(square, mover);
+		return flipped;
+	}
+	
+	/**
+	 * Returns the discs a move of the line flipped.
+	 * @param ply the ply of the move, from 0 to getLength() - 1
+	 * @return mask of the flipped discs
+	 */
+	public long getFlips(int ply) {
+		return this.flips[ply];
+	}
+	
+	/**
+	 * Returns the black discs.
+	 * @return mask of the black discs
+	 */
+	public long getBlack() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the white discs.
+	 * @return mask of the white discs
+	 */
+	public long getWhite() {
+		return this.white;
+	}
+	
+	/**
+	 * Returns the discs of the side to move.
+	 * @return mask of the player's discs
+	 */
+	public long getPlayer() {
+		return (getToMove() == 'B') ? this.black : this.white;
+	}
+	
+	/**
+	 * Returns the discs of the side not to move.
+	 * @return mask of the opponent's discs
+	 */
+	public long getOpponent() {
+		return (getToMove() == 'B') ? this.white : this.black;
+	}
+	
+	/**
+	 * Returns an immutable copy of the current position.
+	 * @return the position
+	 */
+	public ReversiPosition toPosition() {
+		return new ReversiPosition(this.black, this.white, getToMove());
+	}
+	
+	@Override
+	protected void storeFlips(int ply) {
+		this.flips[ply] = this.pending;
+	}
+	
+	@Override
+	protected void apply(int square, int ply, char mover) {
+		long flipped = this.flips[ply];
+		long placed = 1L << square;
+		if(mover == 'B') {
+			this.black ^= flipped | placed;
+			this.white ^= flipped;
+		} else {
+			this.white ^= flipped | placed;
+			this.black ^= flipped;
+		}
+	}
+	
+}
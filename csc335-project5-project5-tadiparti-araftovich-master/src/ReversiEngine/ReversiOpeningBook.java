@@ -0,0 +1,196 @@
+package ReversiEngine;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * File: ReversiOpeningBook.java
+ *
+ * Plays known opening moves from a book file and hands every other position to another AI.
+ * The file is memory-mapped, so the book takes no heap and a lookup is a binary search over
+ * the mapped records. Positions are stored in canonical form, which makes the eight
+ * rotations and reflections of a position share their book moves.
+ *
+ * File layout, big-endian: a 16-byte header (MAGIC, VERSION, record count, reserved)
+ * followed by 16-byte records sorted by key: the 8-byte canonical key, a 4-byte weight,
+ * the canonical move square in one byte and three reserved bytes.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiOpeningBook implements ReversiAI {
+
+	public static final int MAGIC = 0x5256424B; // "RVBK"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+	public static final int RECORD_BYTES = 16;
+
+	private final MappedByteBuffer records;
+	private final int count;
+	private final ReversiAI fallback;
+	private Random random;
+
+	/**
+	 * Maps a book file.
+	 * @param file the book file
+	 * @param fallback plays positions the book does not know, may be null
+	 * @throws IOException if the file cannot be read or is not a book
+	 */
+	public ReversiOpeningBook(Path file, ReversiAI fallback) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			this.records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		this.records.order(ByteOrder.BIG_ENDIAN);
+		if(this.records.capacity() < HEADER_BYTES || this.records.getInt(0) != MAGIC) {
+			throw new IOException("Not an opening book: " + file);
+		}
+		if(this.records.getInt(4) != VERSION) {
+			throw new IOException("Unsupported opening book version " + this.records.getInt(4) + ": " + file);
+		}
+		this.count = this.records.getInt(8);
+		if((long) HEADER_BYTES + (long) this.count * RECORD_BYTES > this.records.capacity()) {
+			throw new IOException("Truncated opening book: " + file);
+		}
+		this.fallback = fallback;
+		this.random = new Random();
+	}
+
+	/**
+	 * Sets how book moves are chosen.
+	 * @param random picks moves with probability proportional to their weight, or null to
+	 * always play the heaviest move
+	 */
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
+	/**
+	 * Returns the number of moves in the book.
+	 * @return the record count
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the key a position is stored under.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return the hash of the canonical form
+	 */
+	public static long key(long player, long opponent) {
+		int symmetry = ReversiSymmetry.canonical(player, opponent);
+		return ReversiZobrist.mix(ReversiSymmetry.transform(symmetry, player), ReversiSymmetry.transform(symmetry, opponent));
+	}
+
+	/**
+	 * Looks a position up and picks one of its book moves.
+	 * @param position the position
+	 * @return the move to play, or ReversiSearchResult.PASS if the position is not in the book
+	 */
+	public int lookup(ReversiPosition position) {
+		long player = position.getPlayer();
+		long opponent = position.getOpponent();
+		int symmetry = ReversiSymmetry.canonical(player, opponent);
+		long key = ReversiZobrist.mix(ReversiSymmetry.transform(symmetry, player), ReversiSymmetry.transform(symmetry, opponent));
+
+		int first = firstRecord(key);
+		if(first < 0) {
+			return ReversiSearchResult.PASS;
+		}
+		long total = 0;
+		int heaviest = first;
+		int end = first;
+		while(end < this.count && keyAt(end) == key) {
+			total += weightAt(end);
+			if(weightAt(end) > weightAt(heaviest)) {
+				heaviest = end;
+			}
+			end++;
+		}
+		if(total <= 0) {
+			return ReversiSearchResult.PASS;
+		}
+
+		int chosen = heaviest;
+		if(this.random != null) {
+			long pick = (long) (this.random.nextDouble() * total);
+			for(chosen = first; chosen < end - 1; chosen++) {
+				pick -= weightAt(chosen);
+				if(pick < 0) {
+					break;
+				}
+			}
+		}
+		int move = ReversiSymmetry.inverseSquare(symmetry, moveAt(chosen));
+		// A hash collision could name a square that is not playable here.
+		return ReversiBitboard.isLegal(player, opponent, move) ? move : ReversiSearchResult.PASS;
+	}
+
+	@Override
+	public ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		int move = lookup(position);
+		if(move != ReversiSearchResult.PASS || this.fallback == null) {
+			return new ReversiSearchResult(move, 0, 0, 0);
+		}
+		return this.fallback.findBestMove(position, limits);
+	}
+
+	@Override
+	public void stop() {
+		if(this.fallback != null) {
+			this.fallback.stop();
+		}
+	}
+
+	@Override
+	public void resetStop() {
+		if(this.fallback != null) {
+			this.fallback.resetStop();
+		}
+	}
+
+	@Override
+	public void newGame() {
+		if(this.fallback != null) {
+			this.fallback.newGame();
+		}
+	}
+
+	/**
+	 * Binary search for the first record with a key.
+	 * @return the record index, or -1 if the key is not in the book
+	 */
+	private int firstRecord(long key) {
+		int low = 0;
+		int high = this.count;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(keyAt(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return (low < this.count && keyAt(low) == key) ? low : -1;
+	}
+
+	private long keyAt(int record) {
+		return this.records.getLong(HEADER_BYTES + record * RECORD_BYTES);
+	}
+
+	private int weightAt(int record) {
+		return this.records.getInt(HEADER_BYTES + record * RECORD_BYTES + 8);
+	}
+
+	private int moveAt(int record) {
+		return this.records.get(HEADER_BYTES + record * RECORD_BYTES + 12);
+	}
+
+}
@@ -0,0 +1,164 @@
+package ReversiEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * File: ReversiParallelSearch.java
+ *
+ * Lazy SMP search on a ForkJoinPool. Every thread runs its own alpha-beta search of the
+ * same position and they share one transposition table, so each thread mostly finds the
+ * others' work already done. Half of the helpers search one ply deeper to spread them
+ * over the tree. Every thread deepens iteratively under the same limits; the search ends
+ * when the main thread does, and the deepest finished iteration of any thread is played,
+ * so adding threads never plays a weaker move than a single-threaded search.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiParallelSearch implements ReversiAI {
+
+	private final ForkJoinPool pool;
+	private final ReversiSearch[] workers;
+	private final ReversiTranspositionTable table;
+
+	/**
+	 * Creates a search that uses every core.
+	 * @param table the table shared by all threads
+	 */
+	public ReversiParallelSearch(ReversiTranspositionTable table) {
+		this(Runtime.getRuntime().availableProcessors(), new ReversiWeightedEvaluator(), table);
+	}
+
+	/**
+	 * Creates a search.
+	 * @param threads number of threads to search with, at least 1
+	 * @param evaluator scores the leaves of the search, shared by all threads
+	 * @param table the table shared by all threads
+	 */
+	public ReversiParallelSearch(int threads, ReversiEvaluator evaluator, ReversiTranspositionTable table) {
+		threads = Math.max(1, threads);
+		this.pool = new ForkJoinPool(threads);
+		this.workers = new ReversiSearch[threads];
+		this.table = table;
+		for(int i = 0; i < threads; i++) {
+			this.workers[i] = new ReversiSearch(evaluator);
+			this.workers[i].setTranspositionTable(table);
+		}
+	}
+
+	/**
+	 * Returns the number of threads that search.
+	 * @return the thread count
+	 */
+	public int getThreads() {
+		return this.workers.length;
+	}
+
+	/**
+	 * Returns the table shared by all threads.
+	 * @return the transposition table
+	 */
+	public ReversiTranspositionTable getTranspositionTable() {
+		return this.table;
+	}
+
+	@Override
+	public synchronized ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		this.table.newSearch();
+
+		List<ForkJoinTask<ReversiSearchResult>> tasks = new ArrayList<>(this.workers.length);
+		for(int i = 0; i < this.workers.length; i++) {
+			ReversiSearch worker = this.workers[i];
+			int offset = i & 1;
+			tasks.add(this.pool.submit(() -> worker.iterate(position, limits, offset)));
+		}
+
+		ReversiSearchResult best = tasks.get(0).join();
+		for(int i = 1; i < this.workers.length; i++) {
+			this.workers[i].stop();
+		}
+		long nodes = best.getNodes();
+		for(int i = 1; i < tasks.size(); i++) {
+			ReversiSearchResult helper = tasks.get(i).join();
+			nodes += helper.getNodes();
+			// A helper that finished a deeper iteration before it was stopped knows more.
+			if(helper.getDepth() > best.getDepth()) {
+				best = helper;
+			}
+		}
+		// The helpers were stopped here, not by the caller, so they are ready for the next
+		// search; the main thread keeps any stop() sent since this one ended.
+		for(int i = 1; i < this.workers.length; i++) {
+			this.workers[i].resetStop();
+		}
+		return new ReversiSearchResult(best.getMove(), best.getScore(), best.getDepth(), nodes);
+	}
+
+	/**
+	 * Returns the number of transposition table lookups in the last search, summed over
+	 * every thread once they have all finished.
+	 * @return lookups by all threads
+	 */
+	public long getProbes() {
+		long probes = 0;
+		for(ReversiSearch worker : this.workers) {
+			probes += worker.getProbes();
+		}
+		return probes;
+	}
+
+	/**
+	 * Returns the number of lookups in the last search that found their position.
+	 * @return hits by all threads
+	 */
+	public long getHits() {
+		long hits = 0;
+		for(ReversiSearch worker : this.workers) {
+			hits += worker.getHits();
+		}
+		return hits;
+	}
+
+	/**
+	 * Returns the number of results the threads offered the table in the last search.
+	 * @return stores by all threads
+	 */
+	public long getStores() {
+		long stores = 0;
+		for(ReversiSearch worker : this.workers) {
+			stores += worker.getStores();
+		}
+		return stores;
+	}
+
+	@Override
+	public void stop() {
+		for(ReversiSearch worker : this.workers) {
+			worker.stop();
+		}
+	}
+
+	@Override
+	public void resetStop() {
+		for(ReversiSearch worker : this.workers) {
+			worker.resetStop();
+		}
+	}
+
+	@Override
+	public void newGame() {
+		this.table.clear();
+	}
+
+	/**
+	 * Stops the threads of the pool once the current search is done.
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+}
@@ -0,0 +1,188 @@
+package ReversiEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File: ReversiPatternEvaluator.java
+ *
+ * Evaluation by pattern tables. The score is the sum, over every placement of the shapes
+ * in ReversiPatterns, of the weight its index has in the tables of the position's phase.
+ * With the indexes kept by ReversiPatternIndexes that is one table lookup per placement
+ * and nothing else; ReversiSearch keeps them up to date as it makes and takes back moves.
+ * evaluate(player, opponent) reads the indexes from the board instead, for callers that
+ * only have the two masks.
+ *
+ * The tables do not change once built, so one evaluator can be shared by every search
+ * thread. Weights are read from a file written by the training tool; without one, the
+ * tables are filled from ReversiWeightedEvaluator's square weights, which scores squares
+ * the same way but knows nothing of how they combine.
+ *
+ * File layout, big-endian: a 16-byte header (MAGIC, VERSION, PHASES, TABLE_SIZE) followed
+ * by the tables of every phase in turn, one 2-byte signed weight per entry.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiPatternEvaluator implements ReversiEvaluator {
+
+	public static final int MAGIC = 0x52565057; // "RVPW"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+	/** Weights filled from the square table are this many times its values. */
+	private static final int SEED_SCALE = 4;
+
+	private final short[] weights;
+	private final int[] offsets;
+
+	/**
+	 * Creates an evaluator with tables filled from the square weights.
+	 */
+	public ReversiPatternEvaluator() {
+		this(seedWeights());
+	}
+
+	/**
+	 * Creates an evaluator with the given tables.
+	 * @param weights PHASES * TABLE_SIZE weights, the tables of each phase in turn; kept,
+	 * not copied
+	 * @throws IllegalArgumentException if the array is not that long
+	 */
+	public ReversiPatternEvaluator(short[] weights) {
+		if(weights.length != ReversiPatterns.PHASES * ReversiPatterns.TABLE_SIZE) {
+			throw new IllegalArgumentException("Expected " + ReversiPatterns.PHASES * ReversiPatterns.TABLE_SIZE + " weights, not " + weights.length);
+		}
+		this.weights = weights;
+		this.offsets = new int[ReversiPatterns.INSTANCES];
+		for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+			this.offsets[instance] = ReversiPatterns.shapeOffset(ReversiPatterns.instanceShape(instance));
+		}
+	}
+
+	/**
+	 * Reads an evaluator from a weight file.
+	 * @param file the weight file
+	 * @return an evaluator with the file's tables
+	 * @throws IOException if the file cannot be read or is not a weight file for these patterns
+	 */
+	public static ReversiPatternEvaluator load(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a pattern weight file: " + file);
+		}
+		if(buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported pattern weight version " + buffer.getInt(4) + ": " + file);
+		}
+		if(buffer.getInt(8) != ReversiPatterns.PHASES || buffer.getInt(12) != ReversiPatterns.TABLE_SIZE) {
+			throw new IOException("Weights are for " + buffer.getInt(8) + " phases of " + buffer.getInt(12)
+					+ " entries, not " + ReversiPatterns.PHASES + " of " + ReversiPatterns.TABLE_SIZE + ": " + file);
+		}
+		short[] weights = new short[ReversiPatterns.PHASES * ReversiPatterns.TABLE_SIZE];
+		if((long) HEADER_BYTES + 2L * weights.length > buffer.capacity()) {
+			throw new IOException("Truncated pattern weight file: " + file);
+		}
+		buffer.position(HEADER_BYTES);
+		buffer.asShortBuffer().get(weights);
+		return new ReversiPatternEvaluator(weights);
+	}
+
+	/**
+	 * Writes tables to a weight file.
+	 * @param file the weight file, replaced if it exists
+	 * @param weights PHASES * TABLE_SIZE weights, the tables of each phase in turn
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path file, short[] weights) throws IOException {
+		try(OutputStream stream = Files.newOutputStream(file);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(ReversiPatterns.PHASES);
+			out.writeInt(ReversiPatterns.TABLE_SIZE);
+			for(short weight : weights) {
+				out.writeShort(weight);
+			}
+		}
+	}
+
+	/**
+	 * Returns the weight of one table entry.
+	 * @param phase the game phase
+	 * @param shape the shape
+	 * @param index the index into the shape's table
+	 * @return the weight
+	 */
+	public int getWeight(int phase, int shape, int index) {
+		return this.weights[phase * ReversiPatterns.TABLE_SIZE + ReversiPatterns.shapeOffset(shape) + index];
+	}
+
+	@Override
+	public int evaluate(long player, long opponent) {
+		int base = ReversiPatterns.phase(Long.bitCount(player | opponent)) * ReversiPatterns.TABLE_SIZE;
+		int score = 0;
+		for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+			score += this.weights[base + this.offsets[instance] + ReversiPatterns.index(instance, player, opponent)];
+		}
+		return score;
+	}
+
+	/**
+	 * Scores a position from indexes that are kept up to date.
+	 * @param indexes the indexes of the position
+	 * @param toMove 'B' or 'W', the side to score for
+	 * @return a score, positive when the side to move stands better
+	 */
+	public int evaluate(ReversiPatternIndexes indexes, char toMove) {
+		int base = ReversiPatterns.phase(indexes.getDiscs()) * ReversiPatterns.TABLE_SIZE;
+		int[] readings = indexes.readings(toMove);
+		int score = 0;
+		for(int instance = 0; instance < readings.length; instance++) {
+			score += this.weights[base + this.offsets[instance] + readings[instance]];
+		}
+		return score;
+	}
+
+	/**
+	 * Fills the tables from the square weights. Each square's weight is shared between the
+	 * placements that hold it, so the tables add up to the square table's score.
+	 */
+	private static short[] seedWeights() {
+		short[] weights = new short[ReversiPatterns.PHASES * ReversiPatterns.TABLE_SIZE];
+		for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+			int shape = ReversiPatterns.instanceShape(instance);
+			if(instance > 0 && ReversiPatterns.instanceShape(instance - 1) == shape) {
+				continue;
+			}
+			int[] squares = ReversiPatterns.instanceSquares(instance);
+			for(int index = 0; index < ReversiPatterns.shapeEntries(shape); index++) {
+				double weight = 0;
+				int digits = index;
+				for(int j = 0; j < squares.length; j++) {
+					int digit = digits % 3;
+					digits /= 3;
+					int sign = (digit == 1) ? 1 : (digit == 2) ? -1 : 0;
+					weight += (double) sign * ReversiWeightedEvaluator.squareWeight(squares[j]) * SEED_SCALE
+							/ ReversiPatterns.squareInstances(squares[j]).length;
+				}
+				for(int phase = 0; phase < ReversiPatterns.PHASES; phase++) {
+					weights[phase * ReversiPatterns.TABLE_SIZE + ReversiPatterns.shapeOffset(shape) + index] = (short) Math.round(weight);
+				}
+			}
+		}
+		return weights;
+	}
+
+}
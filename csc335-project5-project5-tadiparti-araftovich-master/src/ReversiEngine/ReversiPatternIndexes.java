@@ -0,0 +1,120 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiPatternIndexes.java
+ *
+ * The index of every pattern placement for a position, kept up to date move by move. Both
+ * sides' readings are kept, so the side to move can always be scored from its own point of
+ * view: in black's reading black discs are digit 1 and white discs digit 2, and in white's
+ * reading the other way round.
+ *
+ * Playing a disc changes only the placements that hold its square or one of the flipped
+ * squares, so make() and unmake() cost a few additions per square touched instead of a
+ * pass over the board. A search keeps one of these per thread, next to its position.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiPatternIndexes {
+
+	private final int[] black = new int[ReversiPatterns.INSTANCES];
+	private final int[] white = new int[ReversiPatterns.INSTANCES];
+	private int discs;
+
+	/**
+	 * Creates the indexes of the starting position.
+	 */
+	public ReversiPatternIndexes() {
+		set(ReversiBitboard.startBlack(), ReversiBitboard.startWhite());
+	}
+
+	/**
+	 * Reads every index from a position.
+	 * @param blackDiscs mask of the black discs
+	 * @param whiteDiscs mask of the white discs
+	 */
+	public void set(long blackDiscs, long whiteDiscs) {
+		for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+			this.black[instance] = ReversiPatterns.index(instance, blackDiscs, whiteDiscs);
+			this.white[instance] = ReversiPatterns.index(instance, whiteDiscs, blackDiscs);
+		}
+		this.discs = Long.bitCount(blackDiscs | whiteDiscs);
+	}
+
+	/**
+	 * Updates the indexes for a move.
+	 * @param square the square played
+	 * @param flips mask of the discs the move turned over
+	 * @param mover the color that played, 'B' or 'W'
+	 */
+	public void make(int square, long flips, char mover) {
+		update(square, flips, mover, 1);
+		this.discs++;
+	}
+
+	/**
+	 * Updates the indexes for taking back a move made with make().
+	 * @param square the square that was played
+	 * @param flips mask of the discs the move turned over
+	 * @param mover the color that played, 'B' or 'W'
+	 */
+	public void unmake(int square, long flips, char mover) {
+		update(square, flips, mover, -1);
+		this.discs--;
+	}
+
+	/**
+	 * Adds or takes away a move. In the mover's reading the new disc is digit 1 and every
+	 * flipped disc goes from 2 to 1; in the other reading they are digit 2, and go from 1
+	 * to 2.
+	 */
+	private void update(int square, long flips, char mover, int sign) {
+		int[] own = (mover == 'B') ? this.black : this.white;
+		int[] other = (mover == 'B') ? this.white : this.black;
+		int[] instances = ReversiPatterns.squareInstances(square);
+		int[] powers = ReversiPatterns.squarePowers(square);
+		for(int i = 0; i < instances.length; i++) {
+			own[instances[i]] += sign * powers[i];
+			other[instances[i]] += sign * 2 * powers[i];
+		}
+		while(flips != 0) {
+			int flipped = Long.numberOfTrailingZeros(flips);
+			flips &= flips - 1;
+			instances = ReversiPatterns.squareInstances(flipped);
+			powers = ReversiPatterns.squarePowers(flipped);
+			for(int i = 0; i < instances.length; i++) {
+				own[instances[i]] -= sign * powers[i];
+				other[instances[i]] += sign * powers[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the index of a placement as one side reads it.
+	 * @param toMove 'B' or 'W', the side whose discs are digit 1
+	 * @param instance the placement
+	 * @return the index into the placement's shape table, without the shape offset
+	 */
+	public int get(char toMove, int instance) {
+		return (toMove == 'B') ? this.black[instance] : this.white[instance];
+	}
+
+	/**
+	 * Returns every index as one side reads it.
+	 * @param toMove 'B' or 'W'
+	 * @return the indexes by placement; the array is kept up to date and must not be changed
+	 */
+	int[] readings(char toMove) {
+		return (toMove == 'B') ? this.black : this.white;
+	}
+
+	/**
+	 * Returns the number of discs on the board.
+	 * @return both colors' discs
+	 */
+	public int getDiscs() {
+		return this.discs;
+	}
+
+}
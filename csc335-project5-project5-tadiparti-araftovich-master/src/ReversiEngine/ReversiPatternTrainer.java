@@ -0,0 +1,459 @@
+package ReversiEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * File: ReversiPatternTrainer.java
+ *
+ * Fits the tables of ReversiPatternEvaluator to recorded games. Training is in two steps:
+ * extract replays games into a ReversiTrainingSet, every position labelled with how the
+ * game ended for the side to move, and train fits the weights to that set by least squares
+ * and writes a weight file. The controller loads "reversi.weights" from the working
+ * directory when there is one.
+ *
+ * Each position reads the entries of its phase's tables that its placements index, and the
+ * prediction is their sum. Training goes over the set in mini-batches. The threads of a pool
+ * each take a share of a batch and add up, per entry, the error of the positions that used
+ * it; the shares are then merged and every entry used moves by its summed error over its
+ * use count. Dividing by the count lets entries seen once and entries seen in every
+ * position learn at the same pace, and the split between the placements of a position
+ * keeps the prediction from overshooting. Batches are taken in a new random order every
+ * epoch, and every HOLDOUT-th one is held out to measure the fit on positions the weights
+ * were not fitted to.
+ *
+ * Memory does not grow with the set: the set is read through memory maps, and besides the
+ * weights each thread keeps one error sum and one count per table entry. Games are read
+ * one per line, in the form ReversiBookBuilder reads or as ReversiTournament records them;
+ * only games that reach the end are used.
+ *
+ * Usage: java ReversiEngine.ReversiPatternTrainer extract positions.bin games.txt...
+ *        java ReversiEngine.ReversiPatternTrainer train reversi.weights [-epochs N] [-batch N]
+ *             [-rate R] [-threads N] [-seed S] [-init weights] positions.bin
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiPatternTrainer {
+
+	public static final int DEFAULT_EPOCHS = 10;
+	public static final int DEFAULT_BATCH = 16384;
+	public static final double DEFAULT_RATE = 0.5;
+	public static final long DEFAULT_SEED = 335;
+	/** Weights are written in units of 1/WEIGHT_SCALE of a disc of final difference. */
+	public static final int WEIGHT_SCALE = 32;
+	/** Every HOLDOUT-th batch of a set is left out of training. */
+	public static final int HOLDOUT = 20;
+	/** Added to every use count, so that entries seen only a few times move less. */
+	private static final float SMOOTHING = 4;
+
+	private static final int ENTRIES = ReversiPatterns.PHASES * ReversiPatterns.TABLE_SIZE;
+
+	private final float[] weights = new float[ENTRIES];
+	private final int[] offsets = new int[ReversiPatterns.INSTANCES];
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int batch = DEFAULT_BATCH;
+	private double rate = DEFAULT_RATE;
+	private Random random = new Random(DEFAULT_SEED);
+
+	/**
+	 * Creates a trainer with every weight 0.
+	 */
+	public ReversiPatternTrainer() {
+		for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+			this.offsets[instance] = ReversiPatterns.shapeOffset(ReversiPatterns.instanceShape(instance));
+		}
+	}
+
+	/**
+	 * Sets the number of threads a batch is split between.
+	 * @param threads number of threads, at least 1
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Sets the number of positions between weight updates.
+	 * @param batch positions per batch, at least 1
+	 */
+	public void setBatch(int batch) {
+		this.batch = Math.max(1, batch);
+	}
+
+	/**
+	 * Sets how far a weight moves on each update.
+	 * @param rate share of its mean error an entry takes out, 1 for all of it
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+
+	/**
+	 * Sets the seed of the batch order.
+	 * @param seed random seed
+	 */
+	public void setSeed(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Starts from the weights of an evaluator instead of 0.
+	 * @param evaluator the evaluator whose tables to copy
+	 */
+	public void setWeights(ReversiPatternEvaluator evaluator) {
+		for(int phase = 0; phase < ReversiPatterns.PHASES; phase++) {
+			for(int shape = 0; shape < ReversiPatterns.SHAPE_COUNT; shape++) {
+				int base = phase * ReversiPatterns.TABLE_SIZE + ReversiPatterns.shapeOffset(shape);
+				for(int index = 0; index < ReversiPatterns.shapeEntries(shape); index++) {
+					this.weights[base + index] = (float) evaluator.getWeight(phase, shape, index) / WEIGHT_SCALE;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the weights as the evaluator stores them.
+	 * @return PHASES * TABLE_SIZE weights, the tables of each phase in turn
+	 */
+	public short[] getWeights() {
+		short[] result = new short[ENTRIES];
+		for(int entry = 0; entry < ENTRIES; entry++) {
+			long weight = Math.round((double) this.weights[entry] * WEIGHT_SCALE);
+			result[entry] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, weight));
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the weights to a file the evaluator can load.
+	 * @param file the weight file, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		ReversiPatternEvaluator.write(file, getWeights());
+	}
+
+	/**
+	 * Goes over a training set once, updating the weights after every batch.
+	 * @param set the positions
+	 * @return the root mean square error, in discs, on the positions trained on
+	 */
+	public double train(ReversiTrainingSet set) {
+		return pass(set, true);
+	}
+
+	/**
+	 * Measures the weights on the batches train() leaves out.
+	 * @param set the positions
+	 * @return the root mean square error, in discs, or NaN if the set is too small to hold
+	 * any batch out
+	 */
+	public double validate(ReversiTrainingSet set) {
+		return pass(set, false);
+	}
+
+	/**
+	 * Runs every training or every held-out batch through the pool.
+	 */
+	private double pass(ReversiTrainingSet set, boolean training) {
+		long batches = (set.size() + this.batch - 1) / this.batch;
+		long[] order = new long[(int) Math.min(Integer.MAX_VALUE - 8, batches)];
+		int count = 0;
+		for(long block = 0; block < batches; block++) {
+			boolean held = (batches >= HOLDOUT && block % HOLDOUT == HOLDOUT - 1);
+			if(held != training) {
+				order[count++] = block;
+			}
+		}
+		if(count == 0) {
+			return Double.NaN;
+		}
+		if(training) {
+			for(int i = count - 1; i > 0; i--) {
+				int j = this.random.nextInt(i + 1);
+				long swap = order[i];
+				order[i] = order[j];
+				order[j] = swap;
+			}
+		}
+
+		Worker[] workers = new Worker[this.threads];
+		for(int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(set, training);
+		}
+		ForkJoinPool pool = new ForkJoinPool(this.threads);
+		double squaredError = 0;
+		long positions = 0;
+		try {
+			List<Worker> tasks = new ArrayList<>(workers.length);
+			for(int i = 0; i < count; i++) {
+				long first = order[i] * this.batch;
+				long size = Math.min(this.batch, set.size() - first);
+				tasks.clear();
+				for(int w = 0; w < workers.length; w++) {
+					long from = first + size * w / workers.length;
+					long to = first + size * (w + 1) / workers.length;
+					if(from < to) {
+						workers[w].setRange(from, to);
+						tasks.add(workers[w]);
+					}
+				}
+				for(Future<Void> done : pool.invokeAll(tasks)) {
+					done.get();
+				}
+				if(training) {
+					update(tasks);
+				}
+				positions += size;
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Training interrupted", e);
+		} catch(ExecutionException e) {
+			throw new IllegalStateException("Training failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		for(Worker worker : workers) {
+			squaredError += worker.squaredError;
+		}
+		return Math.sqrt(squaredError / positions);
+	}
+
+	/**
+	 * Merges the error sums of a batch into the first worker's and moves every entry that was
+	 * used. The workers are merged in order, so a run is repeatable for a given thread count.
+	 */
+	private void update(List<Worker> tasks) {
+		Worker total = tasks.get(0);
+		for(int w = 1; w < tasks.size(); w++) {
+			Worker worker = tasks.get(w);
+			for(int i = 0; i < worker.touchedCount; i++) {
+				int entry = worker.touched[i];
+				total.add(entry, worker.errors[entry], worker.counts[entry]);
+				worker.errors[entry] = 0;
+				worker.counts[entry] = 0;
+			}
+			worker.touchedCount = 0;
+		}
+		float step = (float) (this.rate / ReversiPatterns.INSTANCES);
+		for(int i = 0; i < total.touchedCount; i++) {
+			int entry = total.touched[i];
+			this.weights[entry] += step * total.errors[entry] / (total.counts[entry] + SMOOTHING);
+			total.errors[entry] = 0;
+			total.counts[entry] = 0;
+		}
+		total.touchedCount = 0;
+	}
+
+	/**
+	 * One thread's share of a batch. The weights are only read here; they change between
+	 * batches, after every share is done.
+	 */
+	private final class Worker implements Callable<Void> {
+
+		final ReversiTrainingSet set;
+		final boolean training;
+		final float[] errors;
+		final int[] counts;
+		final int[] touched;
+		final int[] entries = new int[ReversiPatterns.INSTANCES];
+		int touchedCount;
+		double squaredError;
+		long from;
+		long to;
+
+		Worker(ReversiTrainingSet set, boolean training) {
+			this.set = set;
+			this.training = training;
+			this.errors = training ? new float[ENTRIES] : null;
+			this.counts = training ? new int[ENTRIES] : null;
+			this.touched = training ? new int[ENTRIES] : null;
+		}
+
+		void setRange(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		void add(int entry, float error, int count) {
+			if(this.counts[entry] == 0) {
+				this.touched[this.touchedCount++] = entry;
+			}
+			this.errors[entry] += error;
+			this.counts[entry] += count;
+		}
+
+		@Override
+		public Void call() {
+			float[] weights = ReversiPatternTrainer.this.weights;
+			int[] offsets = ReversiPatternTrainer.this.offsets;
+			for(long record = this.from; record < this.to; record++) {
+				long player = this.set.getPlayer(record);
+				long opponent = this.set.getOpponent(record);
+				int base = ReversiPatterns.phase(Long.bitCount(player | opponent)) * ReversiPatterns.TABLE_SIZE;
+				float prediction = 0;
+				for(int instance = 0; instance < ReversiPatterns.INSTANCES; instance++) {
+					this.entries[instance] = base + offsets[instance] + ReversiPatterns.index(instance, player, opponent);
+					prediction += weights[this.entries[instance]];
+				}
+				float error = this.set.getScore(record) - prediction;
+				this.squaredError += (double) error * error;
+				if(this.training) {
+					for(int entry : this.entries) {
+						add(entry, error, 1);
+					}
+				}
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * Replays one recorded game and adds its positions to a training set.
+	 * @param game squares in column-letter row-number form, such as "f5d6c3"
+	 * @param out the set being written
+	 * @return the number of positions added, 0 if the record stops before the game ends
+	 * @throws IOException if the set cannot be written
+	 */
+	public static int extractGame(String game, ReversiTrainingSet.Writer out) throws IOException {
+		long[] players = new long[ReversiBitboard.SQUARES];
+		long[] opponents = new long[ReversiBitboard.SQUARES];
+		char[] movers = new char[ReversiBitboard.SQUARES];
+		String text = game.trim().toLowerCase();
+		ReversiPosition position = ReversiPosition.start();
+		int played = 0;
+		for(int i = 0; i + 1 < text.length() && played < players.length; i += 2) {
+			int col = text.charAt(i) - 'a';
+			int row = text.charAt(i + 1) - '1';
+			if(col < 0 || col >= ReversiBitboard.SIZE || row < 0 || row >= ReversiBitboard.SIZE) {
+				break;
+			}
+			if(ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent()) == 0) {
+				position = position.play(ReversiSearchResult.PASS);
+			}
+			int square = ReversiBitboard.index(row, col);
+			if(!ReversiBitboard.isLegal(position.getPlayer(), position.getOpponent(), square)) {
+				break;
+			}
+			players[played] = position.getPlayer();
+			opponents[played] = position.getOpponent();
+			movers[played] = position.getToMove();
+			position = position.play(square);
+			played++;
+		}
+
+		// Positions are only labelled if the record reaches the end of the game.
+		if(!ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+			return 0;
+		}
+		int difference = Long.bitCount(position.getBlack()) - Long.bitCount(position.getWhite());
+		for(int ply = 0; ply < played; ply++) {
+			out.add(players[ply], opponents[ply], (movers[ply] == 'B') ? difference : -difference);
+		}
+		return played;
+	}
+
+	/**
+	 * Adds the positions of every game in a text file, one game per line. A line with tabs,
+	 * as ReversiTournament writes records, has its moves in the last field; lines starting
+	 * with '#' are skipped.
+	 * @param file the game file
+	 * @param out the set being written
+	 * @return the number of games that reached the end and were added
+	 * @throws IOException if the file cannot be read or the set cannot be written
+	 */
+	public static int extractGames(Path file, ReversiTrainingSet.Writer out) throws IOException {
+		int games = 0;
+		try(BufferedReader reader = Files.newBufferedReader(file)) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				if(extractGame(line.substring(line.lastIndexOf('\t') + 1), out) > 0) {
+					games++;
+				}
+			}
+		}
+		return games;
+	}
+
+	private static void usage() {
+		System.err.println("Usage: java ReversiEngine.ReversiPatternTrainer extract positions.bin games.txt...");
+		System.err.println("       java ReversiEngine.ReversiPatternTrainer train reversi.weights [-epochs N] [-batch N]"
+				+ " [-rate R] [-threads N] [-seed S] [-init weights] positions.bin");
+		System.exit(1);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 3) {
+			usage();
+		}
+		if(args[0].equals("extract")) {
+			int games = 0;
+			long positions;
+			try(ReversiTrainingSet.Writer out = new ReversiTrainingSet.Writer(Paths.get(args[1]))) {
+				for(int i = 2; i < args.length; i++) {
+					games += extractGames(Paths.get(args[i]), out);
+				}
+				positions = out.size();
+			}
+			System.out.println(games + " games, " + positions + " positions written to " + args[1]);
+			return;
+		}
+		if(!args[0].equals("train")) {
+			usage();
+		}
+
+		Path weightFile = Paths.get(args[1]);
+		ReversiPatternTrainer trainer = new ReversiPatternTrainer();
+		int epochs = DEFAULT_EPOCHS;
+		Path setFile = null;
+		for(int i = 2; i < args.length; i++) {
+			if(args[i].equals("-epochs")) {
+				epochs = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-batch")) {
+				trainer.setBatch(Integer.parseInt(args[++i]));
+			} else if(args[i].equals("-rate")) {
+				trainer.setRate(Double.parseDouble(args[++i]));
+			} else if(args[i].equals("-threads")) {
+				trainer.setThreads(Integer.parseInt(args[++i]));
+			} else if(args[i].equals("-seed")) {
+				trainer.setSeed(Long.parseLong(args[++i]));
+			} else if(args[i].equals("-init")) {
+				trainer.setWeights(ReversiPatternEvaluator.load(Paths.get(args[++i])));
+			} else {
+				setFile = Paths.get(args[i]);
+			}
+		}
+		if(setFile == null) {
+			usage();
+		}
+		ReversiTrainingSet set = ReversiTrainingSet.open(setFile);
+		System.out.println(set.size() + " positions in " + setFile);
+		for(int epoch = 1; epoch <= epochs; epoch++) {
+			long start = System.nanoTime();
+			double trained = trainer.train(set);
+			double held = trainer.validate(set);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			// Written after every epoch, so that stopping early still leaves usable weights.
+			trainer.write(weightFile);
+			System.out.printf("epoch %d: error %.2f discs trained, %.2f held out, %.1f s%n", epoch, trained, held, seconds);
+		}
+	}
+
+}
@@ -0,0 +1,210 @@
+package ReversiEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File: ReversiPatterns.java
+ *
+ * The patterns of ReversiPatternEvaluator: groups of squares whose contents, read as a
+ * number in base 3, index a table of weights. Each shape is placed on the board in every
+ * distinct way the eight symmetries give, and all placements of a shape share its table.
+ *
+ * The index of a placement is the sum of digit * 3^j over its squares, square j counting
+ * from 0, where the digit is 0 for an empty square, 1 for a disc of the side the index is
+ * read for and 2 for a disc of the other side. Every square lists the placements it is in
+ * and the power of 3 it has in each, so that a move can update the indexes it touches
+ * without reading the rest of the board.
+ *
+ * Game phases split the game by disc count, and every phase has its own tables.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiPatterns {
+
+	/** Number of game phases, each with its own weights. */
+	public static final int PHASES = 12;
+
+	/** Names of the shapes, in table order. */
+	public static final String[] SHAPE_NAMES = {
+		"edge", "corner3x3", "corner2x5", "diagonal8", "diagonal7", "diagonal6", "diagonal5", "diagonal4"
+	};
+
+	/** The squares of every shape in one placement, as row * 8 + col. */
+	private static final int[][] SHAPES = {
+		{0, 1, 2, 3, 4, 5, 6, 7},
+		{0, 1, 2, 8, 9, 10, 16, 17, 18},
+		{0, 1, 2, 3, 4, 8, 9, 10, 11, 12},
+		{0, 9, 18, 27, 36, 45, 54, 63},
+		{1, 10, 19, 28, 37, 46, 55},
+		{2, 11, 20, 29, 38, 47},
+		{3, 12, 21, 30, 39},
+		{4, 13, 22, 31},
+	};
+
+	/** Number of shapes. */
+	public static final int SHAPE_COUNT = SHAPES.length;
+	/** Number of placements of all shapes on the board. */
+	public static final int INSTANCES;
+	/** Entries in the tables of one phase, all shapes together. */
+	public static final int TABLE_SIZE;
+
+	private static final int[] SHAPE_OFFSETS = new int[SHAPE_COUNT];
+	private static final int[] SHAPE_ENTRIES = new int[SHAPE_COUNT];
+	private static final int[][] INSTANCE_SQUARES;
+	private static final int[] INSTANCE_SHAPE;
+	private static final int[][] SQUARE_INSTANCES = new int[ReversiBitboard.SQUARES][];
+	private static final int[][] SQUARE_POWERS = new int[ReversiBitboard.SQUARES][];
+
+	static {
+		int offset = 0;
+		List<int[]> instances = new ArrayList<>();
+		List<Integer> shapes = new ArrayList<>();
+		for(int shape = 0; shape < SHAPE_COUNT; shape++) {
+			SHAPE_OFFSETS[shape] = offset;
+			SHAPE_ENTRIES[shape] = power(SHAPES[shape].length);
+			offset += SHAPE_ENTRIES[shape];
+			List<Long> placed = new ArrayList<>();
+			for(int symmetry = 0; symmetry < ReversiSymmetry.COUNT; symmetry++) {
+				int[] squares = new int[SHAPES[shape].length];
+				long mask = 0;
+				for(int j = 0; j < squares.length; j++) {
+					squares[j] = ReversiSymmetry.transformSquare(symmetry, SHAPES[shape][j]);
+					mask |= 1L << squares[j];
+				}
+				// A symmetry that maps the shape onto itself gives no new placement.
+				if(!placed.contains(mask)) {
+					placed.add(mask);
+					instances.add(squares);
+					shapes.add(shape);
+				}
+			}
+		}
+		TABLE_SIZE = offset;
+		INSTANCES = instances.size();
+		INSTANCE_SQUARES = instances.toArray(new int[INSTANCES][]);
+		INSTANCE_SHAPE = new int[INSTANCES];
+		for(int instance = 0; instance < INSTANCES; instance++) {
+			INSTANCE_SHAPE[instance] = shapes.get(instance);
+		}
+		for(int square = 0; square < ReversiBitboard.SQUARES; square++) {
+			List<int[]> uses = new ArrayList<>();
+			for(int instance = 0; instance < INSTANCES; instance++) {
+				int[] squares = INSTANCE_SQUARES[instance];
+				for(int j = 0; j < squares.length; j++) {
+					if(squares[j] == square) {
+						uses.add(new int[] {instance, power(j)});
+					}
+				}
+			}
+			SQUARE_INSTANCES[square] = new int[uses.size()];
+			SQUARE_POWERS[square] = new int[uses.size()];
+			for(int use = 0; use < uses.size(); use++) {
+				SQUARE_INSTANCES[square][use] = uses.get(use)[0];
+				SQUARE_POWERS[square][use] = uses.get(use)[1];
+			}
+		}
+	}
+
+	private ReversiPatterns() {
+	}
+
+	private static int power(int exponent) {
+		int result = 1;
+		for(int i = 0; i < exponent; i++) {
+			result *= 3;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the phase of a position.
+	 * @param discs the number of discs on the board, both colors
+	 * @return the phase, from 0 at the start to PHASES - 1 at the end
+	 */
+	public static int phase(int discs) {
+		return Math.min(PHASES - 1, Math.max(0, discs - 4) * PHASES / (ReversiBitboard.SQUARES - 4));
+	}
+
+	/**
+	 * Returns the number of squares of a shape.
+	 * @param shape the shape, from 0 to SHAPE_COUNT - 1
+	 * @return the length of its index in base 3 digits
+	 */
+	public static int shapeSquares(int shape) {
+		return SHAPES[shape].length;
+	}
+
+	/**
+	 * Returns where a shape's table starts among the tables of a phase.
+	 * @param shape the shape
+	 * @return the offset of its first entry
+	 */
+	public static int shapeOffset(int shape) {
+		return SHAPE_OFFSETS[shape];
+	}
+
+	/**
+	 * Returns the number of entries of a shape's table.
+	 * @param shape the shape
+	 * @return 3 to the number of its squares
+	 */
+	public static int shapeEntries(int shape) {
+		return SHAPE_ENTRIES[shape];
+	}
+
+	/**
+	 * Returns the squares of one placement of a shape.
+	 * @param instance the placement, from 0 to INSTANCES - 1
+	 * @return the squares in digit order; the array must not be changed
+	 */
+	public static int[] instanceSquares(int instance) {
+		return INSTANCE_SQUARES[instance];
+	}
+
+	/**
+	 * Returns the shape a placement is of.
+	 * @param instance the placement
+	 * @return the shape
+	 */
+	public static int instanceShape(int instance) {
+		return INSTANCE_SHAPE[instance];
+	}
+
+	/**
+	 * Returns the placements a square is in.
+	 * @param square the square index
+	 * @return the placements; the array must not be changed
+	 */
+	static int[] squareInstances(int square) {
+		return SQUARE_INSTANCES[square];
+	}
+
+	/**
+	 * Returns the power of 3 a square has in each placement it is in.
+	 * @param square the square index
+	 * @return the powers, in the order of squareInstances(); the array must not be changed
+	 */
+	static int[] squarePowers(int square) {
+		return SQUARE_POWERS[square];
+	}
+
+	/**
+	 * Reads the index of a placement from the board.
+	 * @param instance the placement
+	 * @param player discs read as digit 1
+	 * @param opponent discs read as digit 2
+	 * @return the index into the placement's shape table, without the shape offset
+	 */
+	public static int index(int instance, long player, long opponent) {
+		int[] squares = INSTANCE_SQUARES[instance];
+		int index = 0;
+		for(int j = squares.length - 1; j >= 0; j--) {
+			index = index * 3 + (int) ((player >>> squares[j]) & 1) + 2 * (int) ((opponent >>> squares[j]) & 1);
+		}
+		return index;
+	}
+
+}
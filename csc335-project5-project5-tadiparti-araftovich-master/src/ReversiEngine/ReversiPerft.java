@@ -0,0 +1,248 @@
+package ReversiEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * File: ReversiPerft.java
+ * 
+ * Counts the leaves of the game tree to a fixed depth. A pass uses up a ply like any other
+ * move, and a finished game counts as one leaf wherever it ends. The counts only match
+ * known values when the move generator is right, and the leaves per second are the raw
+ * speed of the generator. From the starting position the counts for depths 1 to 9 are
+ * 4, 12, 56, 244, 1396, 8200, 55092, 390216 and 3005288.
+ * 
+ * Usage: java ReversiEngine.ReversiPerft depth [-divide] [-threads N] [-reference] [-check]
+ *        [-position black white B|W]
+ * 
+ * -divide prints the count below each root move. -reference counts with
+ * ReversiReferenceRules instead of the bitboard generator, and -check counts with both and
+ * prints every root move where they disagree. A position is given as the black and white
+ * masks in hexadecimal and the color to move.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiPerft {
+	
+	/** Subtrees this shallow are counted on one thread; splitting them costs more than it saves. */
+	private static final int SPLIT_DEPTH = 6;
+	
+	private final ReversiRules rules;
+	private final ForkJoinPool pool;
+	
+	/**
+	 * Creates a counter.
+	 * @param rules the move generator to count with
+	 * @param threads number of threads to count with, 1 to count on the calling thread
+	 */
+	public ReversiPerft(ReversiRules rules, int threads) {
+		this.rules = rules;
+		this.pool = (threads > 1) ? new ForkJoinPool(threads) : null;
+	}
+	
+	/**
+	 * Counts the leaves below a position.
+	 * @param position the position to count from
+	 * @param depth number of plies to go down
+	 * @return the leaf count
+	 */
+	public long perft(ReversiPosition position, int depth) {
+		if(depth <= 0) {
+			return 1;
+		}
+		return count(position.getPlayer(), position.getOpponent(), depth, false);
+	}
+	
+	/**
+	 * Counts the leaves below each move of a position.
+	 * @param position the position to count from
+	 * @param depth number of plies to go down, counting the root move
+	 * @return the leaf count of each root move by square, with ReversiSearchResult.PASS
+	 * as the only key if the side to move has to pass
+	 */
+	public Map<Integer, Long> divide(ReversiPosition position, int depth) {
+		Map<Integer, Long> counts = new TreeMap<>();
+		if(depth <= 0) {
+			return counts;
+		}
+		long player = position.getPlayer();
+		long opponent = position.getOpponent();
+		long moves = this.rules.legalMoves(player, opponent);
+		if(moves == 0) {
+			counts.put(ReversiSearchResult.PASS, (depth == 1) ? 1 : count(opponent, player, depth - 1, true));
+			return counts;
+		}
+		while(moves != 0) {
+			int square = Long.numberOfTrailingZeros(moves);
+			moves &= moves - 1;
+			long flips = this.rules.flips(player, opponent, square);
+			long leaves = 1;
+			if(depth > 1) {
+				leaves = count(opponent ^ flips, player | flips | (1L << square), depth - 1, false);
+			}
+			counts.put(square, leaves);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Stops the threads of the pool.
+	 */
+	public void shutdown() {
+		if(this.pool != null) {
+			this.pool.shutdown();
+		}
+	}
+	
+	private long count(long player, long opponent, int depth, boolean passed) {
+		if(this.pool == null || depth <= SPLIT_DEPTH) {
+			return countSerial(player, opponent, depth, passed);
+		}
+		return this.pool.invoke(new CountTask(player, opponent, depth, passed));
+	}
+	
+	/**
+	 * Counts on the calling thread. The last ply is not played out: the leaves below a
+	 * position one ply from the bottom are its moves, or one pass.
+	 */
+	private long countSerial(long player, long opponent, int depth, boolean passed) {
+		long moves = this.rules.legalMoves(player, opponent);
+		if(moves == 0) {
+			if(passed || depth == 1) {
+				return 1;
+			}
+			return countSerial(opponent, player, depth - 1, true);
+		}
+		if(depth == 1) {
+			return Long.bitCount(moves);
+		}
+		long leaves = 0;
+		while(moves != 0) {
+			int square = Long.numberOfTrailingZeros(moves);
+			moves &= moves - 1;
+			long flips = this.rules.flips(player, opponent, square);
+			leaves += countSerial(opponent ^ flips, player | flips | (1L << square), depth - 1, false);
+		}
+		return leaves;
+	}
+	
+	/**
+	 * Counts a subtree by forking a task per move until the subtrees are small.
+	 */
+	private final class CountTask extends RecursiveTask<Long> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final long player;
+		private final long opponent;
+		private final int depth;
+		private final boolean passed;
+		
+		CountTask(long player, long opponent, int depth, boolean passed) {
+			this.player = player;
+			this.opponent = opponent;
+			this.depth = depth;
+			this.passed = passed;
+		}
+		
+		@Override
+		protected Long compute() {
+			if(this.depth <= SPLIT_DEPTH) {
+				return countSerial(this.player, this.opponent, this.depth, this.passed);
+			}
+			long moves = rules.legalMoves(this.player, this.opponent);
+			if(moves == 0) {
+				if(this.passed) {
+					return 1L;
+				}
+				return new CountTask(this.opponent, this.player, this.depth - 1, true).compute();
+			}
+			List<CountTask> tasks = new ArrayList<>(Long.bitCount(moves));
+			while(moves != 0) {
+				int square = Long.numberOfTrailingZeros(moves);
+				moves &= moves - 1;
+				long flips = rules.flips(this.player, this.opponent, square);
+				tasks.add(new CountTask(this.opponent ^ flips, this.player | flips | (1L << square), this.depth - 1, false));
+			}
+			long leaves = 0;
+			for(CountTask task : ForkJoinTask.invokeAll(tasks)) {
+				leaves += task.join();
+			}
+			return leaves;
+		}
+	}
+	
+	public static void main(String[] args) {
+		if(args.length < 1) {
+			System.err.println("Usage: java ReversiEngine.ReversiPerft depth [-divide] [-threads N] [-reference] [-check] [-position black white B|W]");
+			System.exit(1);
+		}
+		int depth = Integer.parseInt(args[0]);
+		boolean divide = false;
+		boolean reference = false;
+		boolean check = false;
+		int threads = 1;
+		ReversiPosition position = ReversiPosition.start();
+		for(int i = 1; i < args.length; i++) {
+			if(args[i].equals("-divide")) {
+				divide = true;
+			} else if(args[i].equals("-reference")) {
+				reference = true;
+			} else if(args[i].equals("-check")) {
+				check = true;
+			} else if(args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-position")) {
+				position = new ReversiPosition(Long.parseUnsignedLong(args[i + 1], 16), Long.parseUnsignedLong(args[i + 2], 16),
+						Character.toUpperCase(args[i + 3].charAt(0)));
+				i += 3;
+			}
+		}
+		
+		ReversiPerft perft = new ReversiPerft(reference ? new ReversiReferenceRules() : new ReversiBitboardRules(), threads);
+		long start = System.nanoTime();
+		Map<Integer, Long> counts = perft.divide(position, depth);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		perft.shutdown();
+		long nodes = (depth <= 0) ? 1 : 0;
+		for(Map.Entry<Integer, Long> entry : counts.entrySet()) {
+			if(divide) {
+				System.out.println(ReversiBitboard.squareName(entry.getKey()) + "\t" + entry.getValue());
+			}
+			nodes += entry.getValue();
+		}
+		System.out.printf("perft(%d) = %d in %.3f s, %.0f nodes/s%n", depth, nodes, seconds, nodes / seconds);
+		
+		if(check) {
+			ReversiPerft other = new ReversiPerft(reference ? new ReversiBitboardRules() : new ReversiReferenceRules(), threads);
+			Map<Integer, Long> otherCounts = other.divide(position, depth);
+			other.shutdown();
+			Set<Integer> squares = new TreeSet<>(counts.keySet());
+			squares.addAll(otherCounts.keySet());
+			int mismatches = 0;
+			for(int square : squares) {
+				Long count = counts.get(square);
+				Long otherCount = otherCounts.get(square);
+				if(!Objects.equals(count, otherCount)) {
+					System.out.println("mismatch at " + ReversiBitboard.squareName(square) + ": " + count + " vs " + otherCount);
+					mismatches++;
+				}
+			}
+			System.out.println(mismatches == 0 ? "generators agree" : mismatches + " root moves disagree");
+			if(mismatches != 0) {
+				System.exit(2);
+			}
+		}
+	}
+	
+}
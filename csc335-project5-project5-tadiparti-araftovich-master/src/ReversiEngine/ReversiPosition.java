@@ -0,0 +1,104 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiPosition.java
+ * 
+ * An immutable snapshot of a game that the AI can search without touching the model.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiPosition {
+	
+	private final long black;
+	private final long white;
+	private final char toMove;
+	
+	/**
+	 * Creates a position from the discs of both colors.
+	 * @param black mask of the black discs
+	 * @param white mask of the white discs
+	 * @param toMove the color whose turn it is, 'B' or 'W'
+	 */
+	public ReversiPosition(long black, long white, char toMove) {
+		this.black = black;
+		this.white = white;
+		this.toMove = toMove;
+	}
+	
+	/**
+	 * Returns the four-disc position every game starts from.
+	 * @return the starting position with black to move
+	 */
+	public static ReversiPosition start() {
+		return new ReversiPosition(ReversiBitboard.startBlack(), ReversiBitboard.startWhite(), 'B');
+	}
+	
+	/**
+	 * Returns the black discs.
+	 * @return mask of the black discs
+	 */
+	public long getBlack() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the white discs.
+	 * @return mask of the white discs
+	 */
+	public long getWhite() {
+		return this.white;
+	}
+	
+	/**
+	 * Returns the color whose turn it is.
+	 * @return 'B' or 'W'
+	 */
+	public char getToMove() {
+		return this.toMove;
+	}
+	
+	/**
+	 * Returns the discs of the side to move.
+	 * @return mask of the mover's discs
+	 */
+	public long getPlayer() {
+		return (this.toMove == 'B') ? this.black : this.white;
+	}
+	
+	/**
+	 * Returns the discs of the side not to move.
+	 * @return mask of the opponent's discs
+	 */
+	public long getOpponent() {
+		return (this.toMove == 'B') ? this.white : this.black;
+	}
+	
+	/**
+	 * Returns the number of empty squares.
+	 * @return squares not holding a disc
+	 */
+	public int getEmpties() {
+		return ReversiBitboard.SQUARES - Long.bitCount(this.black | this.white);
+	}
+	
+	/**
+	 * Returns the position after the side to move plays a square, or passes.
+	 * @param square the square being played, or ReversiSearchResult.PASS
+	 * @return the new position with the other color to move
+	 */
+	public ReversiPosition play(int square) {
+		char next = (this.toMove == 'B') ? 'W' : 'B';
+		if(square == ReversiSearchResult.PASS) {
+			return new ReversiPosition(this.black, this.white, next);
+		}
+		long flips = ReversiBitboard.flips(getPlayer(), getOpponent(), square);
+		long move = 1L << square;
+		if(this.toMove == 'B') {
+			return new ReversiPosition(this.black | flips | move, this.white ^ flips, next);
+		}
+		return new ReversiPosition(this.black ^ flips, this.white | flips | move, next);
+	}
+	
+}
@@ -0,0 +1,58 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiReferenceRules.java
+ * 
+ * The rules as the controller first checked them: from the square being played, walk each
+ * of the eight directions over opponent discs and see whether the walk ends on one of the
+ * player's discs. Slow, but simple enough to trust as the reference for faster generators.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiReferenceRules implements ReversiRules {
+	
+	private static final int[] ROW_STEPS = {-1, -1, -1, 0, 0, 1, 1, 1};
+	private static final int[] COL_STEPS = {-1, 0, 1, -1, 1, -1, 0, 1};
+	
+	@Override
+	public long legalMoves(long player, long opponent) {
+		long moves = 0;
+		for(int square = 0; square < ReversiBitboard.SQUARES; square++) {
+			if(flips(player, opponent, square) != 0) {
+				moves |= 1L << square;
+			}
+		}
+		return moves;
+	}
+	
+	@Override
+	public long flips(long player, long opponent, int square) {
+		if(((player | opponent) & (1L << square)) != 0) {
+			return 0;
+		}
+		int row = square / ReversiBitboard.SIZE;
+		int col = square % ReversiBitboard.SIZE;
+		long flipped = 0;
+		for(int direction = 0; direction < ROW_STEPS.length; direction++) {
+			long run = 0;
+			int tempRow = row + ROW_STEPS[direction];
+			int tempCol = col + COL_STEPS[direction];
+			while(isOnBoard(tempRow, tempCol) && (opponent & ReversiBitboard.mask(tempRow, tempCol)) != 0) {
+				run |= ReversiBitboard.mask(tempRow, tempCol);
+				tempRow += ROW_STEPS[direction];
+				tempCol += COL_STEPS[direction];
+			}
+			if(run != 0 && isOnBoard(tempRow, tempCol) && (player & ReversiBitboard.mask(tempRow, tempCol)) != 0) {
+				flipped |= run;
+			}
+		}
+		return flipped;
+	}
+	
+	private static boolean isOnBoard(int row, int col) {
+		return row >= 0 && row < ReversiBitboard.SIZE && col >= 0 && col < ReversiBitboard.SIZE;
+	}
+	
+}
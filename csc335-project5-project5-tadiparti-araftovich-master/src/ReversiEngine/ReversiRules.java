@@ -0,0 +1,32 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiRules.java
+ * 
+ * A move generator. Two implementations exist so that a fast generator can be checked
+ * against a plain one that is easy to read, such as with ReversiPerft.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public interface ReversiRules {
+	
+	/**
+	 * Computes every square the player may play on.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return mask of legal moves, 0 if the player has to pass
+	 */
+	long legalMoves(long player, long opponent);
+	
+	/**
+	 * Computes the discs that are turned over when the player moves on a square.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square index of the square being played
+	 * @return mask of flipped discs, 0 if the move is illegal
+	 */
+	long flips(long player, long opponent, int square);
+	
+}
@@ -0,0 +1,358 @@
+package ReversiEngine;
+
+import java.util.Arrays;
+
+/**
+ * File: ReversiSearch.java
+ * 
+ * Negamax search with alpha-beta pruning. The search works on the two disc masks only,
+ * so it never touches the model and allocates nothing per node.
+ * 
+ * With a ReversiPatternEvaluator the search keeps the pattern indexes of the position it is
+ * looking at, updating them as it makes and takes back each move, so that a leaf is scored
+ * by table lookups alone.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiSearch implements ReversiAI {
+	
+	/** Larger than any score the search can return. */
+	public static final int INFINITY = 1 << 20;
+	
+	/** Added to the disc difference of a finished game so that wins beat any evaluation. */
+	public static final int WIN_SCORE = 1 << 16;
+	
+	/** Squares grouped by positional weight, best group first, for move ordering. */
+	private static final long[] ORDER;
+	
+	static {
+		long[] groups = new long[ReversiBitboard.SQUARES];
+		int[] weights = new int[ReversiBitboard.SQUARES];
+		int count = 0;
+		for(int square = 0; square < ReversiBitboard.SQUARES; square++) {
+			int weight = ReversiWeightedEvaluator.squareWeight(square);
+			int group = 0;
+			while(group < count && weights[group] > weight) {
+				group++;
+			}
+			if(group == count || weights[group] != weight) {
+				System.arraycopy(weights, group, weights, group + 1, count - group);
+				System.arraycopy(groups, group, groups, group + 1, count - group);
+				weights[group] = weight;
+				groups[group] = 0;
+				count++;
+			}
+			groups[group] |= 1L << square;
+		}
+		ORDER = Arrays.copyOf(groups, count);
+	}
+	
+	private ReversiEvaluator evaluator;
+	private ReversiPatternEvaluator patternEvaluator;
+	private ReversiPatternIndexes patterns;
+	private ReversiTranspositionTable table;
+	/** The stop flag is read once every this many nodes plus one. */
+	private static final int POLL_MASK = 1023;
+	
+	private long nodes;
+	private long probes;
+	private long hits;
+	private long stores;
+	private long maxNodes;
+	private long deadline;
+	private int rootMove;
+	private int rootScore;
+	private volatile boolean stopped;
+	private boolean aborted;
+	
+	/**
+	 * Creates a search using the default evaluation.
+	 */
+	public ReversiSearch() {
+		this(new ReversiWeightedEvaluator());
+	}
+	
+	/**
+	 * Creates a search using the given evaluation.
+	 * @param evaluator scores the leaves of the search
+	 */
+	public ReversiSearch(ReversiEvaluator evaluator) {
+		setEvaluator(evaluator);
+	}
+	
+	/**
+	 * Returns the evaluation used at the leaves.
+	 * @return the evaluator
+	 */
+	public ReversiEvaluator getEvaluator() {
+		return this.evaluator;
+	}
+	
+	/**
+	 * Sets the evaluation used at the leaves.
+	 * @param evaluator the evaluator
+	 */
+	public void setEvaluator(ReversiEvaluator evaluator) {
+		this.evaluator = evaluator;
+		if(evaluator instanceof ReversiPatternEvaluator) {
+			this.patternEvaluator = (ReversiPatternEvaluator) evaluator;
+			this.patterns = new ReversiPatternIndexes();
+		} else {
+			this.patternEvaluator = null;
+			this.patterns = null;
+		}
+	}
+	
+	/**
+	 * Returns the transposition table shared by successive searches.
+	 * @return the table, or null if results are not cached
+	 */
+	public ReversiTranspositionTable getTranspositionTable() {
+		return this.table;
+	}
+	
+	/**
+	 * Sets the transposition table shared by successive searches.
+	 * @param table the table, or null to search without one
+	 */
+	public void setTranspositionTable(ReversiTranspositionTable table) {
+		this.table = table;
+	}
+	
+	@Override
+	public ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		if(this.table != null) {
+			this.table.newSearch();
+		}
+		return iterate(position, limits, 0);
+	}
+	
+	@Override
+	public void stop() {
+		this.stopped = true;
+	}
+	
+	@Override
+	public void resetStop() {
+		this.stopped = false;
+	}
+	
+	@Override
+	public void newGame() {
+		if(this.table != null) {
+			this.table.clear();
+		}
+	}
+	
+	/**
+	 * Returns true if the last search was stopped by a limit or by stop() before it reached
+	 * its full depth.
+	 * @return true if the last search was cut short
+	 */
+	public boolean wasAborted() {
+		return this.aborted;
+	}
+	
+	/**
+	 * Returns the number of transposition table lookups in the last search.
+	 * @return lookups by this search alone
+	 */
+	public long getProbes() {
+		return this.probes;
+	}
+	
+	/**
+	 * Returns the number of lookups in the last search that found their position.
+	 * @return hits by this search alone
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+	
+	/**
+	 * Returns the number of results the last search offered the table, including those
+	 * the replacement policy turned away.
+	 * @return stores by this search alone
+	 */
+	public long getStores() {
+		return this.stores;
+	}
+	
+	/**
+	 * Searches one ply deeper at a time until the depth, time or node limit is reached or the
+	 * search is stopped. Every finished iteration leaves its best move in the table, where
+	 * the next iteration tries it first.
+	 * @param position the position to search
+	 * @param limits depth, time and node limits
+	 * @param offset plies added to every iteration, used to spread out parallel helpers
+	 * @return the result of the deepest finished iteration, or the best move found so far
+	 * in the unfinished one
+	 */
+	ReversiSearchResult iterate(ReversiPosition position, ReversiSearchLimits limits, int offset) {
+		this.nodes = 0;
+		this.probes = 0;
+		this.hits = 0;
+		this.stores = 0;
+		this.aborted = false;
+		this.deadline = (limits.getTimeMillis() > 0) ? System.nanoTime() + limits.getTimeMillis() * 1000000L : Long.MAX_VALUE;
+		this.maxNodes = (limits.getNodes() > 0) ? limits.getNodes() : Long.MAX_VALUE;
+		
+		long player = position.getPlayer();
+		long opponent = position.getOpponent();
+		long moves = ReversiBitboard.legalMoves(player, opponent);
+		if(moves == 0) {
+			return new ReversiSearchResult(ReversiSearchResult.PASS, 0, 0, 0);
+		}
+		if(this.patterns != null) {
+			this.patterns.set(position.getBlack(), position.getWhite());
+		}
+		long hash = ReversiZobrist.hash(position);
+		int color = (position.getToMove() == 'B') ? ReversiZobrist.BLACK : ReversiZobrist.WHITE;
+		int empties = position.getEmpties();
+		
+		// Stays a legal move even if the first iteration is stopped before any root move is done.
+		ReversiSearchResult best = new ReversiSearchResult(Long.numberOfTrailingZeros(moves), 0, 0, 0);
+		this.rootMove = best.getMove();
+		for(int depth = 1 + offset; depth <= limits.getDepth() + offset; depth++) {
+			this.rootScore = -INFINITY;
+			int score = negamax(player, opponent, depth, -INFINITY, INFINITY, hash, color, 0);
+			if(this.aborted) {
+				if(this.rootScore > -INFINITY) {
+					best = new ReversiSearchResult(this.rootMove, this.rootScore, best.getDepth(), this.nodes);
+				}
+				break;
+			}
+			best = new ReversiSearchResult(this.rootMove, score, depth, this.nodes);
+			if(depth >= empties) {
+				// The whole game fits in this depth, so the score is exact.
+				break;
+			}
+		}
+		return new ReversiSearchResult(best.getMove(), best.getScore(), best.getDepth(), this.nodes);
+	}
+	
+	/**
+	 * Scores a position with alpha-beta pruning. The best move at the root is kept in rootMove
+	 * as soon as it is known, so a stopped search still has a move to play.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param depth plies left to search
+	 * @param alpha score the side to move is already guaranteed
+	 * @param beta score the opponent is already guaranteed
+	 * @param hash Zobrist hash of the position
+	 * @param color ReversiZobrist color of the side to move
+	 * @param ply plies from the root, counting passes
+	 * @return the score for the side to move
+	 */
+	private int negamax(long player, long opponent, int depth, int alpha, int beta, long hash, int color, int ply) {
+		if((++this.nodes & POLL_MASK) == 0 
+				&& (this.stopped || this.nodes >= this.maxNodes || System.nanoTime() >= this.deadline)) {
+			this.aborted = true;
+		}
+		if(this.aborted) {
+			return 0;
+		}
+		long moves = ReversiBitboard.legalMoves(player, opponent);
+		if(moves == 0) {
+			if(ReversiBitboard.legalMoves(opponent, player) == 0) {
+				return finalScore(player, opponent);
+			}
+			return -negamax(opponent, player, depth, -beta, -alpha, hash ^ ReversiZobrist.pass(), color ^ 1, ply + 1);
+		}
+		char mover = (color == ReversiZobrist.BLACK) ? 'B' : 'W';
+		if(depth <= 0) {
+			if(this.patterns != null) {
+				return this.patternEvaluator.evaluate(this.patterns, mover);
+			}
+			return this.evaluator.evaluate(player, opponent);
+		}
+		
+		long hashMove = 0;
+		if(this.table != null) {
+			long entry = this.table.probe(hash);
+			this.probes++;
+			if(entry != 0) {
+				this.hits++;
+				int move = ReversiTranspositionTable.move(entry);
+				if(move != ReversiSearchResult.PASS) {
+					hashMove = moves & (1L << move);
+				}
+				if(ply > 0 && ReversiTranspositionTable.depth(entry) >= depth) {
+					int score = ReversiTranspositionTable.score(entry);
+					int bound = ReversiTranspositionTable.bound(entry);
+					if(bound == ReversiTranspositionTable.EXACT
+							|| (bound == ReversiTranspositionTable.LOWER && score >= beta)
+							|| (bound == ReversiTranspositionTable.UPPER && score <= alpha)) {
+						return score;
+					}
+				}
+			}
+		}
+		
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestMove = ReversiSearchResult.PASS;
+		// The move stored in the table is tried first, then the rest by square weight.
+		search:
+		for(int group = -1; group < ORDER.length; group++) {
+			long ordered = (group < 0) ? hashMove : moves & ORDER[group] & ~hashMove;
+			while(ordered != 0) {
+				int square = Long.numberOfTrailingZeros(ordered);
+				ordered &= ordered - 1;
+				long flips = ReversiBitboard.flips(player, opponent, square);
+				if(this.patterns != null) {
+					this.patterns.make(square, flips, mover);
+				}
+				int score = -negamax(opponent ^ flips, player | flips | (1L << square), depth - 1, -beta, -alpha,
+						hash ^ ReversiZobrist.move(color, square, flips), color ^ 1, ply + 1);
+				if(this.patterns != null) {
+					this.patterns.unmake(square, flips, mover);
+				}
+				if(this.aborted) {
+					return 0;
+				}
+				if(score > best) {
+					best = score;
+					bestMove = square;
+					if(ply == 0) {
+						this.rootMove = square;
+						this.rootScore = score;
+					}
+					if(score > alpha) {
+						alpha = score;
+						if(alpha >= beta) {
+							break search;
+						}
+					}
+				}
+			}
+		}
+		
+		if(this.table != null) {
+			int bound = (best <= originalAlpha) ? ReversiTranspositionTable.UPPER
+					: (best >= beta) ? ReversiTranspositionTable.LOWER : ReversiTranspositionTable.EXACT;
+			this.table.store(hash, best, depth, bound, bestMove);
+			this.stores++;
+		}
+		return best;
+	}
+	
+	/**
+	 * Scores a finished game for the side to move.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return WIN_SCORE plus the disc difference for a win, minus it for a loss, 0 for a tie
+	 */
+	public static int finalScore(long player, long opponent) {
+		int difference = Long.bitCount(player) - Long.bitCount(opponent);
+		if(difference > 0) {
+			return WIN_SCORE + difference;
+		} else if(difference < 0) {
+			return -WIN_SCORE + difference;
+		}
+		return 0;
+	}
+	
+}
@@ -0,0 +1,89 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiSearchLimits.java
+ * 
+ * Tells the search how far it may look before it has to return a move. The search deepens
+ * one ply at a time and stops at whichever of the depth, time and node limits comes first.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiSearchLimits {
+	
+	/** Deeper than any game can last, for searches bounded only by time or nodes. */
+	public static final int MAX_DEPTH = 64;
+	
+	private int depth;
+	private long timeMillis;
+	private long nodes;
+	
+	/**
+	 * Creates limits for a fixed-depth search.
+	 * @param depth number of plies to search, at least 1
+	 */
+	public ReversiSearchLimits(int depth) {
+		setDepth(depth);
+	}
+	
+	/**
+	 * Creates limits for a search that deepens until it runs out of time.
+	 * @param timeMillis wall-clock budget for the move
+	 * @return limits with no depth limit
+	 */
+	public static ReversiSearchLimits time(long timeMillis) {
+		ReversiSearchLimits limits = new ReversiSearchLimits(MAX_DEPTH);
+		limits.setTimeMillis(timeMillis);
+		return limits;
+	}
+	
+	/**
+	 * Sets the number of plies to search.
+	 * @param depth number of plies, values below 1 are raised to 1
+	 */
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+	}
+	
+	/**
+	 * Returns the number of plies to search.
+	 * @return the search depth
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * Sets the wall-clock budget. The search returns the best move found so far once it is spent.
+	 * @param timeMillis milliseconds, or 0 for no time limit
+	 */
+	public void setTimeMillis(long timeMillis) {
+		this.timeMillis = Math.max(0, timeMillis);
+	}
+	
+	/**
+	 * Returns the wall-clock budget.
+	 * @return milliseconds, or 0 for no time limit
+	 */
+	public long getTimeMillis() {
+		return this.timeMillis;
+	}
+	
+	/**
+	 * Sets the node budget. The search returns the best move found so far once it is spent.
+	 * @param nodes positions to visit, or 0 for no node limit
+	 */
+	public void setNodes(long nodes) {
+		this.nodes = Math.max(0, nodes);
+	}
+	
+	/**
+	 * Returns the node budget.
+	 * @return positions to visit, or 0 for no node limit
+	 */
+	public long getNodes() {
+		return this.nodes;
+	}
+	
+}
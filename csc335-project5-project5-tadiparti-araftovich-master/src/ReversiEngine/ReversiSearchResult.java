@@ -0,0 +1,73 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiSearchResult.java
+ * 
+ * The move the search settled on, with its score and how much work it took.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiSearchResult {
+	
+	/** Move value used when the side to move has no legal move. */
+	public static final int PASS = -1;
+	
+	private final int move;
+	private final int score;
+	private final int depth;
+	private final long nodes;
+	
+	/**
+	 * Creates a search result.
+	 * @param move square of the best move, or PASS
+	 * @param score score of the move for the side to move
+	 * @param depth depth that was completed
+	 * @param nodes number of positions visited
+	 */
+	public ReversiSearchResult(int move, int score, int depth, long nodes) {
+		this.move = move;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+	}
+	
+	/**
+	 * Returns the best move.
+	 * @return the square index, or PASS
+	 */
+	public int getMove() {
+		return this.move;
+	}
+	
+	/**
+	 * Returns the score of the best move.
+	 * @return score for the side to move
+	 */
+	public int getScore() {
+		return this.score;
+	}
+	
+	/**
+	 * Returns the depth that was completed.
+	 * @return plies searched
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+	
+	/**
+	 * Returns the number of positions the search visited.
+	 * @return node count
+	 */
+	public long getNodes() {
+		return this.nodes;
+	}
+	
+	@Override
+	public String toString() {
+		return "move " + this.move + " score " + this.score + " depth " + this.depth + " nodes " + this.nodes;
+	}
+	
+}
@@ -0,0 +1,75 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiSpeedup.java
+ * 
+ * Measures how much faster the parallel search gets with more threads. Each thread count
+ * searches the same fixed set of midgame positions to the same depth with a fresh table,
+ * and the time is compared against one thread. The share of table lookups that hit shows
+ * how much of their work the threads find already done by the others.
+ * 
+ * Usage: java ReversiEngine.ReversiSpeedup [depth] [threads...]
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiSpeedup {
+	
+	private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16};
+	private static final int DEFAULT_DEPTH = 10;
+	private static final int POSITIONS = 8;
+	private static final int TABLE_MEGABYTES = 64;
+	
+	public static void main(String[] args) {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+		int[] threadCounts = DEFAULT_THREADS;
+		if(args.length > 1) {
+			threadCounts = new int[args.length - 1];
+			for(int i = 1; i < args.length; i++) {
+				threadCounts[i - 1] = Integer.parseInt(args[i]);
+			}
+		}
+		ReversiPosition[] positions = positions();
+		
+		System.out.println("threads\tms\tnodes\thits\tspeedup");
+		double baseline = 0;
+		for(int threads : threadCounts) {
+			ReversiParallelSearch search = new ReversiParallelSearch(threads, new ReversiWeightedEvaluator(),
+					new ReversiTranspositionTable(TABLE_MEGABYTES));
+			long nodes = 0;
+			long probes = 0;
+			long hits = 0;
+			long start = System.nanoTime();
+			for(ReversiPosition position : positions) {
+				nodes += search.findBestMove(position, new ReversiSearchLimits(depth)).getNodes();
+				probes += search.getProbes();
+				hits += search.getHits();
+			}
+			double millis = (System.nanoTime() - start) / 1e6;
+			search.shutdown();
+			if(baseline == 0) {
+				baseline = millis;
+			}
+			System.out.printf("%d\t%.0f\t%d\t%.1f%%\t%.2f%n", threads, millis, nodes, 100.0 * hits / Math.max(1, probes), baseline / millis);
+		}
+	}
+	
+	/**
+	 * Plays the opening with a shallow search to get a repeatable set of midgame positions.
+	 * @return positions 12 to 12 + POSITIONS plies into a game
+	 */
+	private static ReversiPosition[] positions() {
+		ReversiSearch search = new ReversiSearch();
+		ReversiPosition position = ReversiPosition.start();
+		ReversiPosition[] positions = new ReversiPosition[POSITIONS];
+		for(int ply = 0; ply < 12 + POSITIONS; ply++) {
+			if(ply >= 12) {
+				positions[ply - 12] = position;
+			}
+			position = position.play(search.findBestMove(position, new ReversiSearchLimits(2)).getMove());
+		}
+		return positions;
+	}
+	
+}
@@ -0,0 +1,123 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiSymmetry.java
+ * 
+ * The eight symmetries of the board (rotations and reflections) applied to whole masks.
+ * Symmetry s transposes the board if bit 2 of s is set, then flips it top to bottom if
+ * bit 1 is set, then left to right if bit 0 is set.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiSymmetry {
+	
+	public static final int COUNT = 8;
+	
+	private ReversiSymmetry() {
+	}
+	
+	/**
+	 * Applies a symmetry to a mask.
+	 * @param symmetry from 0 to 7
+	 * @param discs the mask
+	 * @return the transformed mask
+	 */
+	public static long transform(int symmetry, long discs) {
+		if((symmetry & 4) != 0) {
+			discs = transpose(discs);
+		}
+		if((symmetry & 2) != 0) {
+			discs = Long.reverseBytes(discs);
+		}
+		if((symmetry & 1) != 0) {
+			discs = mirror(discs);
+		}
+		return discs;
+	}
+	
+	/**
+	 * Undoes a symmetry on a mask.
+	 * @param symmetry from 0 to 7
+	 * @param discs a mask produced by transform
+	 * @return the original mask
+	 */
+	public static long inverse(int symmetry, long discs) {
+		if((symmetry & 1) != 0) {
+			discs = mirror(discs);
+		}
+		if((symmetry & 2) != 0) {
+			discs = Long.reverseBytes(discs);
+		}
+		if((symmetry & 4) != 0) {
+			discs = transpose(discs);
+		}
+		return discs;
+	}
+	
+	/**
+	 * Applies a symmetry to a square.
+	 * @param symmetry from 0 to 7
+	 * @param square the square index
+	 * @return the transformed square index
+	 */
+	public static int transformSquare(int symmetry, int square) {
+		return Long.numberOfTrailingZeros(transform(symmetry, 1L << square));
+	}
+	
+	/**
+	 * Undoes a symmetry on a square.
+	 * @param symmetry from 0 to 7
+	 * @param square a square produced by transformSquare
+	 * @return the original square index
+	 */
+	public static int inverseSquare(int symmetry, int square) {
+		return Long.numberOfTrailingZeros(inverse(symmetry, 1L << square));
+	}
+	
+	/**
+	 * Finds the symmetry that gives a position its smallest form, comparing the mover's
+	 * mask first and the opponent's second. All eight orientations of a position share it.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return the symmetry to apply to reach the canonical form
+	 */
+	public static int canonical(long player, long opponent) {
+		int best = 0;
+		long bestPlayer = player;
+		long bestOpponent = opponent;
+		for(int symmetry = 1; symmetry < COUNT; symmetry++) {
+			long p = transform(symmetry, player);
+			int compare = Long.compareUnsigned(p, bestPlayer);
+			if(compare < 0 || (compare == 0 && Long.compareUnsigned(transform(symmetry, opponent), bestOpponent) < 0)) {
+				best = symmetry;
+				bestPlayer = p;
+				bestOpponent = transform(symmetry, opponent);
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Flips a mask left to right.
+	 */
+	private static long mirror(long discs) {
+		discs = ((discs >>> 1) & 0x5555555555555555L) | ((discs & 0x5555555555555555L) << 1);
+		discs = ((discs >>> 2) & 0x3333333333333333L) | ((discs & 0x3333333333333333L) << 2);
+		return ((discs >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((discs & 0x0f0f0f0f0f0f0f0fL) << 4);
+	}
+	
+	/**
+	 * Flips a mask about the diagonal from square 0 to square 63.
+	 */
+	private static long transpose(long discs) {
+		long t = 0x0f0f0f0f00000000L & (discs ^ (discs << 28));
+		discs ^= t ^ (t >>> 28);
+		t = 0x3333000033330000L & (discs ^ (discs << 14));
+		discs ^= t ^ (t >>> 14);
+		t = 0x5500550055005500L & (discs ^ (discs << 7));
+		return discs ^ t ^ (t >>> 7);
+	}
+	
+}
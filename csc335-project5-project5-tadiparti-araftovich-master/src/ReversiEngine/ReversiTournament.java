@@ -0,0 +1,262 @@
+package ReversiEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File: ReversiTournament.java
+ * 
+ * Plays a match between two engines without a window, spread over all cores. Games come
+ * in pairs: both games of a pair start from the same randomly played opening, and the
+ * engines swap colors for the second game, so neither engine profits from a lucky opening.
+ * Every thread builds its own AIs and takes the next unplayed game until the match is done.
+ * Before every game the AIs forget the last one, transposition tables included, and their
+ * own random choices, such as between book moves, are reseeded from the match seed, so a
+ * match between engines limited by depth or nodes plays out the same way for the same seed
+ * on any number of threads. Time limits depend on the machine's load and are not repeatable.
+ * 
+ * Usage: java ReversiEngine.ReversiTournament [-games N] [-threads N] [-random N] [-seed S]
+ *        [-records file] engine1 engine2
+ * 
+ * Engines are given as ReversiEngineConfig specs, such as "depth=6" or "ms=50,endgame=14".
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiTournament {
+	
+	public static final int DEFAULT_GAMES = 1000;
+	public static final int DEFAULT_RANDOM_PLIES = 8;
+	public static final long DEFAULT_SEED = 335;
+	
+	private final ReversiEngineConfig first;
+	private final ReversiEngineConfig second;
+	private int games = DEFAULT_GAMES;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int randomPlies = DEFAULT_RANDOM_PLIES;
+	private long seed = DEFAULT_SEED;
+	private ReversiGameRecord[] records = new ReversiGameRecord[0];
+	
+	/**
+	 * Creates a match.
+	 * @param first the engine results are reported for
+	 * @param second its opponent
+	 */
+	public ReversiTournament(ReversiEngineConfig first, ReversiEngineConfig second) {
+		this.first = first;
+		this.second = second;
+	}
+	
+	/**
+	 * Sets the number of games, rounded up to a whole number of pairs.
+	 * @param games games to play
+	 */
+	public void setGames(int games) {
+		this.games = Math.max(2, games + (games & 1));
+	}
+	
+	/**
+	 * Sets the number of games played at once.
+	 * @param threads number of threads, at least 1
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Sets how many plies of each opening are played at random before the engines take over.
+	 * @param randomPlies random plies, 0 to play every game from the starting position
+	 */
+	public void setRandomPlies(int randomPlies) {
+		this.randomPlies = Math.max(0, randomPlies);
+	}
+	
+	/**
+	 * Sets the seed the openings are drawn from, so a match can be played again.
+	 * @param seed the random seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Returns the records of the games of the last match, in game order.
+	 * @return one record per game
+	 */
+	public ReversiGameRecord[] getRecords() {
+		return this.records.clone();
+	}
+	
+	/**
+	 * Plays the match.
+	 * @return the totals from the first engine's point of view
+	 */
+	public ReversiTournamentResult run() {
+		ReversiGameRecord[] played = new ReversiGameRecord[this.games];
+		AtomicInteger next = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(this.threads);
+		long start = System.nanoTime();
+		try {
+			ForkJoinTask<?>[] workers = new ForkJoinTask<?>[this.threads];
+			for(int i = 0; i < this.threads; i++) {
+				workers[i] = pool.submit(() -> {
+					Random firstRandom = new Random();
+					Random secondRandom = new Random();
+					ReversiAI firstAI = this.first.newAI(firstRandom);
+					ReversiAI secondAI = this.second.newAI(secondRandom);
+					for(int game = next.getAndIncrement(); game < played.length; game = next.getAndIncrement()) {
+						firstRandom.setSeed(gameSeed(game, 1));
+						secondRandom.setSeed(gameSeed(game, 2));
+						firstAI.newGame();
+						secondAI.newGame();
+						played[game] = play(game, firstAI, secondAI);
+					}
+				});
+			}
+			for(ForkJoinTask<?> worker : workers) {
+				worker.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		this.records = played;
+		
+		int wins = 0;
+		int draws = 0;
+		int losses = 0;
+		for(ReversiGameRecord record : played) {
+			char firstColor = ((record.getGame() & 1) == 0) ? 'B' : 'W';
+			char winner = record.getWinner();
+			if(winner == 0) {
+				draws++;
+			} else if(winner == firstColor) {
+				wins++;
+			} else {
+				losses++;
+			}
+		}
+		return new ReversiTournamentResult(this.first.getName(), this.second.getName(), wins, draws, losses, seconds);
+	}
+	
+	/**
+	 * Writes the records of the last match, one game per line.
+	 * @param file the record file, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeRecords(Path file) throws IOException {
+		try(BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("# game\tblack\twhite\tblack discs\twhite discs\tforfeit\tmoves");
+			writer.newLine();
+			for(ReversiGameRecord record : this.records) {
+				writer.write(record.toString());
+				writer.newLine();
+			}
+		}
+	}
+	
+	/**
+	 * Plays one game. The first engine has black in even games and white in odd games.
+	 * @param game index of the game in the match
+	 * @param firstAI the first engine's AI for this thread
+	 * @param secondAI the second engine's AI for this thread
+	 * @return the record of the game
+	 */
+	private ReversiGameRecord play(int game, ReversiAI firstAI, ReversiAI secondAI) {
+		boolean firstIsBlack = (game & 1) == 0;
+		ReversiEngineConfig black = firstIsBlack ? this.first : this.second;
+		ReversiEngineConfig white = firstIsBlack ? this.second : this.first;
+		ReversiAI blackAI = firstIsBlack ? firstAI : secondAI;
+		ReversiAI whiteAI = firstIsBlack ? secondAI : firstAI;
+		
+		// Both games of a pair draw the same opening.
+		Random random = new Random(gameSeed(game, 0));
+		ReversiPosition position = ReversiPosition.start();
+		int[] moves = new int[ReversiBitboard.SQUARES];
+		int count = 0;
+		char forfeit = 0;
+		while(!ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+			long legal = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+			if(legal == 0) {
+				position = position.play(ReversiSearchResult.PASS);
+				continue;
+			}
+			int move;
+			if(count < this.randomPlies) {
+				for(int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+					legal &= legal - 1;
+				}
+				move = Long.numberOfTrailingZeros(legal);
+			} else {
+				boolean blackToMove = position.getToMove() == 'B';
+				ReversiAI ai = blackToMove ? blackAI : whiteAI;
+				move = ai.findBestMove(position, (blackToMove ? black : white).getLimits()).getMove();
+				if(move < 0 || (legal & (1L << move)) == 0) {
+					forfeit = position.getToMove();
+					break;
+				}
+			}
+			moves[count++] = move;
+			position = position.play(move);
+		}
+		return new ReversiGameRecord(game, black.getName(), white.getName(), Arrays.copyOf(moves, count),
+				Long.bitCount(position.getBlack()), Long.bitCount(position.getWhite()), forfeit);
+	}
+	
+	/**
+	 * Returns the seed of one stream of random choices in a game: the opening, or one of
+	 * the engines' own. Both games of a pair get the same seeds.
+	 */
+	private long gameSeed(int game, int stream) {
+		return (this.seed * 0x9E3779B97F4A7C15L + game / 2) ^ (stream * 0xBF58476D1CE4E5B9L);
+	}
+	
+	public static void main(String[] args) throws IOException {
+		ReversiEngineConfig[] engines = new ReversiEngineConfig[2];
+		int engineCount = 0;
+		Path recordFile = null;
+		int games = DEFAULT_GAMES;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int randomPlies = DEFAULT_RANDOM_PLIES;
+		long seed = DEFAULT_SEED;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-games")) {
+				games = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-random")) {
+				randomPlies = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if(args[i].equals("-records")) {
+				recordFile = Paths.get(args[++i]);
+			} else if(engineCount < engines.length) {
+				engines[engineCount++] = ReversiEngineConfig.parse(args[i]);
+			}
+		}
+		if(engineCount < 2) {
+			System.err.println("Usage: java ReversiEngine.ReversiTournament [-games N] [-threads N] [-random N] [-seed S] [-records file] engine1 engine2");
+			System.exit(1);
+		}
+
+		ReversiTournament tournament = new ReversiTournament(engines[0], engines[1]);
+		tournament.setGames(games);
+		tournament.setThreads(threads);
+		tournament.setRandomPlies(randomPlies);
+		tournament.setSeed(seed);
+		System.out.println(tournament.run());
+		if(recordFile != null) {
+			tournament.writeRecords(recordFile);
+		}
+	}
+	
+}
@@ -0,0 +1,159 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiTournamentResult.java
+ * 
+ * The totals of a match between two engines, from the first engine's point of view, with
+ * 95% confidence intervals on its score and on the Elo difference that score implies.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiTournamentResult {
+	
+	/** Standard normal quantile for a two-sided 95% interval. */
+	private static final double Z_95 = 1.959964;
+	
+	private final String first;
+	private final String second;
+	private final int wins;
+	private final int draws;
+	private final int losses;
+	private final double seconds;
+	
+	/**
+	 * Creates the totals of a finished match.
+	 * @param first name of the first engine
+	 * @param second name of the second engine
+	 * @param wins games the first engine won
+	 * @param draws drawn games
+	 * @param losses games the first engine lost
+	 * @param seconds wall-clock time the match took
+	 */
+	public ReversiTournamentResult(String first, String second, int wins, int draws, int losses, double seconds) {
+		this.first = first;
+		this.second = second;
+		this.wins = wins;
+		this.draws = draws;
+		this.losses = losses;
+		this.seconds = seconds;
+	}
+	
+	/**
+	 * Returns the number of games played.
+	 * @return games played
+	 */
+	public int getGames() {
+		return this.wins + this.draws + this.losses;
+	}
+	
+	/**
+	 * Returns the games the first engine won.
+	 * @return win count
+	 */
+	public int getWins() {
+		return this.wins;
+	}
+	
+	/**
+	 * Returns the drawn games.
+	 * @return draw count
+	 */
+	public int getDraws() {
+		return this.draws;
+	}
+	
+	/**
+	 * Returns the games the first engine lost.
+	 * @return loss count
+	 */
+	public int getLosses() {
+		return this.losses;
+	}
+	
+	/**
+	 * Returns the wall-clock time the match took.
+	 * @return seconds
+	 */
+	public double getSeconds() {
+		return this.seconds;
+	}
+	
+	/**
+	 * Returns the games finished per second of wall-clock time.
+	 * @return the throughput of the match
+	 */
+	public double getGamesPerSecond() {
+		return (this.seconds > 0) ? getGames() / this.seconds : 0;
+	}
+	
+	/**
+	 * Returns the first engine's score, a win counting 1 and a draw one half.
+	 * @return the score as a fraction of the games, 0.5 if no game was played
+	 */
+	public double getScore() {
+		return (getGames() > 0) ? (this.wins + 0.5 * this.draws) / getGames() : 0.5;
+	}
+	
+	/**
+	 * Returns the half-width of the 95% confidence interval on the score, from the spread
+	 * of the game results.
+	 * @return the margin of error of getScore()
+	 */
+	public double getScoreMargin() {
+		int games = getGames();
+		if(games < 2) {
+			return 0.5;
+		}
+		double score = getScore();
+		double variance = (this.wins * (1 - score) * (1 - score) + this.draws * (0.5 - score) * (0.5 - score)
+				+ this.losses * score * score) / (games - 1);
+		return Z_95 * Math.sqrt(variance / games);
+	}
+	
+	/**
+	 * Returns the Elo difference the score implies, positive when the first engine is stronger.
+	 * @return Elo points
+	 */
+	public double getElo() {
+		return elo(getScore());
+	}
+	
+	/**
+	 * Returns the low end of the 95% confidence interval on the Elo difference.
+	 * @return Elo points
+	 */
+	public double getEloLow() {
+		return elo(getScore() - getScoreMargin());
+	}
+	
+	/**
+	 * Returns the high end of the 95% confidence interval on the Elo difference.
+	 * @return Elo points
+	 */
+	public double getEloHigh() {
+		return elo(getScore() + getScoreMargin());
+	}
+	
+	private static double elo(double score) {
+		if(score <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if(score >= 1) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return -400 * Math.log10(1 / score - 1);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%s vs %s: +%d =%d -%d of %d games%n"
+				+ "score %.1f%% +/- %.1f%%, Elo %+.0f [%+.0f, %+.0f]%n"
+				+ "%.1f s, %.1f games/s",
+				this.first, this.second, this.wins, this.draws, this.losses, getGames(),
+				100 * getScore(), 100 * getScoreMargin(), getElo(), getEloLow(), getEloHigh(),
+				this.seconds, getGamesPerSecond());
+	}
+	
+}
@@ -0,0 +1,201 @@
+package ReversiEngine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File: ReversiTrainingSet.java
+ *
+ * A file of training positions for ReversiPatternTrainer, read through memory maps so that
+ * a set far larger than the heap costs no more memory than the pages the operating system
+ * chooses to keep. Each record is a position from the side to move's point of view and the
+ * disc difference, for that side, at the end of the game it came from.
+ *
+ * Java maps at most 2 GB at a time, so a large file is mapped as several windows that each
+ * hold a whole number of records. Reads use absolute offsets and change no buffer state, so
+ * any number of threads can read one set at once.
+ *
+ * File layout, big-endian: a 16-byte header (MAGIC, VERSION, record count as a long)
+ * followed by RECORD_BYTES-byte records: the player's discs, the opponent's discs, the
+ * final disc difference as a signed byte and one unused byte.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiTrainingSet {
+
+	public static final int MAGIC = 0x52565053; // "RVPS"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 16;
+	public static final int RECORD_BYTES = 18;
+	/** Records in every window but the last. */
+	private static final long WINDOW_RECORDS = (1L << 30) / RECORD_BYTES;
+
+	private final MappedByteBuffer[] windows;
+	private final long size;
+
+	private ReversiTrainingSet(MappedByteBuffer[] windows, long size) {
+		this.windows = windows;
+		this.size = size;
+	}
+
+	/**
+	 * Maps a training set file.
+	 * @param file the file, as written by a Writer
+	 * @return the set
+	 * @throws IOException if the file cannot be read or is not a training set
+	 */
+	public static ReversiTrainingSet open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_BYTES) {
+				throw new IOException("Not a training set: " + file);
+			}
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			if(header.getInt(0) != MAGIC) {
+				throw new IOException("Not a training set: " + file);
+			}
+			if(header.getInt(4) != VERSION) {
+				throw new IOException("Unsupported training set version " + header.getInt(4) + ": " + file);
+			}
+			long size = header.getLong(8);
+			if(size < 0 || HEADER_BYTES + size * RECORD_BYTES > channel.size()) {
+				throw new IOException("Truncated training set: " + file);
+			}
+			MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + WINDOW_RECORDS - 1) / WINDOW_RECORDS)];
+			for(int window = 0; window < windows.length; window++) {
+				long first = window * WINDOW_RECORDS;
+				long records = Math.min(WINDOW_RECORDS, size - first);
+				windows[window] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+				windows[window].order(ByteOrder.BIG_ENDIAN);
+			}
+			return new ReversiTrainingSet(windows, size);
+		}
+	}
+
+	/**
+	 * Returns the number of positions in the set.
+	 * @return record count
+	 */
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the discs of the side to move in one position.
+	 * @param record the position, from 0 to size() - 1
+	 * @return mask of the player's discs
+	 */
+	public long getPlayer(long record) {
+		return window(record).getLong(offset(record));
+	}
+
+	/**
+	 * Returns the discs of the side not to move in one position.
+	 * @param record the position
+	 * @return mask of the opponent's discs
+	 */
+	public long getOpponent(long record) {
+		return window(record).getLong(offset(record) + 8);
+	}
+
+	/**
+	 * Returns how the game of a position ended for the side to move.
+	 * @param record the position
+	 * @return the player's discs minus the opponent's at the end of the game
+	 */
+	public int getScore(long record) {
+		return window(record).get(offset(record) + 16);
+	}
+
+	private MappedByteBuffer window(long record) {
+		return this.windows[(int) (record / WINDOW_RECORDS)];
+	}
+
+	private static int offset(long record) {
+		return (int) (record % WINDOW_RECORDS) * RECORD_BYTES;
+	}
+
+	/**
+	 * Writes a training set one position at a time. Records go out through a small buffer
+	 * and the count is filled into the header on close, so a set of any size can be written
+	 * without holding it.
+	 */
+	public static class Writer implements Closeable {
+
+		private static final int BUFFER_RECORDS = 4096;
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_BYTES);
+		private long size;
+
+		/**
+		 * Creates a training set file.
+		 * @param file the file, replaced if it exists
+		 * @throws IOException if the file cannot be created
+		 */
+		public Writer(Path file) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.channel.position(HEADER_BYTES);
+		}
+
+		/**
+		 * Adds a position.
+		 * @param player discs of the side to move
+		 * @param opponent discs of the other side
+		 * @param score the player's discs minus the opponent's at the end of the game
+		 * @throws IOException if the file cannot be written
+		 */
+		public void add(long player, long opponent, int score) throws IOException {
+			if(!this.buffer.hasRemaining()) {
+				flush();
+			}
+			this.buffer.putLong(player);
+			this.buffer.putLong(opponent);
+			this.buffer.put((byte) score);
+			this.buffer.put((byte) 0);
+			this.size++;
+		}
+
+		/**
+		 * Returns the number of positions added so far.
+		 * @return record count
+		 */
+		public long size() {
+			return this.size;
+		}
+
+		private void flush() throws IOException {
+			this.buffer.flip();
+			while(this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		/**
+		 * Writes what is left and the header, and closes the file.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+				header.putInt(MAGIC).putInt(VERSION).putLong(this.size).flip();
+				while(header.hasRemaining()) {
+					this.channel.write(header, header.position());
+				}
+			} finally {
+				this.channel.close();
+			}
+		}
+
+	}
+
+}
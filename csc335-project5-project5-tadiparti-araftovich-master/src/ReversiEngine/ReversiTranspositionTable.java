@@ -0,0 +1,228 @@
+package ReversiEngine;
+
+import java.util.Arrays;
+
+/**
+ * File: ReversiTranspositionTable.java
+ *
+ * Fixed-size hash table of search results, so a position reached through different move
+ * orders is only searched once. Entries live in two parallel long arrays: one holds the
+ * packed score, depth, bound, best move and generation, the other holds the hash xor'ed
+ * with that data so that a torn write is seen as a miss instead of a wrong entry.
+ *
+ * Searches on several threads share one table and nothing in it is locked, so it keeps no
+ * counters of its own; each ReversiSearch counts its own lookups.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiTranspositionTable {
+
+	/** The stored score is exact. */
+	public static final int EXACT = 0;
+	/** The real score is at least the stored score. */
+	public static final int LOWER = 1;
+	/** The real score is at most the stored score. */
+	public static final int UPPER = 2;
+
+	/** Bytes used by one entry. */
+	public static final int ENTRY_BYTES = 16;
+
+	/**
+	 * Decides whether a new result may overwrite the entry already in its slot.
+	 */
+	public enum Replacement {
+		/** Always overwrite. */
+		ALWAYS,
+		/** Keep the deeper result. */
+		DEPTH,
+		/** Keep the deeper result, but results from older searches can always be overwritten. */
+		GENERATION_AND_DEPTH
+	}
+
+	// Layout of an entry: score in bits 0-31, depth 32-39, bound 40-41, move+1 42-48,
+	// generation 49-56 and a used flag in bit 63 so an empty slot is never zero-data.
+	private static final int DEPTH_SHIFT = 32;
+	private static final int BOUND_SHIFT = 40;
+	private static final int MOVE_SHIFT = 42;
+	private static final int GENERATION_SHIFT = 49;
+	private static final long USED = 1L << 63;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	private Replacement replacement;
+	private int generation;
+
+	/**
+	 * Creates a table that keeps deeper and newer results.
+	 * @param megabytes memory to use, rounded down to a power of two number of entries
+	 */
+	public ReversiTranspositionTable(int megabytes) {
+		this(megabytes, Replacement.GENERATION_AND_DEPTH);
+	}
+
+	/**
+	 * Creates a table.
+	 * @param megabytes memory to use, rounded down to a power of two number of entries
+	 * @param replacement the replacement policy
+	 */
+	public ReversiTranspositionTable(int megabytes, Replacement replacement) {
+		long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+		int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+		this.keys = new long[size];
+		this.data = new long[size];
+		this.mask = size - 1;
+		this.replacement = replacement;
+	}
+
+	/**
+	 * Sets the replacement policy.
+	 * @param replacement the replacement policy
+	 */
+	public void setReplacement(Replacement replacement) {
+		this.replacement = replacement;
+	}
+
+	/**
+	 * Starts a new search, which ages every entry stored so far.
+	 */
+	public void newSearch() {
+		this.generation = (this.generation + 1) & 0xff;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.data, 0);
+		this.generation = 0;
+	}
+
+	/**
+	 * Looks a position up.
+	 * @param hash the Zobrist hash of the position
+	 * @return the packed entry, or 0 if the position is not stored
+	 */
+	public long probe(long hash) {
+		int index = (int) hash & this.mask;
+		long entry = this.data[index];
+		if((this.keys[index] ^ entry) == hash && entry != 0) {
+			return entry;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores a search result, subject to the replacement policy.
+	 * @param hash the Zobrist hash of the position
+	 * @param score the score found
+	 * @param depth the depth it was searched to
+	 * @param bound EXACT, LOWER or UPPER
+	 * @param move the best move, or ReversiSearchResult.PASS if there is none
+	 */
+	public void store(long hash, int score, int depth, int bound, int move) {
+		int index = (int) hash & this.mask;
+		long old = this.data[index];
+		if(old != 0 && (this.keys[index] ^ old) != hash) {
+			switch(this.replacement) {
+			case DEPTH:
+				if(depth < depth(old)) {
+					return;
+				}
+				break;
+			case GENERATION_AND_DEPTH:
+				if(generation(old) == this.generation && depth < depth(old)) {
+					return;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		long entry = (score & 0xffffffffL)
+				| ((long) Math.min(depth, 0xff) << DEPTH_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| ((long) (move + 1) << MOVE_SHIFT)
+				| ((long) this.generation << GENERATION_SHIFT)
+				| USED;
+		this.data[index] = entry;
+		this.keys[index] = hash ^ entry;
+	}
+
+	/**
+	 * Returns the score of an entry.
+	 * @param entry a packed entry from probe
+	 * @return the stored score
+	 */
+	public static int score(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * Returns the depth of an entry.
+	 * @param entry a packed entry from probe
+	 * @return the depth the score was searched to
+	 */
+	public static int depth(long entry) {
+		return (int) (entry >>> DEPTH_SHIFT) & 0xff;
+	}
+
+	/**
+	 * Returns the bound of an entry.
+	 * @param entry a packed entry from probe
+	 * @return EXACT, LOWER or UPPER
+	 */
+	public static int bound(long entry) {
+		return (int) (entry >>> BOUND_SHIFT) & 0x3;
+	}
+
+	/**
+	 * Returns the best move of an entry.
+	 * @param entry a packed entry from probe
+	 * @return the square of the best move, or ReversiSearchResult.PASS
+	 */
+	public static int move(long entry) {
+		return (int) ((entry >>> MOVE_SHIFT) & 0x7f) - 1;
+	}
+
+	/**
+	 * Returns the generation of an entry.
+	 * @param entry a packed entry from probe
+	 * @return the search the entry was stored in
+	 */
+	public static int generation(long entry) {
+		return (int) (entry >>> GENERATION_SHIFT) & 0xff;
+	}
+
+	/**
+	 * Returns the number of entries the table can hold.
+	 * @return the table size
+	 */
+	public int getSize() {
+		return this.data.length;
+	}
+
+	/**
+	 * Returns the share of slots in use. Counts every slot, so it is meant for reports
+	 * between searches rather than for the search itself.
+	 * @return a fill rate from 0 to 1
+	 */
+	public double getFillRate() {
+		long used = 0;
+		for(long entry : this.data) {
+			if(entry != 0) {
+				used++;
+			}
+		}
+		return (double) used / this.data.length;
+	}
+
+	@Override
+	public String toString() {
+		return "size " + getSize() + " fill " + String.format("%.1f%%", 100 * getFillRate());
+	}
+
+}
@@ -0,0 +1,71 @@
+package ReversiEngine;
+
+import java.util.Arrays;
+
+/**
+ * File: ReversiWeightedEvaluator.java
+ * 
+ * Default evaluation: a weight per square plus a bonus for mobility. Squares with the
+ * same weight are grouped into one mask so that scoring is a handful of bit counts.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiWeightedEvaluator implements ReversiEvaluator {
+	
+	private static final int[] SQUARE_WEIGHTS = {
+		100, -20,  10,   5,   5,  10, -20, 100,
+		-20, -50,  -2,  -2,  -2,  -2, -50, -20,
+		 10,  -2,  -1,  -1,  -1,  -1,  -2,  10,
+		  5,  -2,  -1,  -1,  -1,  -1,  -2,   5,
+		  5,  -2,  -1,  -1,  -1,  -1,  -2,   5,
+		 10,  -2,  -1,  -1,  -1,  -1,  -2,  10,
+		-20, -50,  -2,  -2,  -2,  -2, -50, -20,
+		100, -20,  10,   5,   5,  10, -20, 100,
+	};
+	
+	private static final int MOBILITY_WEIGHT = 10;
+	
+	private static final long[] GROUP_MASKS;
+	private static final int[] GROUP_WEIGHTS;
+	
+	static {
+		int[] weights = new int[ReversiBitboard.SQUARES];
+		long[] masks = new long[ReversiBitboard.SQUARES];
+		int groups = 0;
+		for(int square = 0; square < ReversiBitboard.SQUARES; square++) {
+			int group = 0;
+			while(group < groups && weights[group] != SQUARE_WEIGHTS[square]) {
+				group++;
+			}
+			if(group == groups) {
+				weights[groups++] = SQUARE_WEIGHTS[square];
+			}
+			masks[group] |= 1L << square;
+		}
+		GROUP_MASKS = Arrays.copyOf(masks, groups);
+		GROUP_WEIGHTS = Arrays.copyOf(weights, groups);
+	}
+	
+	/**
+	 * Returns the weight of a single square.
+	 * @param square the square index
+	 * @return its positional weight
+	 */
+	public static int squareWeight(int square) {
+		return SQUARE_WEIGHTS[square];
+	}
+	
+	@Override
+	public int evaluate(long player, long opponent) {
+		int score = 0;
+		for(int group = 0; group < GROUP_MASKS.length; group++) {
+			score += GROUP_WEIGHTS[group] * (Long.bitCount(player & GROUP_MASKS[group]) - Long.bitCount(opponent & GROUP_MASKS[group]));
+		}
+		int mobility = Long.bitCount(ReversiBitboard.legalMoves(player, opponent)) 
+				- Long.bitCount(ReversiBitboard.legalMoves(opponent, player));
+		return score + MOBILITY_WEIGHT * mobility;
+	}
+	
+}
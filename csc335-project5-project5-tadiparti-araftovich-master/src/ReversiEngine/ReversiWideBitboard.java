@@ -0,0 +1,356 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiWideBitboard.java
+ *
+ * Rule core for boards of any even size from 4x4 to 16x16. A color's discs are a set of
+ * 64-bit words, square (row * cols + col) being bit square % 64 of word square / 64, so an
+ * 8x8 board is one word laid out exactly as in ReversiBitboard and a 16x16 board is four.
+ *
+ * Legal moves are generated the way ReversiBitboard does it, with shifts and masks instead
+ * of walking the board: a shift by one square east, south, south-east or south-west moves
+ * every bit of the set at once, carrying between words, and runs that go sideways only pass
+ * through opponent discs off the edge columns. The work is a fixed number of word
+ * operations for a given size, with no branches on the contents of the board.
+ *
+ * An instance keeps scratch words for the runs, so it must not be shared between threads;
+ * give every search or model its own.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiWideBitboard {
+
+	public static final int MIN_SIZE = 4;
+	public static final int MAX_SIZE = 16;
+
+	private final int rows;
+	private final int cols;
+	private final int squares;
+	private final int words;
+	/** Every square of the board; the bits past the last square are clear. */
+	private final long[] board;
+	/** Every square except those in the first and last column. */
+	private final long[] innerCols;
+	private final long[] empty;
+	private final long[] inner;
+	private final long[] run;
+	private final long[] scratch;
+
+	/**
+	 * Creates the rules for a board.
+	 * @param rows the number of rows, even, from MIN_SIZE to MAX_SIZE
+	 * @param cols the number of columns, even, from MIN_SIZE to MAX_SIZE
+	 * @throws IllegalArgumentException if the board has no center four squares to start on
+	 */
+	public ReversiWideBitboard(int rows, int cols) {
+		if(rows < MIN_SIZE || rows > MAX_SIZE || rows % 2 != 0 || cols < MIN_SIZE || cols > MAX_SIZE || cols % 2 != 0) {
+			throw new IllegalArgumentException("Boards are even sizes from " + MIN_SIZE + " to " + MAX_SIZE + ", not " + rows + "x" + cols);
+		}
+		this.rows = rows;
+		this.cols = cols;
+		this.squares = rows * cols;
+		this.words = (this.squares + 63) / 64;
+		this.board = new long[this.words];
+		this.innerCols = new long[this.words];
+		this.empty = new long[this.words];
+		this.inner = new long[this.words];
+		this.run = new long[this.words];
+		this.scratch = new long[this.words];
+		for(int square = 0; square < this.squares; square++) {
+			set(this.board, square);
+			int col = square % cols;
+			if(col != 0 && col != cols - 1) {
+				set(this.innerCols, square);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of rows.
+	 * @return the height of the board
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * @return the width of the board
+	 */
+	public int getCols() {
+		return this.cols;
+	}
+
+	/**
+	 * Returns the number of squares.
+	 * @return rows times columns
+	 */
+	public int getSquares() {
+		return this.squares;
+	}
+
+	/**
+	 * Returns the number of words in a set of squares.
+	 * @return the length of the arrays this board works on
+	 */
+	public int getWords() {
+		return this.words;
+	}
+
+	/**
+	 * Creates an empty set of squares for this board.
+	 * @return a cleared array of getWords() words
+	 */
+	public long[] newSet() {
+		return new long[this.words];
+	}
+
+	/**
+	 * Returns the square index of a board coordinate.
+	 * @param row the row of the square
+	 * @param col the column of the square
+	 * @return the square index from 0 to getSquares() - 1
+	 */
+	public int index(int row, int col) {
+		return row * this.cols + col;
+	}
+
+	/**
+	 * Names a square the way recorded games do, column letter then row number.
+	 * @param square the square index, or a negative number for a pass
+	 * @return a name such as "f5" or "p16", or "pass"
+	 */
+	public String squareName(int square) {
+		if(square < 0) {
+			return "pass";
+		}
+		return "" + (char) ('a' + square % this.cols) + (square / this.cols + 1);
+	}
+
+	/**
+	 * Sets two sets to the four-disc starting position: the center four squares, with
+	 * black on the diagonal that runs up to the right, as on the 8x8 board.
+	 * @param black cleared and given black's starting discs
+	 * @param white cleared and given white's starting discs
+	 */
+	public void start(long[] black, long[] white) {
+		clear(black);
+		clear(white);
+		int row = this.rows / 2 - 1;
+		int col = this.cols / 2 - 1;
+		set(black, index(row, col + 1));
+		set(black, index(row + 1, col));
+		set(white, index(row, col));
+		set(white, index(row + 1, col + 1));
+	}
+
+	/**
+	 * Returns true if a square is in a set.
+	 * @param set the set
+	 * @param square the square index
+	 * @return true if the bit of the square is set
+	 */
+	public static boolean isSet(long[] set, int square) {
+		return (set[square >>> 6] & (1L << square)) != 0;
+	}
+
+	/**
+	 * Adds a square to a set.
+	 * @param set the set
+	 * @param square the square index
+	 */
+	public static void set(long[] set, int square) {
+		set[square >>> 6] |= 1L << square;
+	}
+
+	/**
+	 * Removes a square from a set.
+	 * @param set the set
+	 * @param square the square index
+	 */
+	public static void clear(long[] set, int square) {
+		set[square >>> 6] &= ~(1L << square);
+	}
+
+	/**
+	 * Removes every square from a set.
+	 * @param set the set
+	 */
+	public static void clear(long[] set) {
+		for(int word = 0; word < set.length; word++) {
+			set[word] = 0;
+		}
+	}
+
+	/**
+	 * Counts the squares of a set.
+	 * @param set the set
+	 * @return the number of bits set
+	 */
+	public static int count(long[] set) {
+		int count = 0;
+		for(int word = 0; word < set.length; word++) {
+			count += Long.bitCount(set[word]);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if a set has no squares.
+	 * @param set the set
+	 * @return true if every word is 0
+	 */
+	public static boolean isEmpty(long[] set) {
+		long any = 0;
+		for(int word = 0; word < set.length; word++) {
+			any |= set[word];
+		}
+		return any == 0;
+	}
+
+	/**
+	 * Computes every square the player may play on.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param moves set to the legal moves
+	 * @return true if there is at least one legal move, false if the player has to pass
+	 */
+	public boolean legalMoves(long[] player, long[] opponent, long[] moves) {
+		for(int word = 0; word < this.words; word++) {
+			this.empty[word] = this.board[word] & ~(player[word] | opponent[word]);
+			this.inner[word] = opponent[word] & this.innerCols[word];
+			moves[word] = 0;
+		}
+		addMoves(player, this.inner, 1, moves);
+		addMoves(player, opponent, this.cols, moves);
+		addMoves(player, this.inner, this.cols - 1, moves);
+		addMoves(player, this.inner, this.cols + 1, moves);
+		return !isEmpty(moves);
+	}
+
+	/**
+	 * Returns true if the player has a square to play.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return true if there is at least one legal move
+	 */
+	public boolean hasLegalMove(long[] player, long[] opponent) {
+		return legalMoves(player, opponent, this.scratch);
+	}
+
+	/**
+	 * Returns true if neither side has a legal move.
+	 * @param black black's discs
+	 * @param white white's discs
+	 * @return true if the game is finished
+	 */
+	public boolean isGameOver(long[] black, long[] white) {
+		return !hasLegalMove(black, white) && !hasLegalMove(white, black);
+	}
+
+	/**
+	 * Adds the moves along one line, in both of its directions. A run of opponent discs
+	 * starts next to a player disc and grows one square per step; it is at most as long as
+	 * the board is wide or high less the two end squares. The shifts are done in place,
+	 * highest word first for shifts towards higher squares, so that every word still reads
+	 * the old value of the word it carries from.
+	 * @param player discs of the side to move
+	 * @param through the opponent discs a run may pass through in this line
+	 * @param shift how many squares apart neighbours on the line are
+	 * @param moves the legal moves found so far
+	 */
+	private void addMoves(long[] player, long[] through, int shift, long[] moves) {
+		long[] run = this.run;
+		int last = this.words - 1;
+		int back = 64 - shift;
+		int steps = Math.max(this.rows, this.cols) - 3;
+
+		// Towards higher squares.
+		for(int word = last; word > 0; word--) {
+			run[word] = ((player[word] << shift) | (player[word - 1] >>> back)) & through[word];
+		}
+		run[0] = (player[0] << shift) & through[0];
+		for(int step = 0; step < steps; step++) {
+			for(int word = last; word > 0; word--) {
+				run[word] |= ((run[word] << shift) | (run[word - 1] >>> back)) & through[word];
+			}
+			run[0] |= (run[0] << shift) & through[0];
+		}
+		for(int word = last; word > 0; word--) {
+			moves[word] |= ((run[word] << shift) | (run[word - 1] >>> back)) & this.empty[word];
+		}
+		moves[0] |= (run[0] << shift) & this.empty[0];
+
+		// Towards lower squares.
+		for(int word = 0; word < last; word++) {
+			run[word] = ((player[word] >>> shift) | (player[word + 1] << back)) & through[word];
+		}
+		run[last] = (player[last] >>> shift) & through[last];
+		for(int step = 0; step < steps; step++) {
+			for(int word = 0; word < last; word++) {
+				run[word] |= ((run[word] >>> shift) | (run[word + 1] << back)) & through[word];
+			}
+			run[last] |= (run[last] >>> shift) & through[last];
+		}
+		for(int word = 0; word < last; word++) {
+			moves[word] |= ((run[word] >>> shift) | (run[word + 1] << back)) & this.empty[word];
+		}
+		moves[last] |= (run[last] >>> shift) & this.empty[last];
+	}
+
+	/**
+	 * Computes the discs that are turned over when the player moves on a square. Only one
+	 * square is looked at, so each of the eight lines from it is walked rather than shifted.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square index of the square being played
+	 * @param flipped set to the flipped discs
+	 * @return the number of flipped discs, 0 if the move is illegal
+	 */
+	public int flips(long[] player, long[] opponent, int square, long[] flipped) {
+		clear(flipped);
+		if(isSet(player, square) || isSet(opponent, square)) {
+			return 0;
+		}
+		int row = square / this.cols;
+		int col = square % this.cols;
+		int count = 0;
+		for(int dRow = -1; dRow <= 1; dRow++) {
+			for(int dCol = -1; dCol <= 1; dCol++) {
+				if(dRow == 0 && dCol == 0) {
+					continue;
+				}
+				int r = row + dRow;
+				int c = col + dCol;
+				int length = 0;
+				while(r >= 0 && r < this.rows && c >= 0 && c < this.cols && isSet(opponent, index(r, c))) {
+					r += dRow;
+					c += dCol;
+					length++;
+				}
+				if(length == 0 || r < 0 || r >= this.rows || c < 0 || c >= this.cols || !isSet(player, index(r, c))) {
+					continue;
+				}
+				for(int i = 1; i <= length; i++) {
+					set(flipped, index(row + i * dRow, col + i * dCol));
+				}
+				count += length;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the player may play on a square.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @param square index of the square being played
+	 * @return true if the move turns over at least one disc
+	 */
+	public boolean isLegal(long[] player, long[] opponent, int square) {
+		return flips(player, opponent, square, this.scratch) != 0;
+	}
+
+}
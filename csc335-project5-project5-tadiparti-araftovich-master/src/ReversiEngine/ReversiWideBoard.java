@@ -0,0 +1,230 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiWideBoard.java
+ *
+ * ReversiMoveStack for boards of any size: a mutable position on a ReversiWideBitboard with
+ * the moves that led to it. The flipped discs of every move are kept in one preallocated
+ * array of words, so make() and unmake() do not allocate and a search can play and take
+ * back moves in place. The line of moves is kept by ReversiMoveHistory, as for 8x8.
+ *
+ * The board is not safe to share between threads; a search works on a copy of its own.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiWideBoard extends ReversiMoveHistory {
+
+	private final ReversiWideBitboard rules;
+	private final int words;
+	private final long[] flips;
+	private final long[] black;
+	private final long[] white;
+	/** Flipped discs of the move being worked out, until storeFlips() saves them. */
+	private final long[] flipped;
+
+	/**
+	 * Creates a board at the starting position.
+	 * @param rows the number of rows, even, from 4 to 16
+	 * @param cols the number of columns, even, from 4 to 16
+	 * @param capacity the most plies, passes included, the board can hold
+	 * @throws IllegalArgumentException if ReversiWideBitboard does not support the size
+	 */
+	public ReversiWideBoard(int rows, int cols, int capacity) {
+		super(capacity);
+		this.rules = new ReversiWideBitboard(rows, cols);
+		this.words = this.rules.getWords();
+		this.flips = new long[capacity * this.words];
+		this.black = this.rules.newSet();
+		this.white = this.rules.newSet();
+		this.flipped = this.rules.newSet();
+		this.rules.start(this.black, this.white);
+	}
+
+	/**
+	 * Creates a board at the starting position that can hold any game: every pass is
+	 * followed by a move, and every square but the first four is played once.
+	 * @param rows the number of rows, even, from 4 to 16
+	 * @param cols the number of columns, even, from 4 to 16
+	 */
+	public ReversiWideBoard(int rows, int cols) {
+		this(rows, cols, 2 * (rows * cols - 4));
+	}
+
+	/**
+	 * Creates a board at another board's position, with no moves behind it.
+	 * @param other the board to copy
+	 */
+	public ReversiWideBoard(ReversiWideBoard other) {
+		this(other.getRows(), other.getCols());
+		reset(other.black, other.white, other.getToMove());
+	}
+
+	/**
+	 * Clears every move and sets the position.
+	 * @param black the black discs, copied
+	 * @param white the white discs, copied
+	 * @param toMove the color whose turn it is, 'B' or 'W'
+	 */
+	public void reset(long[] black, long[] white, char toMove) {
+		System.arraycopy(black, 0, this.black, 0, this.words);
+		System.arraycopy(white, 0, this.white, 0, this.words);
+		clearMoves(toMove);
+	}
+
+	/**
+	 * Clears every move and sets the starting position with black to move.
+	 */
+	public void reset() {
+		this.rules.start(this.black, this.white);
+		clearMoves('B');
+	}
+
+	/**
+	 * Puts a color on a square directly, or empties it, and clears every move.
+	 * @param square the square index
+	 * @param color 'B' or 'W', or 0 to empty the square
+	 */
+	public void setColor(int square, char color) {
+		ReversiWideBitboard.clear(this.black, square);
+		ReversiWideBitboard.clear(this.white, square);
+		if(color == 'B') {
+			ReversiWideBitboard.set(this.black, square);
+		} else if(color == 'W') {
+			ReversiWideBitboard.set(this.white, square);
+		}
+		clearMoves(getToMove());
+	}
+
+	/**
+	 * Plays a move for the side to move.
+	 * @param square the square, or ReversiSearchResult.PASS
+	 * @return the number of flipped discs; 0 for a pass, or for an illegal move, which is
+	 * not played
+	 */
+	public int make(int square) {
+		return make(square, getToMove());
+	}
+
+	/**
+	 * Plays a move for a given color, whether or not it is that color's turn. The other
+	 * color is to move afterwards.
+	 * @param square the square, or ReversiSearchResult.PASS
+	 * @param mover the color playing it, 'B' or 'W'
+	 * @return the number of flipped discs; 0 for a pass, or for an illegal move, which is
+	 * not played
+	 * @throws IllegalStateException if the board's history is full
+	 */
+	public int make(int square, char mover) {
+		int count = 0;
+		if(square != ReversiSearchResult.PASS) {
+			if(square < 0 || square >= this.rules.getSquares()) {
+				return 0;
+			}
+			count = (mover == 'B') ? this.rules.flips(this.black, this.white, square, this.flipped)
+					: this.rules.flips(this.white, this.black, square, this.flipped);
+			if(count == 0) {
+				return 0;
+			}
+		} else {
+			ReversiWideBitboard.clear(this.flipped);
+		}
+		push(square, mover);
+		return count;
+	}
+
+	/**
+	 * Returns the rules of this board's size.
+	 * @return the bitboard the board plays on
+	 */
+	public ReversiWideBitboard getRules() {
+		return this.rules;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 * @return the height of the board
+	 */
+	public int getRows() {
+		return this.rules.getRows();
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * @return the width of the board
+	 */
+	public int getCols() {
+		return this.rules.getCols();
+	}
+
+	/**
+	 * Returns the discs of one color. The array is the board's own and changes as moves are
+	 * made; it must not be written to.
+	 * @param color 'B' or 'W'
+	 * @return the set of that color's discs
+	 */
+	public long[] getDiscs(char color) {
+		return (color == 'B') ? this.black : this.white;
+	}
+
+	/**
+	 * Returns the color on a square.
+	 * @param square the square index
+	 * @return 'B', 'W', or 0 if the square is empty
+	 */
+	public char getColor(int square) {
+		if(ReversiWideBitboard.isSet(this.black, square)) {
+			return 'B';
+		} else if(ReversiWideBitboard.isSet(this.white, square)) {
+			return 'W';
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of discs of one color.
+	 * @param color 'B' or 'W'
+	 * @return the disc count
+	 */
+	public int count(char color) {
+		return ReversiWideBitboard.count(getDiscs(color));
+	}
+
+	/**
+	 * Computes every square a color may play.
+	 * @param color 'B' or 'W'
+	 * @param moves set to the legal moves
+	 * @return true if the color has at least one legal move
+	 */
+	public boolean legalMoves(char color, long[] moves) {
+		return (color == 'B') ? this.rules.legalMoves(this.black, this.white, moves)
+				: this.rules.legalMoves(this.white, this.black, moves);
+	}
+
+	/**
+	 * Returns true if neither color has a legal move.
+	 * @return true if the game is finished
+	 */
+	public boolean isGameOver() {
+		return this.rules.isGameOver(this.black, this.white);
+	}
+
+	@Override
+	protected void storeFlips(int ply) {
+		System.arraycopy(this.flipped, 0, this.flips, ply * this.words, this.words);
+	}
+
+	@Override
+	protected void apply(int square, int ply, char mover) {
+		long[] own = (mover == 'B') ? this.black : this.white;
+		long[] other = (mover == 'B') ? this.white : this.black;
+		int offset = ply * this.words;
+		for(int word = 0; word < this.words; word++) {
+			own[word] ^= this.flips[offset + word];
+			other[word] ^= this.flips[offset + word];
+		}
+		own[square >>> 6] ^= 1L << square;
+	}
+
+}
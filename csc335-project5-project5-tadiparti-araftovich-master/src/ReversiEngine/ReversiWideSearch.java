@@ -0,0 +1,290 @@
+package ReversiEngine;
+
+/**
+ * File: ReversiWideSearch.java
+ *
+ * Negamax search with alpha-beta pruning for boards of any size. It plays and takes back
+ * moves on a ReversiWideBoard of its own, deepening one ply at a time like ReversiSearch,
+ * and scores the leaves by square weights and mobility. The weights follow the usual shape
+ * of the 8x8 table at every size: corners are worth most, the squares next to an open
+ * corner least, and edges more than the middle.
+ *
+ * As a ReversiAI it searches 8x8 positions too, which is the same board one word wide.
+ *
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ *
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public class ReversiWideSearch implements ReversiAI {
+
+	private static final int CORNER = 100;
+	private static final int X_SQUARE = -50;
+	private static final int C_SQUARE = -20;
+	private static final int EDGE = 10;
+	private static final int MIDDLE = 1;
+	private static final int MOBILITY = 8;
+	/** The stop flag is read once every this many nodes plus one. */
+	private static final int POLL_MASK = 1023;
+
+	private ReversiWideBoard board;
+	private int[] weights;
+	/** Squares grouped by weight, best group first, for move ordering. */
+	private long[][] order;
+	/** One set of legal moves per ply, so that the search allocates nothing per node. */
+	private long[][] moves;
+	private long nodes;
+	private long maxNodes;
+	private long deadline;
+	private int rootMove;
+	private int rootScore;
+	private int bestRootMove;
+	private volatile boolean stopped;
+	private boolean aborted;
+
+	@Override
+	public ReversiSearchResult findBestMove(ReversiPosition position, ReversiSearchLimits limits) {
+		ReversiWideBoard wide = new ReversiWideBoard(ReversiBitboard.SIZE, ReversiBitboard.SIZE);
+		wide.reset(new long[] {position.getBlack()}, new long[] {position.getWhite()}, position.getToMove());
+		return findBestMove(wide, limits);
+	}
+
+	/**
+	 * Searches a position and returns the best move for the side to move.
+	 * @param position the position to search, which is copied and left unchanged
+	 * @param limits how far to search
+	 * @return the best move found as a square index, or PASS if there is no legal move
+	 */
+	public ReversiSearchResult findBestMove(ReversiWideBoard position, ReversiSearchLimits limits) {
+		prepare(position);
+		this.nodes = 0;
+		this.aborted = false;
+		this.deadline = (limits.getTimeMillis() > 0) ? System.nanoTime() + limits.getTimeMillis() * 1000000L : Long.MAX_VALUE;
+		this.maxNodes = (limits.getNodes() > 0) ? limits.getNodes() : Long.MAX_VALUE;
+
+		if(!this.board.legalMoves(this.board.getToMove(), this.moves[0])) {
+			return new ReversiSearchResult(ReversiSearchResult.PASS, 0, 0, 0);
+		}
+		int empties = this.board.getRules().getSquares() - this.board.count('B') - this.board.count('W');
+
+		// Stays a legal move even if the first iteration is stopped before any root move is done.
+		ReversiSearchResult best = new ReversiSearchResult(firstSquare(this.moves[0]), 0, 0, 0);
+		this.bestRootMove = best.getMove();
+		for(int depth = 1; depth <= limits.getDepth(); depth++) {
+			this.rootMove = this.bestRootMove;
+			this.rootScore = -ReversiSearch.INFINITY;
+			int score = negamax(depth, -ReversiSearch.INFINITY, ReversiSearch.INFINITY, 0);
+			if(this.aborted) {
+				if(this.rootScore > -ReversiSearch.INFINITY) {
+					best = new ReversiSearchResult(this.rootMove, this.rootScore, best.getDepth(), this.nodes);
+				}
+				break;
+			}
+			best = new ReversiSearchResult(this.rootMove, score, depth, this.nodes);
+			this.bestRootMove = this.rootMove;
+			if(depth >= empties) {
+				// The whole game fits in this depth, so the score is exact.
+				break;
+			}
+		}
+		return new ReversiSearchResult(best.getMove(), best.getScore(), best.getDepth(), this.nodes);
+	}
+
+	@Override
+	public void stop() {
+		this.stopped = true;
+	}
+
+	@Override
+	public void resetStop() {
+		this.stopped = false;
+	}
+
+	@Override
+	public void newGame() {
+		// Nothing outlives a search but tables that depend only on the board size.
+	}
+
+	/**
+	 * Copies the position to search and, when the size changed since the last search,
+	 * builds the tables for the new size.
+	 */
+	private void prepare(ReversiWideBoard position) {
+		ReversiWideBitboard rules = position.getRules();
+		if(this.board == null || this.board.getRows() != position.getRows() || this.board.getCols() != position.getCols()) {
+			this.weights = squareWeights(position.getRows(), position.getCols());
+			this.order = orderGroups(rules, this.weights);
+			this.moves = new long[2 * ReversiSearchLimits.MAX_DEPTH + 2][rules.getWords()];
+		}
+		this.board = new ReversiWideBoard(position);
+	}
+
+	/**
+	 * Scores the board with alpha-beta pruning. The moves are played on the board and taken
+	 * back before returning. The best move at the root is kept in rootMove as soon as it is
+	 * known, so a stopped search still has a move to play.
+	 * @param depth plies left to search
+	 * @param alpha score the side to move is already guaranteed
+	 * @param beta score the opponent is already guaranteed
+	 * @param ply plies from the root, counting passes
+	 * @return the score for the side to move
+	 */
+	private int negamax(int depth, int alpha, int beta, int ply) {
+		if((++this.nodes & POLL_MASK) == 0
+				&& (this.stopped || this.nodes >= this.maxNodes || System.nanoTime() >= this.deadline)) {
+			this.aborted = true;
+		}
+		if(this.aborted) {
+			return 0;
+		}
+		char player = this.board.getToMove();
+		char opponent = (player == 'B') ? 'W' : 'B';
+		long[] moves = this.moves[ply];
+		if(!this.board.legalMoves(player, moves)) {
+			if(!this.board.legalMoves(opponent, this.moves[ply + 1])) {
+				return finalScore(this.board.count(player) - this.board.count(opponent));
+			}
+			this.board.make(ReversiSearchResult.PASS);
+			int score = -negamax(depth, -beta, -alpha, ply + 1);
+			this.board.unmake();
+			return score;
+		}
+		if(depth <= 0) {
+			return evaluate(player, opponent, moves, this.moves[ply + 1]);
+		}
+
+		int best = -ReversiSearch.INFINITY;
+		// At the root the best move of the last iteration is tried first, then the rest by square weight.
+		int first = (ply == 0) ? this.bestRootMove : ReversiSearchResult.PASS;
+		for(int group = -1; group < this.order.length; group++) {
+			for(int word = 0; word < moves.length; word++) {
+				long ordered = (group < 0) ? 0 : moves[word] & this.order[group][word];
+				if(group < 0 && first != ReversiSearchResult.PASS && (first >>> 6) == word) {
+					ordered = 1L << first;
+				} else if(first != ReversiSearchResult.PASS && (first >>> 6) == word) {
+					ordered &= ~(1L << first);
+				}
+				while(ordered != 0) {
+					int square = (word << 6) + Long.numberOfTrailingZeros(ordered);
+					ordered &= ordered - 1;
+					this.board.make(square);
+					int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+					this.board.unmake();
+					if(this.aborted) {
+						return 0;
+					}
+					if(score > best) {
+						best = score;
+						if(ply == 0) {
+							this.rootMove = square;
+							this.rootScore = score;
+						}
+						if(score > alpha) {
+							alpha = score;
+							if(alpha >= beta) {
+								return best;
+							}
+						}
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Scores a position that is not finished for the side to move.
+	 * @param player the side to move
+	 * @param opponent the other side
+	 * @param playerMoves the legal moves of the side to move
+	 * @param opponentMoves scratch for the other side's legal moves
+	 * @return weighted squares and mobility of the side to move less those of the other side
+	 */
+	private int evaluate(char player, char opponent, long[] playerMoves, long[] opponentMoves) {
+		this.board.legalMoves(opponent, opponentMoves);
+		int mobility = ReversiWideBitboard.count(playerMoves) - ReversiWideBitboard.count(opponentMoves);
+		return weigh(this.board.getDiscs(player)) - weigh(this.board.getDiscs(opponent)) + MOBILITY * mobility;
+	}
+
+	private int weigh(long[] discs) {
+		int total = 0;
+		for(int word = 0; word < discs.length; word++) {
+			long bits = discs[word];
+			while(bits != 0) {
+				total += this.weights[(word << 6) + Long.numberOfTrailingZeros(bits)];
+				bits &= bits - 1;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Scores a finished game the way ReversiSearch.finalScore() does.
+	 * @param difference the side to move's discs less the other side's
+	 * @return WIN_SCORE plus the difference for a win, minus it for a loss, 0 for a tie
+	 */
+	private static int finalScore(int difference) {
+		if(difference > 0) {
+			return ReversiSearch.WIN_SCORE + difference;
+		} else if(difference < 0) {
+			return -ReversiSearch.WIN_SCORE + difference;
+		}
+		return 0;
+	}
+
+	private static int firstSquare(long[] set) {
+		for(int word = 0; word < set.length; word++) {
+			if(set[word] != 0) {
+				return (word << 6) + Long.numberOfTrailingZeros(set[word]);
+			}
+		}
+		return ReversiSearchResult.PASS;
+	}
+
+	/**
+	 * Builds the square weights of a board size.
+	 * @param rows the number of rows
+	 * @param cols the number of columns
+	 * @return the weight of every square, indexed by row * cols + col
+	 */
+	static int[] squareWeights(int rows, int cols) {
+		int[] weights = new int[rows * cols];
+		for(int row = 0; row < rows; row++) {
+			for(int col = 0; col < cols; col++) {
+				// Distance from the nearest edge in each direction.
+				int fromEdgeRow = Math.min(row, rows - 1 - row);
+				int fromEdgeCol = Math.min(col, cols - 1 - col);
+				int weight;
+				if(fromEdgeRow == 0 && fromEdgeCol == 0) {
+					weight = CORNER;
+				} else if(fromEdgeRow == 1 && fromEdgeCol == 1) {
+					weight = X_SQUARE;
+				} else if((fromEdgeRow == 0 && fromEdgeCol == 1) || (fromEdgeRow == 1 && fromEdgeCol == 0)) {
+					weight = C_SQUARE;
+				} else if(fromEdgeRow == 0 || fromEdgeCol == 0) {
+					weight = EDGE;
+				} else {
+					weight = MIDDLE;
+				}
+				weights[row * cols + col] = weight;
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * Groups the squares of a board by weight, best group first.
+	 */
+	private static long[][] orderGroups(ReversiWideBitboard rules, int[] weights) {
+		int[] levels = {CORNER, EDGE, MIDDLE, C_SQUARE, X_SQUARE};
+		long[][] groups = new long[levels.length][rules.getWords()];
+		for(int square = 0; square < weights.length; square++) {
+			for(int level = 0; level < levels.length; level++) {
+				if(weights[square] == levels[level]) {
+					ReversiWideBitboard.set(groups[level], square);
+				}
+			}
+		}
+		return groups;
+	}
+
+}
@@ -0,0 +1,109 @@
+package ReversiEngine;
+
+import java.util.Random;
+
+/**
+ * File: ReversiZobrist.java
+ * 
+ * Zobrist keys for hashing positions. A move changes the hash by the key of the placed
+ * disc and, for every flipped disc, the xor of its black and white keys, so the hash is
+ * updated incrementally when a move is made and restored by applying the same xor again.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiZobrist {
+	
+	/** Color index of black in the key tables. */
+	public static final int BLACK = 0;
+	/** Color index of white in the key tables. */
+	public static final int WHITE = 1;
+	
+	private static final long[][] DISC = new long[2][ReversiBitboard.SQUARES];
+	private static final long[] FLIP = new long[ReversiBitboard.SQUARES];
+	private static final long SIDE;
+	
+	static {
+		// Fixed seed so hashes are the same in every run and on every machine.
+		Random random = new Random(0x5EED0F0E11E7L);
+		for(int square = 0; square < ReversiBitboard.SQUARES; square++) {
+			DISC[BLACK][square] = random.nextLong();
+			DISC[WHITE][square] = random.nextLong();
+			FLIP[square] = DISC[BLACK][square] ^ DISC[WHITE][square];
+		}
+		SIDE = random.nextLong();
+	}
+	
+	private ReversiZobrist() {
+	}
+	
+	/**
+	 * Hashes a position from scratch.
+	 * @param black mask of the black discs
+	 * @param white mask of the white discs
+	 * @param toMove the color whose turn it is, 'B' or 'W'
+	 * @return the Zobrist hash
+	 */
+	public static long hash(long black, long white, char toMove) {
+		long hash = (toMove == 'W') ? SIDE : 0;
+		while(black != 0) {
+			hash ^= DISC[BLACK][Long.numberOfTrailingZeros(black)];
+			black &= black - 1;
+		}
+		while(white != 0) {
+			hash ^= DISC[WHITE][Long.numberOfTrailingZeros(white)];
+			white &= white - 1;
+		}
+		return hash;
+	}
+	
+	/**
+	 * Hashes a position from scratch.
+	 * @param position the position
+	 * @return the Zobrist hash
+	 */
+	public static long hash(ReversiPosition position) {
+		return hash(position.getBlack(), position.getWhite(), position.getToMove());
+	}
+	
+	/**
+	 * Hashes a position by its two masks relative to the side to move, for callers that do
+	 * not track colors. Not incremental, but needs no key tables.
+	 * @param player discs of the side to move
+	 * @param opponent discs of the other side
+	 * @return a 64-bit hash
+	 */
+	public static long mix(long player, long opponent) {
+		long hash = player * 0x9E3779B97F4A7C15L + opponent * 0xC2B2AE3D27D4EB4FL;
+		hash ^= hash >>> 29;
+		hash *= 0xBF58476D1CE4E5B9L;
+		return hash ^ (hash >>> 32);
+	}
+	
+	/**
+	 * Returns the value to xor into the hash when a color plays a move. The side to move
+	 * is switched as part of the move. Applying it a second time undoes the move.
+	 * @param color BLACK or WHITE, the color making the move
+	 * @param square the square played
+	 * @param flips mask of the discs turned over
+	 * @return the hash difference
+	 */
+	public static long move(int color, int square, long flips) {
+		long delta = DISC[color][square] ^ SIDE;
+		while(flips != 0) {
+			delta ^= FLIP[Long.numberOfTrailingZeros(flips)];
+			flips &= flips - 1;
+		}
+		return delta;
+	}
+	
+	/**
+	 * Returns the value to xor into the hash when the side to move passes.
+	 * @return the hash difference
+	 */
+	public static long pass() {
+		return SIDE;
+	}
+	
+}
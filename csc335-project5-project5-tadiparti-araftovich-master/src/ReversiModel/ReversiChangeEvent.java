@@ -0,0 +1,117 @@
+package ReversiModel;
+
+/**
+ * File: ReversiChangeEvent.java
+ * 
+ * Describes one change to the model. A move is a single event that carries the square
+ * played and every disc it turned over, so a listener can redraw a move at once instead of
+ * one disc at a time.
+ * 
+ * The masks name the squares of an 8x8 board. On boards of other sizes the changed mask
+ * is -1, meaning the whole board, the other masks are 0, and listeners read the discs from
+ * the model.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiChangeEvent {
+	
+	/**
+	 * What kind of change happened.
+	 */
+	public enum Type {
+		/** A disc was placed and the discs it outflanked were turned over. */
+		MOVE,
+		/** Discs were set directly, such as by a reset or a board from the network. */
+		BOARD,
+		/** Only the turn, the result or other game state changed; no disc moved. */
+		STATE
+	}
+	
+	private final Type type;
+	private final char player;
+	private final int square;
+	private final long flips;
+	private final long changed;
+	private final long black;
+	private final long white;
+	
+	/**
+	 * Creates an event.
+	 * @param type the kind of change
+	 * @param player the color that moved, or 0 if the change is not a move
+	 * @param square the square played, or -1 if the change is not a move
+	 * @param flips mask of the discs the move turned over, 0 if the change is not a move
+	 * @param changed mask of every square whose contents changed
+	 * @param black mask of the black discs after the change
+	 * @param white mask of the white discs after the change
+	 */
+	public ReversiChangeEvent(Type type, char player, int square, long flips, long changed, long black, long white) {
+		this.type = type;
+		this.player = player;
+		this.square = square;
+		this.flips = flips;
+		this.changed = changed;
+		this.black = black;
+		this.white = white;
+	}
+	
+	/**
+	 * Returns what kind of change happened.
+	 * @return the event type
+	 */
+	public Type getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Returns the color that moved.
+	 * @return 'B' or 'W', or 0 if the change is not a move
+	 */
+	public char getPlayer() {
+		return this.player;
+	}
+	
+	/**
+	 * Returns the square that was played.
+	 * @return the square index, or -1 if the change is not a move
+	 */
+	public int getSquare() {
+		return this.square;
+	}
+	
+	/**
+	 * Returns the discs the move turned over.
+	 * @return mask of flipped discs, 0 if the change is not a move
+	 */
+	public long getFlips() {
+		return this.flips;
+	}
+	
+	/**
+	 * Returns every square whose contents changed, which for a move is the square played
+	 * and its flips.
+	 * @return mask of changed squares
+	 */
+	public long getChanged() {
+		return this.changed;
+	}
+	
+	/**
+	 * Returns the black discs after the change.
+	 * @return mask of the black discs
+	 */
+	public long getBlack() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the white discs after the change.
+	 * @return mask of the white discs
+	 */
+	public long getWhite() {
+		return this.white;
+	}
+	
+}
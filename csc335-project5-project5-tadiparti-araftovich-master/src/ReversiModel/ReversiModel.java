@@ -1,47 +1,82 @@
 package ReversiModel;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import ReversiBoard.ReversiBoard;
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiMoveHistory;
+import ReversiEngine.ReversiMoveStack;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiWideBitboard;
+import ReversiEngine.ReversiWideBoard;
 
 /**
  * File: ReversiModel.java
  * 
  * This class encapsulates the methods that stores and interacts with the user's moves.
+ * Every change is announced to the listeners as one ReversiChangeEvent; a whole move,
+ * with all of its flips, is a single event.
+ * 
+ * The model keeps the legal moves of both colors up to date as the board changes, so
+ * asking whether a side can move, must pass, or whether the game is over costs nothing.
+ * 
+ * Moves are kept on a ReversiMoveStack, so they can be taken back and played again. Setting
+ * discs directly starts a new history from the resulting position.
+ * 
+ * The board may be any even size from 4x4 to 16x16. An 8x8 board is held in one long per
+ * color; any other size is a ReversiWideBoard, and the masks of its events name no squares
+ * (see ReversiChangeEvent).
  * 
  * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
  * 
  * @author Andrew Raftovich araftovich@email.arizona.edu
  */
-public class ReversiModel extends java.util.Observable{
+public class ReversiModel {
 	
 	private int col;
 	private int row;
-	private int whiteCount;
-	private int blackCount;
 	private char player;
 	private String gameWinner;
 	private String gameLoser;
 	private boolean isNetworkGame;
-	private char[][] tokens; 
-	private ReversiBoard myBoard;
+	private long blackDiscs;
+	private long whiteDiscs;
+	private long blackMoves;
+	private long whiteMoves;
+	private final ReversiMoveStack history = new ReversiMoveStack();
+	/** The board, history included, when it is not 8x8; null for an 8x8 board. */
+	private final ReversiWideBoard wide;
+	private long[] blackMoveWords;
+	private long[] whiteMoveWords;
+	private boolean blackCanMove;
+	private boolean whiteCanMove;
+	private final List<ReversiModelListener> listeners = new CopyOnWriteArrayList<>();
 	
 	/**
 	 * Initials the size of the board and the 4 starting tokens of every new game.
+	 * @param col the number of columns, even, from 4 to 16
+	 * @param row the number of rows, even, from 4 to 16
+	 * @throws IllegalArgumentException if the board cannot be played on
 	 * @author Benhur J. Tadiparti
 	 */
 	public ReversiModel(int col, int row) {
 		this.col = col;
 		this.row = row;
-		this.whiteCount = 2;
-		this.blackCount = 2;
+		if(col != ReversiBitboard.SIZE || row != ReversiBitboard.SIZE) {
+			this.wide = new ReversiWideBoard(row, col);
+			this.blackMoveWords = this.wide.getRules().newSet();
+			this.whiteMoveWords = this.wide.getRules().newSet();
+		} else {
+			this.wide = null;
+			this.blackDiscs = ReversiBitboard.startBlack();
+			this.whiteDiscs = ReversiBitboard.startWhite();
+		}
 		this.player = 'B';
 		this.gameWinner = "";
 		this.gameLoser = "";
-		tokens = new char[8][8];
-		this.tokens [3][3] = 'W';
-		this.tokens [4][4] = 'W';
-		this.tokens [3][4] = 'B';
-		this.tokens [4][3] = 'B';
-		myBoard = new ReversiBoard(this.tokens);
+		newHistory();
 	}
 	
 	/**
@@ -49,18 +84,38 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Andrew Raftovich
 	 */
 	public void resetBoard() {
-		this.tokens = new char[8][8];
-		this.whiteCount = 2;
-		this.blackCount = 2;
+		if(this.wide != null) {
+			this.player = 'B';
+			this.gameWinner = "";
+			this.wide.reset();
+			updateMoves();
+			fireBoard(-1L);
+			return;
+		}
+		long oldBlack = this.blackDiscs;
+		long oldWhite = this.whiteDiscs;
 		this.player = 'B';
 		this.gameWinner = "";
-		this.tokens [3][3] = 'W';
-		this.tokens [4][4] = 'W';
-		this.tokens [3][4] = 'B';
-		this.tokens [4][3] = 'B';
-		myBoard = new ReversiBoard(this.tokens);
-		setChanged();
-		notifyObservers(this);
+		this.blackDiscs = ReversiBitboard.startBlack();
+		this.whiteDiscs = ReversiBitboard.startWhite();
+		newHistory();
+		fireBoard(oldBlack, oldWhite);
+	}
+	
+	/**
+	 * Adds a listener that is told about every change of the model.
+	 * @param listener the listener to add
+	 */
+	public void addListener(ReversiModelListener listener) {
+		this.listeners.add(listener);
+	}
+	
+	/**
+	 * Removes a listener.
+	 * @param listener the listener to remove
+	 */
+	public void removeListener(ReversiModelListener listener) {
+		this.listeners.remove(listener);
 	}
 	
 	/**
@@ -87,38 +142,37 @@ public class ReversiModel extends java.util.Observable{
 		if(player == 'B' || player == 'W') {
 			this.player = player;
 		}
-		setChanged();
-		notifyObservers(this);
+		fireState();
 	}
 	
 	/**
-	 * Sets the tokens in the models 2d array onto the board.
+	 * Sets the tokens of a board object onto the model's board.
 	 * @param board - board object
 	 */
 	public void setBoard(ReversiBoard board) {
-		this.myBoard = board;
-		this.tokens = board.getBoard();
-		this.whiteCount = 0;
-		this.blackCount = 0;
-		for(int x = 0; x < col; x++) {
-			for(int y = 0; y < row; y++) {
-				if(this.tokens[x][y] == 'B') {
-					this.blackCount++;
-				} else if (this.tokens[x][y] == 'W') {
-					this.whiteCount++;
-				}
-			}
+		if(this.wide != null) {
+			this.wide.reset(board.getBlackWords(), board.getWhiteWords(), this.player);
+			updateMoves();
+			fireBoard(-1L);
+			return;
 		}
-		setChanged();
-		notifyObservers(this);
+		long oldBlack = this.blackDiscs;
+		long oldWhite = this.whiteDiscs;
+		this.blackDiscs = board.getBlack();
+		this.whiteDiscs = board.getWhite();
+		newHistory();
+		fireBoard(oldBlack, oldWhite);
 	}
 	
 	/**
-	 * Returns the board object.
+	 * Returns a snapshot of the board as a board object.
 	 * @return board object
 	 */
 	public ReversiBoard getBoard() {
-		return this.myBoard;
+		if(this.wide != null) {
+			return new ReversiBoard(this.row, this.col, getDiscWords('B'), getDiscWords('W'));
+		}
+		return new ReversiBoard(this.blackDiscs, this.whiteDiscs);
 	}
 	
 	/**
@@ -150,15 +204,27 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Andrew Raftovich
 	 */
 	public void setToken(int x, int y, char token) {
-		if(token == 'B' && this.tokens[y][x] == 0) {
-			this.tokens[y][x] = token;
-			this.blackCount++;
-		} else if (token == 'W' && this.tokens[y][x] == 0) {
-			this.tokens[y][x] = token;
-			this.whiteCount++;
+		if(this.wide != null) {
+			int square = this.wide.getRules().index(y, x);
+			if(this.wide.getColor(square) == 0) {
+				this.wide.setColor(square, token);
+			}
+			newHistory();
+			fireBoard(-1L);
+			return;
+		}
+		long oldBlack = this.blackDiscs;
+		long oldWhite = this.whiteDiscs;
+		long square = ReversiBitboard.mask(y, x);
+		if(((this.blackDiscs | this.whiteDiscs) & square) == 0) {
+			if(token == 'B') {
+				this.blackDiscs |= square;
+			} else if (token == 'W') {
+				this.whiteDiscs |= square;
+			}
 		}
-		setChanged();
-		notifyObservers(this);
+		newHistory();
+		fireBoard(oldBlack, oldWhite);
 	}
 	
 	/**
@@ -170,17 +236,158 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Andrew Raftovich
 	 */
 	public void flipToken(int x, int y) {
-		if(this.tokens[y][x] == 'W') {
-			this.tokens[y][x] = 'B';
-			this.whiteCount--;
-			this.blackCount++;
-		} else if (this.tokens[y][x] == 'B') {
-			this.tokens[y][x] = 'W';
-			this.blackCount--;
-			this.whiteCount++;
+		if(this.wide != null) {
+			int square = this.wide.getRules().index(y, x);
+			char color = this.wide.getColor(square);
+			if(color != 0) {
+				this.wide.setColor(square, (color == 'B') ? 'W' : 'B');
+			}
+			newHistory();
+			fireBoard(-1L);
+			return;
+		}
+		long square = ReversiBitboard.mask(y, x);
+		if(((this.blackDiscs | this.whiteDiscs) & square) != 0) {
+			this.blackDiscs ^= square;
+			this.whiteDiscs ^= square;
+		}
+		newHistory();
+		fireBoard(square & (this.blackDiscs | this.whiteDiscs));
+	}
+	
+	/**
+	 * Plays a move: places a token and turns over every token it outflanks, then tells the
+	 * listeners about the whole move at once. The move is added to the history, replacing
+	 * any moves that were taken back unless it is the one redo() would have played.
+	 * @param square index of the square being played
+	 * @param token color of the token being placed
+	 * @return the number of flipped tokens, 0 if the move is not legal and nothing changed
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public int applyMove(int square, char token) {
+		if(this.wide != null) {
+			int flips = this.wide.make(square, token);
+			if(flips == 0) {
+				return 0;
+			}
+			updateMoves();
+			fire(new ReversiChangeEvent(ReversiChangeEvent.Type.MOVE, token, square, 0, -1L, 0, 0));
+			return flips;
+		}
+		if(square < 0 || square >= ReversiBitboard.SQUARES) {
+			return 0;
+		}
+		long flips = this.history.make(square, token);
+		if(flips == 0) {
+			return 0;
+		}
+		long move = 1L << square;
+		this.blackDiscs = this.history.getBlack();
+		this.whiteDiscs = this.history.getWhite();
+		updateMoves();
+		ReversiChangeEvent event = new ReversiChangeEvent(ReversiChangeEvent.Type.MOVE, token, square, flips, 
+				flips | move, this.blackDiscs, this.whiteDiscs);
+		fire(event);
+		return Long.bitCount(flips);
+	}
+	
+	/**
+	 * Returns true if there is a move to take back.
+	 * @return true if undo() would change the board
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean canUndo() {
+		return line().canUndo();
+	}
+	
+	/**
+	 * Returns true if there is a move that was taken back to play again.
+	 * @return true if redo() would change the board
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean canRedo() {
+		return line().canRedo();
+	}
+	
+	/**
+	 * Takes back the last move. The color that played it is to move again.
+	 * @return true if a move was taken back
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean undo() {
+		if(!canUndo()) {
+			return false;
+		}
+		line().unmake();
+		historyMoved();
+		return true;
+	}
+	
+	/**
+	 * Plays the last move that was taken back again.
+	 * @return true if a move was played
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean redo() {
+		if(!canRedo()) {
+			return false;
+		}
+		line().redo();
+		historyMoved();
+		return true;
+	}
+	
+	/**
+	 * Moves along the history to a ply, taking moves back or playing them again, and tells
+	 * the listeners once.
+	 * @param ply number of moves from the start of the history, from 0 to getHistoryLength()
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public void goToPly(int ply) {
+		ply = Math.max(0, Math.min(ply, getHistoryLength()));
+		if(ply == getPly()) {
+			return;
+		}
+		while(getPly() > ply) {
+			line().unmake();
+		}
+		while(getPly() < ply) {
+			line().redo();
 		}
-		setChanged();
-		notifyObservers(this);
+		historyMoved();
+	}
+	
+	/**
+	 * Returns the history of the board in use, 8x8 or wide.
+	 */
+	private ReversiMoveHistory line() {
+		return (this.wide != null) ? this.wide : this.history;
+	}
+	
+	/**
+	 * Returns how many moves of the history are on the board.
+	 * @return the current ply
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public int getPly() {
+		return line().getPly();
+	}
+	
+	/**
+	 * Returns how many moves the history holds, counting ones taken back.
+	 * @return the length of the history
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public int getHistoryLength() {
+		return line().getLength();
 	}
 	
 	/**
@@ -192,17 +399,129 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Andrew Raftovich
 	 */
 	public char getPosition(int x, int y) {
-		return this.tokens[y][x];
+		if(this.wide != null) {
+			return this.wide.getColor(this.wide.getRules().index(y, x));
+		}
+		long square = ReversiBitboard.mask(y, x);
+		if((this.blackDiscs & square) != 0) {
+			return 'B';
+		} else if ((this.whiteDiscs & square) != 0) {
+			return 'W';
+		}
+		return 0;
 	}
 	
 	/**
-	 * Returns the TOKENS List.
-	 * @return every (x,y) coordinate of every token on the board
+	 * Returns every token of one color on an 8x8 board.
+	 * @param token the color of the tokens
+	 * @return mask of every square holding a token of that color
 	 * 
 	 * @author Benhur J. Tadiparti
 	 */
-	public char[][] getTokens() {
-		return this.tokens;
+	public long getDiscs(char token) {
+		return (token == 'B') ? this.blackDiscs : this.whiteDiscs;
+	}
+	
+	/**
+	 * Returns every token of one color on a board of any size.
+	 * @param token the color of the tokens
+	 * @return a copy of the tokens, one bit per square, square (row * cols + col) being bit
+	 * square % 64 of word square / 64
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public long[] getDiscWords(char token) {
+		if(this.wide != null) {
+			return Arrays.copyOf(this.wide.getDiscs(token), this.wide.getRules().getWords());
+		}
+		return new long[] {getDiscs(token)};
+	}
+	
+	/**
+	 * Returns every square a color may play on an 8x8 board.
+	 * @param token the color
+	 * @return mask of the legal squares
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public long getLegalMoves(char token) {
+		return (token == 'B') ? this.blackMoves : this.whiteMoves;
+	}
+	
+	/**
+	 * Returns true if a color may play on a square, on a board of any size.
+	 * @param y Row position of the square.
+	 * @param x Column position of the square.
+	 * @param token the color
+	 * @return true if the move is legal
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean isLegalMove(int y, int x, char token) {
+		if(y < 0 || y >= this.row || x < 0 || x >= this.col) {
+			return false;
+		}
+		if(this.wide != null) {
+			return ReversiWideBitboard.isSet((token == 'B') ? this.blackMoveWords : this.whiteMoveWords, this.wide.getRules().index(y, x));
+		}
+		return (getLegalMoves(token) & ReversiBitboard.mask(y, x)) != 0;
+	}
+	
+	/**
+	 * Returns true if a color has a square to play.
+	 * @param token the color
+	 * @return true if the color has at least one legal move
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean hasLegalMove(char token) {
+		if(this.wide != null) {
+			return (token == 'B') ? this.blackCanMove : this.whiteCanMove;
+		}
+		return getLegalMoves(token) != 0;
+	}
+	
+	/**
+	 * Returns true if a color has to pass: it cannot move, but the other color can.
+	 * @param token the color
+	 * @return true if the color must pass
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean mustPass(char token) {
+		return !hasLegalMove(token) && hasLegalMove((token == 'B') ? 'W' : 'B');
+	}
+	
+	/**
+	 * Returns true once neither color can move, which includes a full board.
+	 * @return true if the game is over
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public boolean isGameOver() {
+		return !hasLegalMove('B') && !hasLegalMove('W');
+	}
+	
+	/**
+	 * Returns a snapshot of an 8x8 game that the AI can search without changing the model.
+	 * @return the discs of both colors and whose turn it is
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public ReversiPosition getGamePosition() {
+		return new ReversiPosition(this.blackDiscs, this.whiteDiscs, this.player);
+	}
+	
+	/**
+	 * Returns a snapshot of the game on a board of any size, for ReversiWideSearch.
+	 * @return a board with the discs of both colors and whose turn it is, and no history
+	 * 
+	 * @author Benhur J. Tadiparti
+	 */
+	public ReversiWideBoard getWideGamePosition() {
+		ReversiWideBoard board = new ReversiWideBoard(this.row, this.col);
+		board.reset(getDiscWords('B'), getDiscWords('W'), this.player);
+		return board;
 	}
 	
 	/**
@@ -212,7 +531,10 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Benhur J. Tadiparti
 	 */
 	public int getWhite() {
-		return this.whiteCount;
+		if(this.wide != null) {
+			return this.wide.count('W');
+		}
+		return Long.bitCount(this.whiteDiscs);
 	}
 	
 	/**
@@ -222,15 +544,17 @@ public class ReversiModel extends java.util.Observable{
 	 * @author Benhur J. Tadiparti
 	 */
 	public int getBlack() {
-		return this.blackCount;
+		if(this.wide != null) {
+			return this.wide.count('B');
+		}
+		return Long.bitCount(this.blackDiscs);
 	}
 	
 	/**
-	 * Notifies the view that something has been changed.
+	 * Notifies the view that something has been changed, so it redraws every square.
 	 */
 	public void forceUpdate() {
-		setChanged();
-		notifyObservers(this);
+		fireBoard(-1L);
 	}
 	
 	/**
@@ -262,8 +586,7 @@ public class ReversiModel extends java.util.Observable{
 	 */
 	public void setWinner(String winner) {
 		this.gameWinner = winner;
-		setChanged();
-		notifyObservers(this);
+		fireState();
 	}
 	
 	/**
@@ -284,8 +607,7 @@ public class ReversiModel extends java.util.Observable{
 	 */
 	public void setLoser(String loser) {
 		this.gameLoser = loser;
-		setChanged();
-		notifyObservers(this);
+		fireState();
 	}
 	
 	/**
@@ -298,4 +620,81 @@ public class ReversiModel extends java.util.Observable{
 		return this.gameLoser;
 	}
 	
+	/**
+	 * Starts the history over from the current discs.
+	 */
+	private void newHistory() {
+		if(this.wide != null) {
+			this.wide.reset(this.wide.getDiscs('B'), this.wide.getDiscs('W'), this.player);
+			updateMoves();
+			return;
+		}
+		this.history.reset(this.blackDiscs, this.whiteDiscs, this.player);
+		updateMoves();
+	}
+	
+	/**
+	 * Takes the discs and the color to move from the history after undo or redo.
+	 */
+	private void historyMoved() {
+		if(this.wide != null) {
+			this.player = this.wide.getToMove();
+			updateMoves();
+			fireBoard(-1L);
+			return;
+		}
+		long oldBlack = this.blackDiscs;
+		long oldWhite = this.whiteDiscs;
+		this.blackDiscs = this.history.getBlack();
+		this.whiteDiscs = this.history.getWhite();
+		this.player = this.history.getToMove();
+		updateMoves();
+		fireBoard(oldBlack, oldWhite);
+	}
+	
+	/**
+	 * Brings the legal moves of both colors up to date after the discs changed. A move can
+	 * open or close lines anywhere on the board, so both sets are regenerated; with bitboards
+	 * that is a fixed number of shifts whatever the position.
+	 */
+	private void updateMoves() {
+		if(this.wide != null) {
+			this.blackCanMove = this.wide.legalMoves('B', this.blackMoveWords);
+			this.whiteCanMove = this.wide.legalMoves('W', this.whiteMoveWords);
+			return;
+		}
+		this.blackMoves = ReversiBitboard.legalMoves(this.blackDiscs, this.whiteDiscs);
+		this.whiteMoves = ReversiBitboard.legalMoves(this.whiteDiscs, this.blackDiscs);
+	}
+	
+	/**
+	 * Tells the listeners that discs were set directly.
+	 * @param oldBlack the black discs before the change
+	 * @param oldWhite the white discs before the change
+	 */
+	private void fireBoard(long oldBlack, long oldWhite) {
+		fireBoard((oldBlack ^ this.blackDiscs) | (oldWhite ^ this.whiteDiscs));
+	}
+	
+	/**
+	 * Tells the listeners that discs were set directly.
+	 * @param changed mask of the squares whose contents changed
+	 */
+	private void fireBoard(long changed) {
+		fire(new ReversiChangeEvent(ReversiChangeEvent.Type.BOARD, (char) 0, -1, 0, changed, this.blackDiscs, this.whiteDiscs));
+	}
+	
+	/**
+	 * Tells the listeners that the game state changed but no disc did.
+	 */
+	private void fireState() {
+		fire(new ReversiChangeEvent(ReversiChangeEvent.Type.STATE, (char) 0, -1, 0, 0, this.blackDiscs, this.whiteDiscs));
+	}
+	
+	private void fire(ReversiChangeEvent event) {
+		for(ReversiModelListener listener : this.listeners) {
+			listener.modelChanged(this, event);
+		}
+	}
+	
 }
\ No newline at end of file
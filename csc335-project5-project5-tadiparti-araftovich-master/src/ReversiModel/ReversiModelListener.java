@@ -0,0 +1,22 @@
+package ReversiModel;
+
+/**
+ * File: ReversiModelListener.java
+ * 
+ * Receives the changes of a ReversiModel. Listeners are called on the thread that changed
+ * the model, once per change.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public interface ReversiModelListener {
+	
+	/**
+	 * Called after the model has changed.
+	 * @param model the model that changed
+	 * @param event what changed
+	 */
+	void modelChanged(ReversiModel model, ReversiChangeEvent event);
+	
+}
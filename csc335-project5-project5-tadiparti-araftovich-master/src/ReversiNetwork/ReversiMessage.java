@@ -0,0 +1,186 @@
+package ReversiNetwork;
+
+/**
+ * File: ReversiMessage.java
+ * 
+ * One message of the network protocol. See ReversiProtocol for how each type is written.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiMessage {
+	
+	/** Opens a connection and names the protocol version. */
+	public static final int HELLO = 0;
+	/** A move, or a pass, with the number of the ply it is. */
+	public static final int MOVE = 1;
+	/** The whole position, sent to bring a peer that has lost track back in step. */
+	public static final int SYNC = 2;
+	/** Asks the peer for a SYNC. */
+	public static final int SYNC_REQUEST = 3;
+	/** Sent by a game server when it has found an opponent, with the color to play. */
+	public static final int START = 4;
+	/** Opens a spectator's connection to a game server, with the game to watch. */
+	public static final int WATCH = 5;
+	
+	/** Square value of a pass. */
+	public static final int PASS = -1;
+	
+	private final int type;
+	private final int sequence;
+	private final int square;
+	private final long black;
+	private final long white;
+	private final char toMove;
+	private final int game;
+	
+	private ReversiMessage(int type, int sequence, int square, long black, long white, char toMove) {
+		this(type, sequence, square, black, white, toMove, 0);
+	}
+	
+	private ReversiMessage(int type, int sequence, int square, long black, long white, char toMove, int game) {
+		this.type = type;
+		this.sequence = sequence;
+		this.square = square;
+		this.black = black;
+		this.white = white;
+		this.toMove = toMove;
+		this.game = game;
+	}
+	
+	/**
+	 * Creates the opening message of a connection.
+	 * @param version the protocol version the sender speaks
+	 * @return a HELLO message
+	 */
+	public static ReversiMessage hello(int version) {
+		return new ReversiMessage(HELLO, version, PASS, 0, 0, (char) 0);
+	}
+	
+	/**
+	 * Creates a move message.
+	 * @param sequence number of the ply, counted from 0 at the start of the game
+	 * @param square the square played, or PASS
+	 * @return a MOVE message
+	 */
+	public static ReversiMessage move(int sequence, int square) {
+		return new ReversiMessage(MOVE, sequence & 0xFFFF, square, 0, 0, (char) 0);
+	}
+	
+	/**
+	 * Creates a position message.
+	 * @param sequence number of plies played to reach the position
+	 * @param black mask of the black discs
+	 * @param white mask of the white discs
+	 * @param toMove the color to move, 'B' or 'W'
+	 * @return a SYNC message
+	 */
+	public static ReversiMessage sync(int sequence, long black, long white, char toMove) {
+		return new ReversiMessage(SYNC, sequence & 0xFFFF, PASS, black, white, toMove);
+	}
+	
+	/**
+	 * Creates a request for the peer's position.
+	 * @param sequence the ply the sender expected next
+	 * @return a SYNC_REQUEST message
+	 */
+	public static ReversiMessage syncRequest(int sequence) {
+		return new ReversiMessage(SYNC_REQUEST, sequence & 0xFFFF, PASS, 0, 0, (char) 0);
+	}
+	
+	/**
+	 * Creates the message a game server starts a game with.
+	 * @param color the color the receiver plays, 'B' or 'W'
+	 * @return a START message
+	 */
+	public static ReversiMessage start(char color) {
+		return new ReversiMessage(START, 0, PASS, 0, 0, color);
+	}
+	
+	/**
+	 * Creates the opening message of a spectator's connection.
+	 * @param version the protocol version the sender speaks
+	 * @param game the number of the game to watch, or 0 for the game started last
+	 * @return a WATCH message
+	 */
+	public static ReversiMessage watch(int version, int game) {
+		return new ReversiMessage(WATCH, version, PASS, 0, 0, (char) 0, game);
+	}
+	
+	/**
+	 * Returns the kind of message.
+	 * @return HELLO, MOVE, SYNC, SYNC_REQUEST, START or WATCH
+	 */
+	public int getType() {
+		return this.type;
+	}
+	
+	/**
+	 * Returns the ply number of a MOVE, SYNC or SYNC_REQUEST, or the version of a HELLO or
+	 * WATCH.
+	 * @return a number from 0 to 65535
+	 */
+	public int getSequence() {
+		return this.sequence;
+	}
+	
+	/**
+	 * Returns the square of a MOVE.
+	 * @return the square index, or PASS
+	 */
+	public int getSquare() {
+		return this.square;
+	}
+	
+	/**
+	 * Returns the black discs of a SYNC.
+	 * @return mask of the black discs
+	 */
+	public long getBlack() {
+		return this.black;
+	}
+	
+	/**
+	 * Returns the white discs of a SYNC.
+	 * @return mask of the white discs
+	 */
+	public long getWhite() {
+		return this.white;
+	}
+	
+	/**
+	 * Returns the color to move of a SYNC, or the color to play of a START.
+	 * @return 'B' or 'W'
+	 */
+	public char getToMove() {
+		return this.toMove;
+	}
+	
+	/**
+	 * Returns the game number of a WATCH.
+	 * @return the number the server gave the game, or 0 for the game started last
+	 */
+	public int getGame() {
+		return this.game;
+	}
+	
+	@Override
+	public String toString() {
+		switch(this.type) {
+		case HELLO:
+			return "HELLO v" + this.sequence;
+		case MOVE:
+			return "MOVE #" + this.sequence + " " + this.square;
+		case SYNC:
+			return String.format("SYNC #%d %016x %016x %c", this.sequence, this.black, this.white, this.toMove);
+		case START:
+			return "START " + this.toMove;
+		case WATCH:
+			return "WATCH v" + this.sequence + " game " + this.game;
+		default:
+			return "SYNC_REQUEST #" + this.sequence;
+		}
+	}
+	
+}
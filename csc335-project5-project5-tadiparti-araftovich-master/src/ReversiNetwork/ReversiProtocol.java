@@ -0,0 +1,198 @@
+package ReversiNetwork;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * File: ReversiProtocol.java
+ * 
+ * The binary wire format of network games. Every message starts with a type byte and has a
+ * fixed length for its type, all numbers big-endian:
+ * <pre>
+ *   HELLO         0, 'R', 'V', version                         4 bytes
+ *   MOVE          1, ply (2 bytes), square or 255 for a pass   4 bytes
+ *   SYNC          2, ply (2 bytes), color to move ('B' or 'W'),
+ *                 black mask (8 bytes), white mask (8 bytes)   20 bytes
+ *   SYNC_REQUEST  3, expected ply (2 bytes)                    3 bytes
+ *   START         4, color to play ('B' or 'W')                2 bytes
+ *   WATCH         5, 'R', 'V', version, game (4 bytes)         8 bytes
+ * </pre>
+ * Each side opens with a HELLO and closes the connection if the versions differ. After
+ * that a move is sent as the ply it is, so the receiver can tell a lost or repeated move
+ * from the next one and ask for a SYNC instead of playing on from a wrong position.
+ * A game server answers a HELLO with its own, then with a START once it has paired the
+ * client with an opponent; from then on it relays moves as a peer would.
+ * 
+ * A spectator opens with a WATCH instead of a HELLO. The server answers with a HELLO and a
+ * SYNC of the game as it stands, then sends every MOVE of the game; if the spectator falls
+ * too far behind, the moves it has not read are dropped and it gets a new SYNC instead.
+ * The server closes the connection when the game ends.
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ */
+public final class ReversiProtocol {
+	
+	public static final int VERSION = 1;
+	/** The longest message, a SYNC. */
+	public static final int MAX_MESSAGE_BYTES = 20;
+	
+	private static final int[] LENGTHS = {4, 4, 20, 3, 2, 8};
+	private static final int PASS_SQUARE = 0xFF;
+	
+	private ReversiProtocol() {
+	}
+	
+	/**
+	 * Returns the length of a message of a type, including the type byte.
+	 * @param type the message type
+	 * @return the length in bytes
+	 * @throws IOException if the type is unknown
+	 */
+	public static int length(int type) throws IOException {
+		if(type < 0 || type >= LENGTHS.length) {
+			throw new IOException("Unknown message type " + type);
+		}
+		return LENGTHS[type];
+	}
+	
+	/**
+	 * Writes a message into a buffer.
+	 * @param message the message
+	 * @param buffer a buffer with at least MAX_MESSAGE_BYTES remaining
+	 */
+	public static void encode(ReversiMessage message, ByteBuffer buffer) {
+		buffer.put((byte) message.getType());
+		switch(message.getType()) {
+		case ReversiMessage.HELLO:
+			buffer.put((byte) 'R').put((byte) 'V').put((byte) message.getSequence());
+			break;
+		case ReversiMessage.MOVE:
+			buffer.putShort((short) message.getSequence());
+			buffer.put((byte) ((message.getSquare() == ReversiMessage.PASS) ? PASS_SQUARE : message.getSquare()));
+			break;
+		case ReversiMessage.SYNC:
+			buffer.putShort((short) message.getSequence());
+			buffer.put((byte) message.getToMove());
+			buffer.putLong(message.getBlack()).putLong(message.getWhite());
+			break;
+		case ReversiMessage.START:
+			buffer.put((byte) message.getToMove());
+			break;
+		case ReversiMessage.WATCH:
+			buffer.put((byte) 'R').put((byte) 'V').put((byte) message.getSequence());
+			buffer.putInt(message.getGame());
+			break;
+		default:
+			buffer.putShort((short) message.getSequence());
+			break;
+		}
+	}
+	
+	/**
+	 * Encodes a message into a buffer of its own. The buffer is read-only, so one encoding
+	 * can be shared by every connection it is sent to, each sending a duplicate().
+	 * @param message the message
+	 * @return a read-only buffer holding exactly the message
+	 */
+	public static ByteBuffer encode(ReversiMessage message) {
+		ByteBuffer buffer = ByteBuffer.allocate(LENGTHS[message.getType()]);
+		encode(message, buffer);
+		buffer.flip();
+		return buffer.asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Reads one message from a buffer if a whole one is there.
+	 * @param buffer a buffer in read mode; its position moves past the message, or stays
+	 * where it was if the message is not complete yet
+	 * @return the message, or null if more bytes are needed
+	 * @throws IOException if the bytes are not a valid message
+	 */
+	public static ReversiMessage decode(ByteBuffer buffer) throws IOException {
+		if(!buffer.hasRemaining()) {
+			return null;
+		}
+		int type = buffer.get(buffer.position()) & 0xFF;
+		if(buffer.remaining() < length(type)) {
+			return null;
+		}
+		try {
+			buffer.get();
+			switch(type) {
+			case ReversiMessage.HELLO:
+				if(buffer.get() != 'R' || buffer.get() != 'V') {
+					throw new IOException("Not a Reversi connection");
+				}
+				return ReversiMessage.hello(buffer.get() & 0xFF);
+			case ReversiMessage.MOVE:
+				int sequence = buffer.getShort() & 0xFFFF;
+				int square = buffer.get() & 0xFF;
+				if(square == PASS_SQUARE) {
+					return ReversiMessage.move(sequence, ReversiMessage.PASS);
+				}
+				if(square >= 64) {
+					throw new IOException("Square out of range: " + square);
+				}
+				return ReversiMessage.move(sequence, square);
+			case ReversiMessage.SYNC:
+				int syncSequence = buffer.getShort() & 0xFFFF;
+				char toMove = (char) buffer.get();
+				long black = buffer.getLong();
+				long white = buffer.getLong();
+				if((toMove != 'B' && toMove != 'W') || (black & white) != 0) {
+					throw new IOException("Invalid position");
+				}
+				return ReversiMessage.sync(syncSequence, black, white, toMove);
+			case ReversiMessage.START:
+				char color = (char) buffer.get();
+				if(color != 'B' && color != 'W') {
+					throw new IOException("Invalid color");
+				}
+				return ReversiMessage.start(color);
+			case ReversiMessage.WATCH:
+				if(buffer.get() != 'R' || buffer.get() != 'V') {
+					throw new IOException("Not a Reversi connection");
+				}
+				int version = buffer.get() & 0xFF;
+				return ReversiMessage.watch(version, buffer.getInt());
+			default:
+				return ReversiMessage.syncRequest(buffer.getShort() & 0xFFFF);
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated message", e);
+		}
+	}
+	
+	/**
+	 * Writes and flushes a message to a stream.
+	 * @param message the message
+	 * @param out the stream
+	 * @throws IOException if the stream fails
+	 */
+	public static void write(ReversiMessage message, OutputStream out) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(MAX_MESSAGE_BYTES);
+		encode(message, buffer);
+		out.write(buffer.array(), 0, buffer.position());
+		out.flush();
+	}
+	
+	/**
+	 * Reads the next message from a stream, waiting until it has all arrived.
+	 * @param in the stream
+	 * @return the message
+	 * @throws IOException if the stream fails or ends, or the bytes are not a valid message
+	 */
+	public static ReversiMessage read(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[MAX_MESSAGE_BYTES];
+		bytes[0] = in.readByte();
+		int length = length(bytes[0] & 0xFF);
+		in.readFully(bytes, 1, length - 1);
+		return decode(ByteBuffer.wrap(bytes, 0, length));
+	}
+	
+}
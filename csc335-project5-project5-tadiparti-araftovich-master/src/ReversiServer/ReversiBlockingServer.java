@@ -0,0 +1,296 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiBlockingServer.java
+ * 
+ * A game server written in plain blocking style, with a thread per connection that reads it
+ * from the greeting to the end of its game, as an alternative to the selector loops of
+ * ReversiGameServer. A player waiting for an opponent is read too, so one that leaves is
+ * noticed at once and never paired, as in ReversiGameServer. It speaks the same
+ * protocol and judges moves with the same ReversiReferee. On a JDK with virtual threads
+ * every task runs on one, so tens of thousands of connections cost little memory; on Java
+ * 17 the threads are platform threads.
+ * 
+ * Stopping the server closes the listening socket, cancels every game session and waits
+ * for all of their threads to end.
+ * 
+ * Usage: java ReversiServer.ReversiBlockingServer [-port N] [-platform] [-idle seconds] [-stats seconds]
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiBlockingServer {
+	
+	public static final long DEFAULT_IDLE_MILLIS = 60000;
+	private static final long SHUTDOWN_MILLIS = 5000;
+	
+	private final int port;
+	private final boolean virtual;
+	private final long idleMillis;
+	private final Set<ReversiGameSession> sessions = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicLong gamesStarted = new AtomicLong();
+	private final AtomicLong movesRelayed = new AtomicLong();
+	private ExecutorService executor;
+	private ServerSocket serverSocket;
+	private ReversiSocketPlayer waiting;
+	private volatile boolean running;
+	
+	/**
+	 * Creates a server.
+	 * @param port the port to listen on, 0 for any free port
+	 * @param virtual true to run tasks on virtual threads when the JDK has them
+	 * @param idleMillis how long the player to move may stay silent before the game is ended
+	 */
+	public ReversiBlockingServer(int port, boolean virtual, long idleMillis) {
+		this.port = port;
+		this.virtual = virtual;
+		this.idleMillis = idleMillis;
+	}
+	
+	/**
+	 * Returns true if tasks run on virtual threads.
+	 * @return true if virtual threads were asked for and the JDK has them
+	 */
+	public boolean isVirtual() {
+		return this.virtual && ReversiThreads.hasVirtualThreads();
+	}
+	
+	/**
+	 * Binds the port and starts accepting.
+	 * @return the port the server listens on
+	 * @throws IOException if the port cannot be bound
+	 */
+	public int start() throws IOException {
+		this.serverSocket = new ServerSocket(this.port, 1024);
+		this.executor = ReversiThreads.newThreadPerTaskExecutor(this.virtual, "ReversiBlocking");
+		this.running = true;
+		this.executor.execute(this::accept);
+		return this.serverSocket.getLocalPort();
+	}
+	
+	/**
+	 * Stops accepting, ends every game and waits for every thread of the server to finish.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void stop() throws InterruptedException {
+		this.running = false;
+		try {
+			this.serverSocket.close();
+		} catch (IOException ignored) {
+			// Stopping anyway.
+		}
+		synchronized(this) {
+			if(this.waiting != null) {
+				this.waiting.close();
+				this.waiting = null;
+			}
+		}
+		for(ReversiGameSession session : this.sessions) {
+			session.cancel();
+		}
+		this.executor.shutdown();
+		if(!this.executor.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+			this.executor.shutdownNow();
+		}
+	}
+	
+	private void accept() {
+		while(this.running) {
+			try {
+				Socket socket = this.serverSocket.accept();
+				this.executor.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if(this.running) {
+					System.err.println("Accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Greets a client, waits for its opponent if there is none yet, and plays its game on
+	 * this thread.
+	 */
+	private void serve(Socket socket) {
+		this.connections.incrementAndGet();
+		ReversiSocketPlayer player = null;
+		ReversiGameSession session = null;
+		try {
+			player = new ReversiSocketPlayer(socket, this.idleMillis);
+			ReversiMessage hello = player.read();
+			if(hello.getType() != ReversiMessage.HELLO || hello.getSequence() != ReversiProtocol.VERSION) {
+				throw new IOException("Expected HELLO version " + ReversiProtocol.VERSION + ", got " + hello);
+			}
+			player.send(ReversiMessage.hello(ReversiProtocol.VERSION));
+			boolean parked = false;
+			synchronized(this) {
+				if(this.waiting == null && this.running) {
+					this.waiting = player;
+					parked = true;
+				} else if(this.running) {
+					session = new ReversiGameSession(this, this.waiting, player);
+					this.waiting.setSession(session);
+					player.setSession(session);
+					this.waiting = null;
+					this.sessions.add(session);
+					this.gamesStarted.incrementAndGet();
+				}
+			}
+			if(parked) {
+				session = park(player);
+			} else if(session != null) {
+				session.start();
+			}
+		} catch (IOException e) {
+			// The client left or spoke another protocol.
+		}
+		if(session == null) {
+			if(player != null) {
+				player.close();
+			} else {
+				closeQuietly(socket);
+			}
+			this.connections.decrementAndGet();
+			return;
+		}
+		try {
+			if(session.play(player)) {
+				this.sessions.remove(session);
+			}
+		} finally {
+			this.connections.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Keeps reading a player who waits for an opponent until one arrives, so that a client
+	 * that leaves while it waits is no longer offered to the next one. Waiting is not
+	 * idling, and messages sent before the game starts are dropped, as ReversiGameServer
+	 * drops them.
+	 * @return the player's game, or null if the player left or the server stopped first
+	 */
+	private ReversiGameSession park(ReversiSocketPlayer player) {
+		try {
+			while(true) {
+				boolean arrived = player.await();
+				synchronized(this) {
+					if(this.waiting != player) {
+						return player.getSession();
+					}
+				}
+				// Bytes that came while the player was still waiting were sent before its
+				// START, so they cannot be a move of the game.
+				if(arrived) {
+					player.read();
+				}
+			}
+		} catch (IOException e) {
+			synchronized(this) {
+				if(this.waiting == player) {
+					this.waiting = null;
+				}
+				return player.getSession();
+			}
+		}
+	}
+	
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException ignored) {
+			// Closing anyway.
+		}
+	}
+	
+	void moveRelayed() {
+		this.movesRelayed.incrementAndGet();
+	}
+	
+	/**
+	 * Returns the number of open client connections.
+	 * @return connection count
+	 */
+	public int getConnections() {
+		return this.connections.get();
+	}
+	
+	/**
+	 * Returns the number of games being played.
+	 * @return active game count
+	 */
+	public int getActiveGames() {
+		return this.sessions.size();
+	}
+	
+	/**
+	 * Returns the number of games started since the server started.
+	 * @return game count
+	 */
+	public long getGamesStarted() {
+		return this.gamesStarted.get();
+	}
+	
+	/**
+	 * Returns the number of moves checked and relayed since the server started.
+	 * @return move count
+	 */
+	public long getMovesRelayed() {
+		return this.movesRelayed.get();
+	}
+	
+	@Override
+	public String toString() {
+		return getConnections() + " connections, " + getActiveGames() + " active games, " 
+				+ getGamesStarted() + " games started, " + getMovesRelayed() + " moves relayed";
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = ReversiGameServer.DEFAULT_PORT;
+		boolean virtual = true;
+		long idleMillis = DEFAULT_IDLE_MILLIS;
+		int stats = 10;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-port")) {
+				port = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-platform")) {
+				virtual = false;
+			} else if(args[i].equals("-idle")) {
+				idleMillis = Long.parseLong(args[++i]) * 1000;
+			} else if(args[i].equals("-stats")) {
+				stats = Integer.parseInt(args[++i]);
+			}
+		}
+		ReversiBlockingServer server = new ReversiBlockingServer(port, virtual, idleMillis);
+		int bound = server.start();
+		System.out.println("Reversi server listening on port " + bound + " with " 
+				+ (server.isVirtual() ? "virtual" : "platform") + " threads");
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try {
+				server.stop();
+			} catch (InterruptedException ignored) {
+				// Exiting anyway.
+			}
+		}));
+		while(stats > 0) {
+			Thread.sleep(stats * 1000L);
+			System.out.println(server);
+		}
+		Thread.currentThread().join();
+	}
+	
+}
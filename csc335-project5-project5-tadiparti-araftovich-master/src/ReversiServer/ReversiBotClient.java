@@ -0,0 +1,168 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Random;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiPosition;
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiBotClient.java
+ * 
+ * A client without a window that connects to a game server and plays one game of random
+ * legal moves. Used to put load on the servers.
+ * 
+ * A client can wait a fixed time before each move, and can time its connection setup (from
+ * connecting to the server's HELLO) and the round trip of its moves (from sending a move to
+ * receiving the opponent's reply, less the opponent's thinking time).
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiBotClient {
+	
+	private final String host;
+	private final int port;
+	private final Random random;
+	private long thinkMillis;
+	private long timeoutMillis;
+	private boolean greeted;
+	private ReversiLatencyHistogram connectTimes;
+	private ReversiLatencyHistogram moveTimes;
+	private int syncs;
+	
+	/**
+	 * Creates a client.
+	 * @param host the server's host
+	 * @param port the server's port
+	 * @param seed seeds the choice of moves
+	 */
+	public ReversiBotClient(String host, int port, long seed) {
+		this.host = host;
+		this.port = port;
+		this.random = new Random(seed);
+	}
+	
+	/**
+	 * Sets how long the client waits before each of its moves. The round trip times assume
+	 * the opponent waits as long.
+	 * @param thinkMillis milliseconds, 0 to move at once
+	 */
+	public void setThinkMillis(long thinkMillis) {
+		this.thinkMillis = thinkMillis;
+	}
+	
+	/**
+	 * Sets how long the client waits for any message before it gives up.
+	 * @param timeoutMillis milliseconds, 0 to wait for ever
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * Returns true once the server has answered the client's HELLO, which tells a failed
+	 * connection from a failed game.
+	 * @return true if the client got past the greeting
+	 */
+	public boolean isGreeted() {
+		return this.greeted;
+	}
+	
+	/**
+	 * Sets where connection setup times are counted.
+	 * @param connectTimes the histogram, or null to not time connections
+	 */
+	public void setConnectTimes(ReversiLatencyHistogram connectTimes) {
+		this.connectTimes = connectTimes;
+	}
+	
+	/**
+	 * Sets where move round trip times are counted.
+	 * @param moveTimes the histogram, or null to not time moves
+	 */
+	public void setMoveTimes(ReversiLatencyHistogram moveTimes) {
+		this.moveTimes = moveTimes;
+	}
+	
+	/**
+	 * Connects, waits for an opponent and plays until the game is over.
+	 * @return the number of plies the game lasted, passes included
+	 * @throws IOException if the connection fails or the server ends the game early
+	 * @throws InterruptedException if interrupted while thinking
+	 */
+	public int play() throws IOException, InterruptedException {
+		long connecting = System.nanoTime();
+		try(Socket socket = new Socket(this.host, this.port)) {
+			ReversiSocketPlayer server = new ReversiSocketPlayer(socket, this.timeoutMillis);
+			server.send(ReversiMessage.hello(ReversiProtocol.VERSION));
+			ReversiMessage message = server.read();
+			if(message.getType() != ReversiMessage.HELLO) {
+				throw new IOException("Expected HELLO, got " + message);
+			}
+			this.greeted = true;
+			if(this.connectTimes != null) {
+				this.connectTimes.record(System.nanoTime() - connecting);
+			}
+			do {
+				message = server.read();
+			} while(message.getType() != ReversiMessage.START);
+			char color = message.getToMove();
+			
+			ReversiPosition position = ReversiPosition.start();
+			int plies = 0;
+			long sent = 0;
+			while(!ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+				if(position.getToMove() == color) {
+					if(this.thinkMillis > 0) {
+						Thread.sleep(this.thinkMillis);
+					}
+					int square = pick(ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent()));
+					server.send(ReversiMessage.move(plies, square));
+					sent = System.nanoTime();
+					position = position.play(square);
+					plies++;
+					continue;
+				}
+				message = server.read();
+				if(message.getType() == ReversiMessage.MOVE) {
+					if(sent != 0 && this.moveTimes != null) {
+						this.moveTimes.record(System.nanoTime() - sent - this.thinkMillis * 1000000);
+					}
+					sent = 0;
+					position = position.play(message.getSquare());
+					plies++;
+				} else if(message.getType() == ReversiMessage.SYNC) {
+					this.syncs++;
+					sent = 0;
+					position = new ReversiPosition(message.getBlack(), message.getWhite(), message.getToMove());
+					plies = message.getSequence();
+				}
+			}
+			return plies;
+		}
+	}
+	
+	/**
+	 * Returns the number of times the server corrected this client.
+	 * @return SYNC count
+	 */
+	public int getSyncs() {
+		return this.syncs;
+	}
+	
+	private int pick(long moves) {
+		if(moves == 0) {
+			return ReversiMessage.PASS;
+		}
+		for(int skip = this.random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+			moves &= moves - 1;
+		}
+		return Long.numberOfTrailingZeros(moves);
+	}
+	
+}
@@ -0,0 +1,267 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiConnection.java
+ * 
+ * One client of the game server. Bytes are read into a small buffer and cut into messages
+ * with ReversiProtocol; outgoing messages are queued and written as the socket accepts
+ * them. A connection is only used from the thread of the loop that owns it.
+ * 
+ * A spectator's connection gets the encoded moves its game shares between all of its
+ * spectators. Its queue is bounded: when SPECTATOR_BACKLOG messages are waiting, the
+ * unsent moves are dropped for a SYNC of the position after the newest move, and a
+ * spectator that needs MAX_RESYNCS of those in a row without catching up is disconnected.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiConnection {
+	
+	/** Enough for a few messages; a client that sends more than that unread is misbehaving. */
+	private static final int BUFFER_BYTES = 256;
+	/** Messages a spectator may have waiting before it is resynced. */
+	public static final int SPECTATOR_BACKLOG = 32;
+	/** Resyncs in a row, without the queue emptying, before a spectator is dropped. */
+	public static final int MAX_RESYNCS = 4;
+	
+	private final ReversiGameServer server;
+	private final ReversiSelectorLoop loop;
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final ByteBuffer input = ByteBuffer.allocate(BUFFER_BYTES);
+	private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+	private boolean greeted;
+	private boolean closed;
+	private boolean finishing;
+	private ReversiServerGame game;
+	private char color;
+	private ReversiServerGame watching;
+	private int nextPly;
+	private int resyncs;
+	
+	/**
+	 * Creates a connection for a registered channel.
+	 * @param server the server the connection belongs to
+	 * @param loop the loop that owns the connection
+	 * @param channel the non-blocking channel
+	 * @param key the channel's key in the loop's selector
+	 */
+	public ReversiConnection(ReversiGameServer server, ReversiSelectorLoop loop, SocketChannel channel, SelectionKey key) {
+		this.server = server;
+		this.loop = loop;
+		this.channel = channel;
+		this.key = key;
+		server.connectionOpened();
+	}
+	
+	/**
+	 * Returns the loop that owns the connection.
+	 * @return the selector loop
+	 */
+	public ReversiSelectorLoop getLoop() {
+		return this.loop;
+	}
+	
+	/**
+	 * Puts the connection into a game.
+	 * @param game the game
+	 * @param color the color the client plays
+	 */
+	public void startGame(ReversiServerGame game, char color) {
+		// Paired on the opponent's loop, this may run after the connection closed with no
+		// game to leave; leave now, or the opponent would wait for good.
+		if(this.closed) {
+			game.leave(this);
+			return;
+		}
+		this.game = game;
+		this.color = color;
+		send(ReversiMessage.start(color));
+	}
+	
+	/**
+	 * Returns the color the client plays in its game.
+	 * @return 'B' or 'W', or 0 before a game has started
+	 */
+	public char getColor() {
+		return this.color;
+	}
+	
+	/**
+	 * Reads what has arrived and handles every whole message.
+	 * @throws IOException if the socket fails or the client breaks the protocol
+	 */
+	public void read() throws IOException {
+		if(this.channel.read(this.input) < 0) {
+			close();
+			return;
+		}
+		this.input.flip();
+		try {
+			for(ReversiMessage message = ReversiProtocol.decode(this.input); message != null && !this.closed; 
+					message = ReversiProtocol.decode(this.input)) {
+				handle(message);
+			}
+		} finally {
+			this.input.compact();
+		}
+	}
+	
+	private void handle(ReversiMessage message) throws IOException {
+		if(!this.greeted) {
+			boolean watch = message.getType() == ReversiMessage.WATCH;
+			if((message.getType() != ReversiMessage.HELLO && !watch) || message.getSequence() != ReversiProtocol.VERSION) {
+				throw new IOException("Expected HELLO version " + ReversiProtocol.VERSION + ", got " + message);
+			}
+			this.greeted = true;
+			send(ReversiMessage.hello(ReversiProtocol.VERSION));
+			if(!watch) {
+				this.server.findOpponent(this);
+				return;
+			}
+			ReversiServerGame target = this.server.findGame(message.getGame());
+			if(target == null) {
+				finish();
+			} else {
+				target.watch(this);
+			}
+		} else if(this.game != null) {
+			this.game.receive(this, message);
+		}
+	}
+	
+	/**
+	 * Queues a message and writes as much as the socket takes now.
+	 * @param message the message
+	 */
+	public void send(ReversiMessage message) {
+		if(this.closed) {
+			return;
+		}
+		queue(ReversiProtocol.encode(message));
+	}
+	
+	/**
+	 * Makes the connection a spectator of a game. Called with the game locked.
+	 * @param game the game being watched
+	 * @param snapshot the encoded SYNC of the game as it stands
+	 * @param plies the plies played so far
+	 */
+	void startWatching(ReversiServerGame game, ByteBuffer snapshot, int plies) {
+		this.watching = game;
+		this.nextPly = plies;
+		this.server.spectatorJoined();
+		queue(snapshot.duplicate());
+	}
+	
+	/**
+	 * Sends a spectator a move of its game. Moves from before the spectator's snapshot are
+	 * skipped, and a spectator that is too far behind gets the snapshot after the move
+	 * instead of the moves it has not read.
+	 * @param ply the ply number of the move
+	 * @param move the encoded MOVE, shared by every spectator
+	 * @param snapshot the encoded SYNC of the position after the move, shared likewise
+	 */
+	void sendWatched(int ply, ByteBuffer move, ByteBuffer snapshot) {
+		if(this.closed || ply < this.nextPly) {
+			return;
+		}
+		if(ply == this.nextPly && this.output.size() < SPECTATOR_BACKLOG) {
+			this.nextPly = ply + 1;
+			queue(move.duplicate());
+			return;
+		}
+		if(++this.resyncs > MAX_RESYNCS) {
+			this.server.spectatorDropped();
+			close();
+			return;
+		}
+		// Keep a message that is half written, so the stream stays whole.
+		ByteBuffer head = this.output.peek();
+		this.output.clear();
+		if(head != null && head.position() > 0) {
+			this.output.add(head);
+		}
+		this.nextPly = ply + 1;
+		this.server.spectatorResynced();
+		queue(snapshot.duplicate());
+	}
+	
+	private void queue(ByteBuffer buffer) {
+		this.output.add(buffer);
+		try {
+			flush();
+		} catch (IOException e) {
+			close();
+		}
+	}
+	
+	/**
+	 * Writes queued messages until the socket stops taking bytes.
+	 * @throws IOException if the socket fails
+	 */
+	public void flush() throws IOException {
+		while(!this.output.isEmpty()) {
+			ByteBuffer buffer = this.output.peek();
+			this.channel.write(buffer);
+			if(buffer.hasRemaining()) {
+				this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+				return;
+			}
+			this.output.poll();
+		}
+		this.resyncs = 0;
+		if(this.finishing) {
+			close();
+			return;
+		}
+		if(this.key.isValid()) {
+			this.key.interestOps(SelectionKey.OP_READ);
+		}
+	}
+	
+	/**
+	 * Closes the connection once every queued message has been written.
+	 */
+	public void finish() {
+		this.finishing = true;
+		if(this.output.isEmpty()) {
+			close();
+		}
+	}
+	
+	/**
+	 * Closes the connection and ends its game or its wait for one.
+	 */
+	public void close() {
+		if(this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.key.cancel();
+		try {
+			this.channel.close();
+		} catch (IOException ignored) {
+			// The channel is being dropped either way.
+		}
+		this.server.connectionClosed(this);
+		if(this.game != null) {
+			this.game.leave(this);
+		}
+		if(this.watching != null) {
+			this.watching.unwatch(this);
+			this.server.spectatorLeft();
+		}
+	}
+	
+}
@@ -0,0 +1,259 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File: ReversiGameServer.java
+ * 
+ * A game server without a window. Clients connect, say HELLO, and are paired with the next
+ * client that is waiting; the server then referees the game (see ReversiServerGame). One
+ * thread accepts connections and hands them round-robin to a few selector loops, so a
+ * handful of threads serve thousands of games.
+ * 
+ * Spectators open with WATCH and a game number instead of HELLO; games are numbered from 1
+ * in the order they start, and 0 asks for the game started last.
+ * 
+ * The GUI's "Client" mode can play through the server: start the server on port 4000 and
+ * connect two clients.
+ * 
+ * Usage: java ReversiServer.ReversiGameServer [-port N] [-selectors N] [-stats seconds]
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiGameServer {
+	
+	public static final int DEFAULT_PORT = 4000;
+	
+	private final int port;
+	private final ReversiSelectorLoop[] loops;
+	private ServerSocketChannel acceptor;
+	private ReversiConnection waiting;
+	private final Map<Integer, ReversiServerGame> games = new ConcurrentHashMap<>();
+	private volatile int latestGame;
+	private final AtomicInteger connections = new AtomicInteger();
+	private final AtomicInteger activeGames = new AtomicInteger();
+	private final AtomicLong gamesStarted = new AtomicLong();
+	private final AtomicLong movesRelayed = new AtomicLong();
+	private final AtomicInteger spectators = new AtomicInteger();
+	private final AtomicLong spectatorResyncs = new AtomicLong();
+	private final AtomicLong spectatorsDropped = new AtomicLong();
+	private volatile boolean running;
+	
+	/**
+	 * Creates a server.
+	 * @param port the port to listen on, 0 for any free port
+	 * @param selectors number of selector loops, at least 1
+	 * @throws IOException if a selector cannot be opened
+	 */
+	public ReversiGameServer(int port, int selectors) throws IOException {
+		this.port = port;
+		this.loops = new ReversiSelectorLoop[Math.max(1, selectors)];
+		for(int i = 0; i < this.loops.length; i++) {
+			this.loops[i] = new ReversiSelectorLoop(this);
+		}
+	}
+	
+	/**
+	 * Binds the port and starts the accept thread and the selector loops.
+	 * @return the port the server listens on
+	 * @throws IOException if the port cannot be bound
+	 */
+	public int start() throws IOException {
+		this.acceptor = ServerSocketChannel.open();
+		this.acceptor.bind(new InetSocketAddress(this.port), 1024);
+		this.running = true;
+		for(int i = 0; i < this.loops.length; i++) {
+			new Thread(this.loops[i], "ReversiSelector-" + i).start();
+		}
+		Thread accept = new Thread(this::accept, "ReversiAccept");
+		accept.start();
+		return this.acceptor.socket().getLocalPort();
+	}
+	
+	/**
+	 * Stops accepting and closes every connection.
+	 */
+	public void stop() {
+		this.running = false;
+		try {
+			this.acceptor.close();
+		} catch (IOException ignored) {
+			// Stopping anyway.
+		}
+		for(ReversiSelectorLoop loop : this.loops) {
+			loop.shutdown();
+		}
+	}
+	
+	private void accept() {
+		int next = 0;
+		while(this.running) {
+			try {
+				SocketChannel channel = this.acceptor.accept();
+				this.loops[next].register(channel);
+				next = (next + 1) % this.loops.length;
+			} catch (IOException e) {
+				if(this.running) {
+					System.err.println("Accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Pairs a client with the one that has waited longest, or makes it wait. The client
+	 * that waited plays black.
+	 * @param connection a client that has said HELLO
+	 */
+	synchronized void findOpponent(ReversiConnection connection) {
+		if(this.waiting == null) {
+			this.waiting = connection;
+			return;
+		}
+		ReversiConnection black = this.waiting;
+		this.waiting = null;
+		this.activeGames.incrementAndGet();
+		int id = (int) this.gamesStarted.incrementAndGet();
+		this.games.put(id, new ReversiServerGame(this, id, black, connection));
+		this.latestGame = id;
+	}
+	
+	/**
+	 * Looks up a game being played.
+	 * @param id the game number, or 0 for the game started last
+	 * @return the game, or null if it has ended or never started
+	 */
+	ReversiServerGame findGame(int id) {
+		return this.games.get((id == 0) ? this.latestGame : id);
+	}
+	
+	void connectionOpened() {
+		this.connections.incrementAndGet();
+	}
+	
+	synchronized void connectionClosed(ReversiConnection connection) {
+		this.connections.decrementAndGet();
+		if(this.waiting == connection) {
+			this.waiting = null;
+		}
+	}
+	
+	void gameEnded(ReversiServerGame game) {
+		this.games.remove(game.getId());
+		this.activeGames.decrementAndGet();
+	}
+	
+	void spectatorJoined() {
+		this.spectators.incrementAndGet();
+	}
+	
+	void spectatorLeft() {
+		this.spectators.decrementAndGet();
+	}
+	
+	void spectatorResynced() {
+		this.spectatorResyncs.incrementAndGet();
+	}
+	
+	void spectatorDropped() {
+		this.spectatorsDropped.incrementAndGet();
+	}
+	
+	void moveRelayed() {
+		this.movesRelayed.incrementAndGet();
+	}
+	
+	/**
+	 * Returns the number of open client connections.
+	 * @return connection count
+	 */
+	public int getConnections() {
+		return this.connections.get();
+	}
+	
+	/**
+	 * Returns the number of games being played.
+	 * @return active game count
+	 */
+	public int getActiveGames() {
+		return this.activeGames.get();
+	}
+	
+	/**
+	 * Returns the number of games started since the server started.
+	 * @return game count
+	 */
+	public long getGamesStarted() {
+		return this.gamesStarted.get();
+	}
+	
+	/**
+	 * Returns the number of moves checked and relayed since the server started.
+	 * @return move count
+	 */
+	public long getMovesRelayed() {
+		return this.movesRelayed.get();
+	}
+	
+	/**
+	 * Returns the number of spectators watching a game.
+	 * @return spectator count
+	 */
+	public int getSpectators() {
+		return this.spectators.get();
+	}
+	
+	/**
+	 * Returns how many times a spectator that fell behind was sent a SYNC in place of moves.
+	 * @return resync count
+	 */
+	public long getSpectatorResyncs() {
+		return this.spectatorResyncs.get();
+	}
+	
+	/**
+	 * Returns the number of spectators disconnected for not keeping up.
+	 * @return dropped spectator count
+	 */
+	public long getSpectatorsDropped() {
+		return this.spectatorsDropped.get();
+	}
+	
+	@Override
+	public String toString() {
+		return getConnections() + " connections, " + getActiveGames() + " active games, " 
+				+ getGamesStarted() + " games started, " + getMovesRelayed() + " moves relayed, " 
+				+ getSpectators() + " spectators (" + getSpectatorResyncs() + " resyncs, " + getSpectatorsDropped() + " dropped)";
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = DEFAULT_PORT;
+		int selectors = Runtime.getRuntime().availableProcessors();
+		int stats = 10;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-port")) {
+				port = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-selectors")) {
+				selectors = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-stats")) {
+				stats = Integer.parseInt(args[++i]);
+			}
+		}
+		ReversiGameServer server = new ReversiGameServer(port, selectors);
+		System.out.println("Reversi server listening on port " + server.start() + " with " + selectors + " selectors");
+		while(stats > 0) {
+			Thread.sleep(stats * 1000L);
+			System.out.println(server);
+		}
+	}
+	
+}
@@ -0,0 +1,122 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ReversiNetwork.ReversiMessage;
+
+/**
+ * File: ReversiGameSession.java
+ * 
+ * One game of the blocking server. Each player's messages are read by the thread that has
+ * served its connection since it connected, so a socket never has two readers. When either
+ * reader finishes (the game is over, a player left or sat idle too long) or the session is
+ * cancelled, both sockets are closed, which ends the other reader; the game is over once
+ * both have left it.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiGameSession {
+	
+	private final ReversiBlockingServer server;
+	private final ReversiSocketPlayer black;
+	private final ReversiSocketPlayer white;
+	private final ReversiReferee referee = new ReversiReferee();
+	/** Players whose threads have not left the game yet. */
+	private final AtomicInteger playing = new AtomicInteger(2);
+	
+	/**
+	 * Creates a session and gives the players their colors.
+	 * @param server the server hosting the game
+	 * @param black the player who moves first
+	 * @param white the other player
+	 */
+	public ReversiGameSession(ReversiBlockingServer server, ReversiSocketPlayer black, ReversiSocketPlayer white) {
+		this.server = server;
+		this.black = black;
+		this.white = white;
+		black.setColor('B');
+		white.setColor('W');
+	}
+	
+	/**
+	 * Tells both players the game has started, or ends the game if either has left.
+	 */
+	public void start() {
+		try {
+			// Black's thread may already be reading, and relays black's first move as soon
+			// as it comes, so white must have its START before black can move.
+			this.white.send(ReversiMessage.start('W'));
+			this.black.send(ReversiMessage.start('B'));
+		} catch (IOException e) {
+			// A player left before the game started.
+			cancel();
+		}
+	}
+	
+	/**
+	 * Plays the game on one player's thread, reading that player's messages until the game
+	 * ends, and then closes both sockets.
+	 * @param player the player whose thread this is
+	 * @return true if the other player's thread had already left, so the game is over
+	 */
+	public boolean play(ReversiSocketPlayer player) {
+		ReversiSocketPlayer opponent = (player == this.black) ? this.white : this.black;
+		try {
+			read(player, opponent);
+		} catch (IOException e) {
+			// The reader ended with its socket; that is how a game ends early.
+		} finally {
+			cancel();
+		}
+		return this.playing.decrementAndGet() == 0;
+	}
+	
+	/**
+	 * Ends the game by closing both players' sockets.
+	 */
+	public void cancel() {
+		this.black.close();
+		this.white.close();
+	}
+	
+	/**
+	 * Reads one player's messages until the game ends. Only the player to move can be idle;
+	 * a player waiting for the opponent may wait as long as the opponent thinks. Timeouts
+	 * only come between messages, so reading again after one stays in step with the stream.
+	 */
+	private void read(ReversiSocketPlayer player, ReversiSocketPlayer opponent) throws IOException {
+		while(true) {
+			ReversiMessage message;
+			try {
+				message = player.read();
+			} catch (SocketTimeoutException e) {
+				synchronized(this.referee) {
+					if(this.referee.getPosition().getToMove() != player.getColor()) {
+						continue;
+					}
+				}
+				throw e;
+			}
+			synchronized(this.referee) {
+				if(message.getType() == ReversiMessage.SYNC_REQUEST) {
+					player.send(this.referee.sync());
+				} else if(message.getType() == ReversiMessage.MOVE) {
+					if(!this.referee.play(player.getColor(), message)) {
+						player.send(this.referee.sync());
+						continue;
+					}
+					opponent.send(message);
+					this.server.moveRelayed();
+					if(this.referee.isOver()) {
+						return;
+					}
+				}
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,119 @@
+package ReversiServer;
+
+/**
+ * File: ReversiLatencyHistogram.java
+ * 
+ * Counts latencies in microseconds in log-linear buckets: exact below 128 us, and within
+ * about 1.5% above, up to hours. Recording is an array increment, so a client can record
+ * every move; each client keeps its own histogram and they are added together at the end.
+ * Not thread-safe.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiLatencyHistogram {
+	
+	private static final int SUB_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+	
+	private final long[] counts = new long[BUCKETS];
+	private long total;
+	private long max;
+	private long sum;
+	
+	/**
+	 * Counts one latency.
+	 * @param nanos the latency in nanoseconds; negative values count as 0
+	 */
+	public void record(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		this.counts[bucket(micros)]++;
+		this.total++;
+		this.sum += micros;
+		this.max = Math.max(this.max, micros);
+	}
+	
+	/**
+	 * Adds every latency counted by another histogram.
+	 * @param other the histogram to add
+	 */
+	public void add(ReversiLatencyHistogram other) {
+		for(int i = 0; i < BUCKETS; i++) {
+			this.counts[i] += other.counts[i];
+		}
+		this.total += other.total;
+		this.sum += other.sum;
+		this.max = Math.max(this.max, other.max);
+	}
+	
+	/**
+	 * Returns the number of latencies counted.
+	 * @return count
+	 */
+	public long getCount() {
+		return this.total;
+	}
+	
+	/**
+	 * Returns the largest latency counted.
+	 * @return microseconds
+	 */
+	public long getMax() {
+		return this.max;
+	}
+	
+	/**
+	 * Returns the mean latency.
+	 * @return microseconds, 0 if nothing was counted
+	 */
+	public double getMean() {
+		return (this.total == 0) ? 0 : (double) this.sum / this.total;
+	}
+	
+	/**
+	 * Returns the latency that a fraction of the counted latencies do not exceed.
+	 * @param fraction between 0 and 1, such as 0.99 for the 99th percentile
+	 * @return the upper bound of the bucket holding that latency in microseconds, 0 if
+	 * nothing was counted
+	 */
+	public long getPercentile(double fraction) {
+		if(this.total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * this.total));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += this.counts[i];
+			if(seen >= rank) {
+				return Math.min(upperBound(i), this.max);
+			}
+		}
+		return this.max;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.2f p50=%.2f p99=%.2f p999=%.2f max=%.2f ms", this.total, getMean() / 1000, 
+				getPercentile(0.5) / 1000.0, getPercentile(0.99) / 1000.0, getPercentile(0.999) / 1000.0, this.max / 1000.0);
+	}
+	
+	private static int bucket(long micros) {
+		if(micros < 2 * SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+		return shift * SUB_BUCKETS + (int) (micros >>> shift);
+	}
+	
+	private static long upperBound(int bucket) {
+		if(bucket < 2 * SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((sub + 1) << shift) - 1;
+	}
+	
+}
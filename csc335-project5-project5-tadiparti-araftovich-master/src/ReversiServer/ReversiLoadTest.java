@@ -0,0 +1,281 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * File: ReversiLoadTest.java
+ * 
+ * Puts a game server under load with bot clients over loopback and reports how it held up:
+ * connection setup time and move round trip percentiles, throughput and errors. The bots
+ * speak the same protocol as the GUI's network mode, so the numbers are what a player would
+ * see.
+ * 
+ * The server is started in this JVM unless -port names one that is already running. Each
+ * client plays its games one after another, reconnecting for each. Clients are started at
+ * -rate per second (all at once by default) and wait -think milliseconds before each move.
+ * With -watchers, that many spectators also watch the newest game, one game after another,
+ * until the players are done.
+ * 
+ * Usage: java ReversiServer.ReversiLoadTest [-clients N] [-games N] [-think ms] [-rate N]
+ *     [-timeout seconds] [-watchers N] [-server selector|platform|virtual] [-host H -port N]
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiLoadTest {
+	
+	private final String host;
+	private final int port;
+	private int clients = 1000;
+	private int games = 1;
+	private long thinkMillis;
+	private double rate;
+	private long timeoutMillis = 30000;
+	private int watchers;
+	
+	/**
+	 * What one client measured.
+	 */
+	private static final class ClientStats {
+		final ReversiLatencyHistogram connectTimes = new ReversiLatencyHistogram();
+		final ReversiLatencyHistogram moveTimes = new ReversiLatencyHistogram();
+		int games;
+		long plies;
+		int connectErrors;
+		int gameErrors;
+		int syncs;
+		
+		void add(ClientStats other) {
+			this.connectTimes.add(other.connectTimes);
+			this.moveTimes.add(other.moveTimes);
+			this.games += other.games;
+			this.plies += other.plies;
+			this.connectErrors += other.connectErrors;
+			this.gameErrors += other.gameErrors;
+			this.syncs += other.syncs;
+		}
+	}
+	
+	/**
+	 * Creates a load test against a server.
+	 * @param host the server's host
+	 * @param port the server's port
+	 */
+	public ReversiLoadTest(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+	
+	/**
+	 * Sets the number of clients connected at once. Rounded up to an even number, since
+	 * clients are paired.
+	 * @param clients client count
+	 */
+	public void setClients(int clients) {
+		this.clients = clients + clients % 2;
+	}
+	
+	/**
+	 * Sets the number of games each client plays.
+	 * @param games game count
+	 */
+	public void setGames(int games) {
+		this.games = games;
+	}
+	
+	/**
+	 * Sets how long clients wait before each move.
+	 * @param thinkMillis milliseconds
+	 */
+	public void setThinkMillis(long thinkMillis) {
+		this.thinkMillis = thinkMillis;
+	}
+	
+	/**
+	 * Sets how fast clients are started.
+	 * @param rate clients per second, 0 to start them all at once
+	 */
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+	
+	/**
+	 * Sets how long a client waits for a message before it counts an error.
+	 * @param timeoutMillis milliseconds
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	/**
+	 * Sets the number of spectators. Only the selector server takes spectators.
+	 * @param watchers spectator count
+	 */
+	public void setWatchers(int watchers) {
+		this.watchers = watchers;
+	}
+	
+	/**
+	 * Runs every client to the end and prints the report.
+	 * @throws InterruptedException if interrupted while waiting for the clients
+	 */
+	public void run() throws InterruptedException {
+		System.out.println(this.clients + " clients x " + this.games + " games against " + this.host + ":" + this.port 
+				+ ", think " + this.thinkMillis + " ms" + ((this.rate > 0) ? ", " + this.rate + " clients/s" : ""));
+		ExecutorService executor = ReversiThreads.newThreadPerTaskExecutor(true, "ReversiLoad");
+		List<Future<ClientStats>> results = new ArrayList<>();
+		long start = System.nanoTime();
+		for(int c = 0; c < this.clients; c++) {
+			if(this.rate > 0) {
+				long due = start + (long) (c * 1e9 / this.rate);
+				while(System.nanoTime() < due) {
+					LockSupport.parkNanos(due - System.nanoTime());
+				}
+			}
+			long seed = c;
+			results.add(executor.submit(() -> runClient(seed)));
+		}
+		AtomicBoolean playing = new AtomicBoolean(true);
+		List<Future<ReversiWatchClient>> spectators = new ArrayList<>();
+		for(int w = 0; w < this.watchers; w++) {
+			spectators.add(executor.submit(() -> runWatcher(playing)));
+		}
+		ClientStats total = new ClientStats();
+		for(Future<ClientStats> result : results) {
+			try {
+				total.add(result.get());
+			} catch (ExecutionException e) {
+				total.gameErrors++;
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		playing.set(false);
+		int watched = 0;
+		long moves = 0;
+		long resyncs = 0;
+		int watchErrors = 0;
+		for(Future<ReversiWatchClient> spectator : spectators) {
+			try {
+				ReversiWatchClient client = spectator.get();
+				watched++;
+				moves += client.getMoves();
+				resyncs += client.getResyncs();
+			} catch (ExecutionException e) {
+				watchErrors++;
+			}
+		}
+		executor.shutdown();
+		
+		System.out.println("connect: " + total.connectTimes);
+		System.out.println("move round trip: " + total.moveTimes);
+		System.out.printf("throughput: %d games in %.2f s, %.1f games/s, %.0f moves/s%n", total.games / 2, seconds, 
+				total.games / 2 / seconds, total.plies / 2 / seconds);
+		System.out.println("errors: " + total.connectErrors + " connect, " + total.gameErrors + " game, " + total.syncs + " syncs");
+		if(this.watchers > 0) {
+			System.out.println("spectators: " + watched + " finished, " + moves + " moves seen, " + resyncs + " resyncs, " 
+					+ watchErrors + " errors");
+		}
+	}
+	
+	private ClientStats runClient(long seed) throws InterruptedException {
+		ClientStats stats = new ClientStats();
+		for(int g = 0; g < this.games; g++) {
+			ReversiBotClient client = new ReversiBotClient(this.host, this.port, seed * this.games + g);
+			client.setThinkMillis(this.thinkMillis);
+			client.setTimeoutMillis(this.timeoutMillis);
+			client.setConnectTimes(stats.connectTimes);
+			client.setMoveTimes(stats.moveTimes);
+			try {
+				stats.plies += client.play();
+				stats.games++;
+			} catch (IOException e) {
+				if(client.isGreeted()) {
+					stats.gameErrors++;
+				} else {
+					stats.connectErrors++;
+				}
+			}
+			stats.syncs += client.getSyncs();
+		}
+		return stats;
+	}
+	
+	/**
+	 * Watches the newest game, and the next one when it ends, while the players play.
+	 */
+	private ReversiWatchClient runWatcher(AtomicBoolean playing) throws IOException, InterruptedException {
+		ReversiWatchClient client = new ReversiWatchClient(this.host, this.port);
+		while(playing.get()) {
+			if(!client.watch(0)) {
+				Thread.sleep(10);
+			}
+		}
+		return client;
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String host = "localhost";
+		int port = 0;
+		String server = "selector";
+		List<String> settings = new ArrayList<>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-server")) {
+				server = args[++i];
+			} else if(args[i].equals("-host")) {
+				host = args[++i];
+			} else if(args[i].equals("-port")) {
+				port = Integer.parseInt(args[++i]);
+			} else {
+				settings.add(args[i]);
+			}
+		}
+		
+		ReversiGameServer selector = null;
+		ReversiBlockingServer blocking = null;
+		if(port == 0) {
+			if(server.equals("selector")) {
+				selector = new ReversiGameServer(0, Runtime.getRuntime().availableProcessors());
+				port = selector.start();
+			} else {
+				blocking = new ReversiBlockingServer(0, server.equals("virtual"), ReversiBlockingServer.DEFAULT_IDLE_MILLIS);
+				port = blocking.start();
+			}
+			System.out.println("Started the " + server + " server");
+		}
+		
+		ReversiLoadTest test = new ReversiLoadTest(host, port);
+		for(int i = 0; i + 1 < settings.size(); i++) {
+			if(settings.get(i).equals("-clients")) {
+				test.setClients(Integer.parseInt(settings.get(++i)));
+			} else if(settings.get(i).equals("-games")) {
+				test.setGames(Integer.parseInt(settings.get(++i)));
+			} else if(settings.get(i).equals("-think")) {
+				test.setThinkMillis(Long.parseLong(settings.get(++i)));
+			} else if(settings.get(i).equals("-rate")) {
+				test.setRate(Double.parseDouble(settings.get(++i)));
+			} else if(settings.get(i).equals("-watchers")) {
+				test.setWatchers(Integer.parseInt(settings.get(++i)));
+			} else if(settings.get(i).equals("-timeout")) {
+				test.setTimeoutMillis(Long.parseLong(settings.get(++i)) * 1000);
+			}
+		}
+		test.run();
+		if(selector != null) {
+			System.out.println("server: " + selector);
+			selector.stop();
+		}
+		if(blocking != null) {
+			System.out.println("server: " + blocking);
+			blocking.stop();
+		}
+	}
+	
+}
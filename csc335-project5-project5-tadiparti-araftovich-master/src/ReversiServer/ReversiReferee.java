@@ -0,0 +1,77 @@
+package ReversiServer;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiSearchResult;
+import ReversiNetwork.ReversiMessage;
+
+/**
+ * File: ReversiReferee.java
+ * 
+ * The server's copy of one game. It checks each move against the engine's rules and the
+ * ply count before playing it, so both server designs judge moves the same way. Not
+ * thread-safe; the game that owns it locks around it.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiReferee {
+	
+	private ReversiPosition position = ReversiPosition.start();
+	private int plies;
+	
+	/**
+	 * Plays a move if it is valid.
+	 * @param color the color of the player who sent it
+	 * @param message a MOVE message
+	 * @return true if the move was played; false if it was out of turn, out of sequence, or
+	 * against the rules, including a pass while a move is possible
+	 */
+	public boolean play(char color, ReversiMessage message) {
+		if(color != this.position.getToMove() || message.getSequence() != (this.plies & 0xFFFF)) {
+			return false;
+		}
+		long legal = ReversiBitboard.legalMoves(this.position.getPlayer(), this.position.getOpponent());
+		int square = message.getSquare();
+		if((square == ReversiSearchResult.PASS) ? legal != 0 : (legal & (1L << square)) == 0) {
+			return false;
+		}
+		this.position = this.position.play(square);
+		this.plies++;
+		return true;
+	}
+	
+	/**
+	 * Returns the number of plies played, passes included.
+	 * @return the ply count
+	 */
+	public int getPlies() {
+		return this.plies;
+	}
+	
+	/**
+	 * Returns the current position.
+	 * @return the position
+	 */
+	public ReversiPosition getPosition() {
+		return this.position;
+	}
+	
+	/**
+	 * Returns true once neither side can move.
+	 * @return true if the game is finished
+	 */
+	public boolean isOver() {
+		return ReversiBitboard.isGameOver(this.position.getBlack(), this.position.getWhite());
+	}
+	
+	/**
+	 * Returns the message that puts a client back in step with the game.
+	 * @return a SYNC of the current position
+	 */
+	public ReversiMessage sync() {
+		return ReversiMessage.sync(this.plies, this.position.getBlack(), this.position.getWhite(), this.position.getToMove());
+	}
+	
+}
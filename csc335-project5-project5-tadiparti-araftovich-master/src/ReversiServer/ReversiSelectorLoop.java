@@ -0,0 +1,127 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * File: ReversiSelectorLoop.java
+ * 
+ * One thread with one Selector that serves many connections. Every connection belongs to
+ * exactly one loop and is only touched from that loop's thread; other threads hand work
+ * to a loop with execute(), which wakes its selector.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiSelectorLoop implements Runnable {
+	
+	private final ReversiGameServer server;
+	private final Selector selector;
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+	private volatile boolean running = true;
+	private Thread thread;
+	
+	/**
+	 * Opens a loop.
+	 * @param server the server the loop's connections belong to
+	 * @throws IOException if the selector cannot be opened
+	 */
+	public ReversiSelectorLoop(ReversiGameServer server) throws IOException {
+		this.server = server;
+		this.selector = Selector.open();
+	}
+	
+	/**
+	 * Runs a task on the loop's thread.
+	 * @param task the task
+	 */
+	public void execute(Runnable task) {
+		if(Thread.currentThread() == this.thread) {
+			task.run();
+			return;
+		}
+		this.tasks.add(task);
+		this.selector.wakeup();
+	}
+	
+	/**
+	 * Hands a newly accepted channel to the loop.
+	 * @param channel the channel, which is made non-blocking
+	 */
+	public void register(SocketChannel channel) {
+		execute(() -> {
+			try {
+				channel.configureBlocking(false);
+				channel.socket().setTcpNoDelay(true);
+				SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ);
+				key.attach(new ReversiConnection(this.server, this, channel, key));
+			} catch (IOException e) {
+				try {
+					channel.close();
+				} catch (IOException ignored) {
+					// Nothing more can be done with the channel.
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Stops the loop and closes its connections.
+	 */
+	public void shutdown() {
+		this.running = false;
+		this.selector.wakeup();
+	}
+	
+	@Override
+	public void run() {
+		this.thread = Thread.currentThread();
+		try {
+			while(this.running) {
+				this.selector.select();
+				for(Runnable task = this.tasks.poll(); task != null; task = this.tasks.poll()) {
+					task.run();
+				}
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					ReversiConnection connection = (ReversiConnection) key.attachment();
+					try {
+						if(key.isValid() && key.isReadable()) {
+							connection.read();
+						}
+						if(key.isValid() && key.isWritable()) {
+							connection.flush();
+						}
+					} catch (IOException | RuntimeException e) {
+						connection.close();
+					}
+				}
+			}
+		} catch (ClosedChannelException e) {
+			// The selector was closed under us; fall through to shut down.
+		} catch (IOException e) {
+			System.err.println("Selector loop failed: " + e.getMessage());
+		} finally {
+			for(SelectionKey key : this.selector.keys()) {
+				if(key.attachment() != null) {
+					((ReversiConnection) key.attachment()).close();
+				}
+			}
+			try {
+				this.selector.close();
+			} catch (IOException ignored) {
+				// Closing anyway.
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,117 @@
+package ReversiServer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File: ReversiServerBenchmark.java
+ * 
+ * Plays the same load against each server design in turn, in one JVM: the selector server,
+ * the blocking server on platform threads and, when the JDK has them, the blocking server on
+ * virtual threads. Every client keeps a connection open and plays its games one after
+ * another. For each server it prints the games per second and the peak number of live
+ * threads in the JVM, clients included.
+ * 
+ * Usage: java ReversiServer.ReversiServerBenchmark [-clients N] [-games N]
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiServerBenchmark {
+	
+	private interface Server {
+		int start() throws IOException;
+		void stop() throws InterruptedException;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		int clients = 200;
+		int games = 10;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-clients")) {
+				clients = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-games")) {
+				games = Integer.parseInt(args[++i]);
+			}
+		}
+		// Clients come in pairs, one per side of a game.
+		clients += clients % 2;
+		
+		ReversiGameServer selector = new ReversiGameServer(0, Runtime.getRuntime().availableProcessors());
+		run("selector", new Server() {
+			public int start() throws IOException {
+				return selector.start();
+			}
+			public void stop() {
+				selector.stop();
+			}
+		}, clients, games);
+		
+		ReversiBlockingServer platform = new ReversiBlockingServer(0, false, ReversiBlockingServer.DEFAULT_IDLE_MILLIS);
+		run("blocking, platform threads", new Server() {
+			public int start() throws IOException {
+				return platform.start();
+			}
+			public void stop() throws InterruptedException {
+				platform.stop();
+			}
+		}, clients, games);
+		
+		if(ReversiThreads.hasVirtualThreads()) {
+			ReversiBlockingServer virtual = new ReversiBlockingServer(0, true, ReversiBlockingServer.DEFAULT_IDLE_MILLIS);
+			run("blocking, virtual threads", new Server() {
+				public int start() throws IOException {
+					return virtual.start();
+				}
+				public void stop() throws InterruptedException {
+					virtual.stop();
+				}
+			}, clients, games);
+		} else {
+			System.out.println("blocking, virtual threads: not available on Java " + Runtime.version().feature());
+		}
+	}
+	
+	private static void run(String name, Server server, int clients, int games) throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int port = server.start();
+		threads.resetPeakThreadCount();
+		AtomicLong plies = new AtomicLong();
+		ExecutorService executor = ReversiThreads.newThreadPerTaskExecutor(true, "ReversiBot");
+		long start = System.nanoTime();
+		List<Future<?>> results = new ArrayList<>();
+		for(int c = 0; c < clients; c++) {
+			long seed = c;
+			results.add(executor.submit(() -> {
+				for(int g = 0; g < games; g++) {
+					plies.addAndGet(new ReversiBotClient("localhost", port, seed * games + g).play());
+				}
+				return null;
+			}));
+		}
+		int failed = 0;
+		for(Future<?> result : results) {
+			try {
+				result.get();
+			} catch (Exception e) {
+				failed++;
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		int peak = threads.getPeakThreadCount();
+		executor.shutdown();
+		server.stop();
+		long played = (long) clients * games / 2;
+		System.out.printf("%s: %d games in %.2f s, %.0f games/s, %.0f moves/s, peak %d threads%s%n", 
+				name, played, seconds, played / seconds, plies.get() / 2 / seconds, peak,
+				(failed > 0) ? ", " + failed + " clients failed" : "");
+	}
+	
+}
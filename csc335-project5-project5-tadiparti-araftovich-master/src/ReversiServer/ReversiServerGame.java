@@ -0,0 +1,171 @@
+package ReversiServer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiServerGame.java
+ * 
+ * One game on the server. The server keeps the real position in a ReversiReferee and
+ * checks every move before relaying it: a move out of turn, out of sequence or against the
+ * rules is not relayed, and the sender gets the true position back as a SYNC instead. The
+ * two players may be served by different selector loops, so the game is locked while a
+ * message is handled and messages to the other player go through that player's loop.
+ * 
+ * Any number of spectators can watch. Each relayed move is encoded once, and one task per
+ * selector loop hands the shared bytes to every spectator on that loop, so a popular game
+ * costs a queue entry per spectator rather than a serialization and a task each.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiServerGame {
+	
+	private final ReversiGameServer server;
+	private final int id;
+	private final ReversiConnection black;
+	private final ReversiConnection white;
+	private final ReversiReferee referee = new ReversiReferee();
+	/** Spectators by the loop that owns them; each list is only used on its loop's thread. */
+	private final Map<ReversiSelectorLoop, List<ReversiConnection>> spectators = new ConcurrentHashMap<>();
+	private boolean over;
+	
+	/**
+	 * Creates a game and tells both players their colors.
+	 * @param server the server hosting the game
+	 * @param id the number spectators ask for the game by
+	 * @param black the player who moves first
+	 * @param white the other player
+	 */
+	public ReversiServerGame(ReversiGameServer server, int id, ReversiConnection black, ReversiConnection white) {
+		this.server = server;
+		this.id = id;
+		this.black = black;
+		this.white = white;
+		black.getLoop().execute(() -> black.startGame(this, 'B'));
+		white.getLoop().execute(() -> white.startGame(this, 'W'));
+	}
+	
+	/**
+	 * Returns the number the server gave the game.
+	 * @return the game number, counted from 1
+	 */
+	public int getId() {
+		return this.id;
+	}
+	
+	/**
+	 * Adds a spectator, on the spectator's loop, and sends it the game as it stands.
+	 * @param spectator a connection that asked to watch this game
+	 */
+	public synchronized void watch(ReversiConnection spectator) {
+		if(this.over) {
+			spectator.finish();
+			return;
+		}
+		spectator.startWatching(this, ReversiProtocol.encode(this.referee.sync()), this.referee.getPlies());
+		this.spectators.computeIfAbsent(spectator.getLoop(), loop -> new ArrayList<>()).add(spectator);
+	}
+	
+	/**
+	 * Removes a spectator that closed, on the spectator's loop.
+	 * @param spectator the spectator
+	 */
+	public void unwatch(ReversiConnection spectator) {
+		List<ReversiConnection> watchers = this.spectators.get(spectator.getLoop());
+		if(watchers != null) {
+			watchers.remove(spectator);
+		}
+	}
+	
+	/**
+	 * Handles a message from one of the players, on that player's loop.
+	 * @param from the player who sent it
+	 * @param message the message
+	 */
+	public synchronized void receive(ReversiConnection from, ReversiMessage message) {
+		if(this.over) {
+			return;
+		}
+		if(message.getType() == ReversiMessage.SYNC_REQUEST) {
+			from.send(this.referee.sync());
+			return;
+		}
+		if(message.getType() != ReversiMessage.MOVE) {
+			return;
+		}
+		if(!this.referee.play(from.getColor(), message)) {
+			from.send(this.referee.sync());
+			return;
+		}
+		deliver(opponent(from), message);
+		this.server.moveRelayed();
+		broadcast(message);
+		if(this.referee.isOver()) {
+			// Both players can see the game is over; close once the last move is out.
+			end();
+			this.black.getLoop().execute(this.black::finish);
+			this.white.getLoop().execute(this.white::finish);
+		}
+	}
+	
+	/**
+	 * Ends the game because a player left, and closes the other player's connection.
+	 * @param from the player who left
+	 */
+	public synchronized void leave(ReversiConnection from) {
+		if(this.over) {
+			return;
+		}
+		end();
+		ReversiConnection other = opponent(from);
+		other.getLoop().execute(other::close);
+	}
+	
+	private void broadcast(ReversiMessage move) {
+		if(this.spectators.isEmpty()) {
+			return;
+		}
+		int ply = move.getSequence();
+		ByteBuffer encoded = ReversiProtocol.encode(move);
+		ByteBuffer snapshot = ReversiProtocol.encode(this.referee.sync());
+		for(Map.Entry<ReversiSelectorLoop, List<ReversiConnection>> entry : this.spectators.entrySet()) {
+			List<ReversiConnection> watchers = entry.getValue();
+			// Backwards, since a spectator that is dropped removes itself from the list.
+			entry.getKey().execute(() -> {
+				for(int i = watchers.size() - 1; i >= 0; i--) {
+					watchers.get(i).sendWatched(ply, encoded, snapshot);
+				}
+			});
+		}
+	}
+	
+	private ReversiConnection opponent(ReversiConnection player) {
+		return (player == this.black) ? this.white : this.black;
+	}
+	
+	private void deliver(ReversiConnection to, ReversiMessage message) {
+		to.getLoop().execute(() -> to.send(message));
+	}
+	
+	private void end() {
+		this.over = true;
+		this.server.gameEnded(this);
+		for(Map.Entry<ReversiSelectorLoop, List<ReversiConnection>> entry : this.spectators.entrySet()) {
+			List<ReversiConnection> watchers = entry.getValue();
+			entry.getKey().execute(() -> {
+				for(int i = watchers.size() - 1; i >= 0; i--) {
+					watchers.get(i).finish();
+				}
+			});
+		}
+	}
+	
+}
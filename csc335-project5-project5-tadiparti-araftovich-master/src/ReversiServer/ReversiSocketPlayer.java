@@ -0,0 +1,138 @@
+package ReversiServer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiSocketPlayer.java
+ * 
+ * A client of the blocking server: one socket read by one thread, in the style of the
+ * controller's reader thread, from its greeting to its last message. Writes are locked
+ * because both players' threads of a game session send to it.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiSocketPlayer {
+	
+	private final Socket socket;
+	private final DataInputStream input;
+	private final OutputStream output;
+	private char color;
+	private ReversiGameSession session;
+	
+	/**
+	 * Wraps a connected socket.
+	 * @param socket the socket
+	 * @param idleMillis how long a read may wait before it fails, 0 for ever
+	 * @throws IOException if the socket's streams cannot be opened
+	 */
+	public ReversiSocketPlayer(Socket socket, long idleMillis) throws IOException {
+		this.socket = socket;
+		socket.setTcpNoDelay(true);
+		socket.setSoTimeout((int) Math.min(idleMillis, Integer.MAX_VALUE));
+		this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.output = new BufferedOutputStream(socket.getOutputStream());
+	}
+	
+	/**
+	 * Sets the color the player plays.
+	 * @param color 'B' or 'W'
+	 */
+	public void setColor(char color) {
+		this.color = color;
+	}
+	
+	/**
+	 * Returns the color the player plays.
+	 * @return 'B' or 'W', or 0 before a game has started
+	 */
+	public char getColor() {
+		return this.color;
+	}
+	
+	/**
+	 * Sets the game the player was paired into. Called with the server locked.
+	 * @param session the game session
+	 */
+	void setSession(ReversiGameSession session) {
+		this.session = session;
+	}
+	
+	/**
+	 * Returns the game the player was paired into. Called with the server locked.
+	 * @return the game session, or null while the player waits for an opponent
+	 */
+	ReversiGameSession getSession() {
+		return this.session;
+	}
+	
+	/**
+	 * Waits until a message starts to arrive, without taking any of it from the stream.
+	 * @return true if a message has started, false if none did within the idle time
+	 * @throws IOException if the socket fails or closes
+	 */
+	public boolean await() throws IOException {
+		this.input.mark(1);
+		try {
+			if(this.input.read() < 0) {
+				throw new EOFException("Connection closed");
+			}
+		} catch (SocketTimeoutException e) {
+			return false;
+		}
+		this.input.reset();
+		return true;
+	}
+	
+	/**
+	 * Waits for the next message. Only the wait for its first byte can time out with a
+	 * SocketTimeoutException, which leaves the stream where it was and can be retried; a
+	 * timeout once part of the message has been read would leave the stream out of step, so
+	 * it is reported as a plain IOException instead.
+	 * @return the message
+	 * @throws SocketTimeoutException if no message started within the idle time
+	 * @throws IOException if the socket fails or closes, or a message stops partway
+	 */
+	public ReversiMessage read() throws IOException {
+		if(!await()) {
+			throw new SocketTimeoutException("No message within the idle time");
+		}
+		try {
+			return ReversiProtocol.read(this.input);
+		} catch (SocketTimeoutException e) {
+			throw new IOException("Timed out in the middle of a message", e);
+		}
+	}
+	
+	/**
+	 * Sends a message.
+	 * @param message the message
+	 * @throws IOException if the socket fails
+	 */
+	public synchronized void send(ReversiMessage message) throws IOException {
+		ReversiProtocol.write(message, this.output);
+	}
+	
+	/**
+	 * Closes the socket, which also ends a read that is waiting on it.
+	 */
+	public void close() {
+		try {
+			this.socket.close();
+		} catch (IOException ignored) {
+			// Closing anyway.
+		}
+	}
+	
+}
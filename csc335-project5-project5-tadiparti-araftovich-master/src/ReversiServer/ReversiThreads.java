@@ -0,0 +1,60 @@
+package ReversiServer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File: ReversiThreads.java
+ * 
+ * Makes executors that start one thread per task. The project builds for Java 17, which has
+ * no virtual threads, so they are looked up at run time: on a JDK that has them each task
+ * gets a virtual thread, and otherwise a platform thread from a cached pool.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public final class ReversiThreads {
+	
+	private ReversiThreads() {
+	}
+	
+	/**
+	 * Returns true if the running JDK has virtual threads.
+	 * @return true on Java 21 and later
+	 */
+	public static boolean hasVirtualThreads() {
+		try {
+			Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+	
+	/**
+	 * Creates an executor that runs every task on a thread of its own.
+	 * @param virtual true for virtual threads if the JDK has them
+	 * @param name prefix of the names of platform threads
+	 * @return the executor
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(boolean virtual, String name) {
+		if(virtual && hasVirtualThreads()) {
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// Fall back to platform threads below.
+			}
+		}
+		AtomicInteger count = new AtomicInteger();
+		ThreadFactory factory = task -> {
+			Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		return Executors.newCachedThreadPool(factory);
+	}
+	
+}
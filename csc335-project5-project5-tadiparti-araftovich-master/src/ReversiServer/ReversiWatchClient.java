@@ -0,0 +1,123 @@
+package ReversiServer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiPosition;
+import ReversiNetwork.ReversiMessage;
+import ReversiNetwork.ReversiProtocol;
+
+/**
+ * File: ReversiWatchClient.java
+ * 
+ * A spectator without a window. It watches one game on a game server and follows the
+ * position, checking that every move it is sent is legal where it is played.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiWatchClient {
+	
+	private final String host;
+	private final int port;
+	private long readDelayMillis;
+	private int moves;
+	private int resyncs;
+	private ReversiPosition position;
+	
+	/**
+	 * Creates a spectator.
+	 * @param host the server's host
+	 * @param port the server's port
+	 */
+	public ReversiWatchClient(String host, int port) {
+		this.host = host;
+		this.port = port;
+	}
+	
+	/**
+	 * Makes the spectator read slowly, to see how the server treats one that falls behind.
+	 * @param readDelayMillis milliseconds to wait after each message, 0 to read at once
+	 */
+	public void setReadDelayMillis(long readDelayMillis) {
+		this.readDelayMillis = readDelayMillis;
+	}
+	
+	/**
+	 * Watches a game until the server closes the connection.
+	 * @param game the game number, or 0 for the game started last
+	 * @return true if there was a game to watch
+	 * @throws IOException if the connection fails or the server sends an illegal move
+	 * @throws InterruptedException if interrupted while reading slowly
+	 */
+	public boolean watch(int game) throws IOException, InterruptedException {
+		try(Socket socket = new Socket(this.host, this.port)) {
+			ReversiSocketPlayer server = new ReversiSocketPlayer(socket, 0);
+			server.send(ReversiMessage.watch(ReversiProtocol.VERSION, game));
+			ReversiMessage message = server.read();
+			if(message.getType() != ReversiMessage.HELLO) {
+				throw new IOException("Expected HELLO, got " + message);
+			}
+			int plies = -1;
+			while(true) {
+				try {
+					message = server.read();
+				} catch (EOFException e) {
+					return plies >= 0;
+				}
+				if(message.getType() == ReversiMessage.SYNC) {
+					if(plies >= 0) {
+						this.resyncs++;
+					}
+					this.position = new ReversiPosition(message.getBlack(), message.getWhite(), message.getToMove());
+					plies = message.getSequence();
+				} else if(message.getType() == ReversiMessage.MOVE) {
+					// A move before the first SYNC has no position to be played on.
+					if(plies < 0) {
+						throw new IOException("Unexpected " + message + " before SYNC");
+					}
+					int square = message.getSquare();
+					long legal = ReversiBitboard.legalMoves(this.position.getPlayer(), this.position.getOpponent());
+					boolean valid = (square == ReversiMessage.PASS) ? legal == 0 : (legal & (1L << square)) != 0;
+					if(message.getSequence() != plies || !valid) {
+						throw new IOException("Unexpected " + message + " at ply " + plies);
+					}
+					this.position = this.position.play(square);
+					plies++;
+					this.moves++;
+				}
+				if(this.readDelayMillis > 0) {
+					Thread.sleep(this.readDelayMillis);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the position the spectator last saw.
+	 * @return the position, or null before the first SYNC
+	 */
+	public ReversiPosition getPosition() {
+		return this.position;
+	}
+	
+	/**
+	 * Returns the number of moves received.
+	 * @return move count
+	 */
+	public int getMoves() {
+		return this.moves;
+	}
+	
+	/**
+	 * Returns the number of times the server resynced this spectator.
+	 * @return SYNC count after the first
+	 */
+	public int getResyncs() {
+		return this.resyncs;
+	}
+	
+}
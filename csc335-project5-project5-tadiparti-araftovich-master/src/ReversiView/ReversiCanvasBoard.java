@@ -0,0 +1,227 @@
+package ReversiView;
+
+import java.util.Arrays;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * File: ReversiCanvasBoard.java
+ * 
+ * Draws one or many boards on a single Canvas instead of a node per square. Boards of any
+ * size are laid out in a grid, clicks are mapped back to a board and square from the mouse
+ * coordinates, and only the squares that changed since the last frame are drawn again.
+ * 
+ * Squares are numbered row * cols + col. The discs of a board are given as bitsets of
+ * 64-bit words, square n being bit n % 64 of word n / 64, so an 8x8 board is a single long
+ * per color as in ReversiEngine.
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiCanvasBoard extends Canvas {
+	
+	/** Space around and between boards. */
+	private static final double MARGIN = 9;
+	/** Width of the grid lines between squares. */
+	private static final double LINE = 3;
+	/** Disc radius as a fraction of half a square. */
+	private static final double DISC = 0.83;
+	
+	private final int rows;
+	private final int cols;
+	private final int boardsAcross;
+	private final double cellSize;
+	private final int words;
+	private final long[][] black;
+	private final long[][] white;
+	private final long[][] dirty;
+	private boolean redrawAll = true;
+	private SquareListener listener;
+	
+	/**
+	 * Receives the squares the user clicks.
+	 */
+	public interface SquareListener {
+		
+		/**
+		 * Called when a square is clicked.
+		 * @param board index of the board that was clicked
+		 * @param row row of the square
+		 * @param col column of the square
+		 */
+		void squareClicked(int board, int row, int col);
+		
+	}
+	
+	/**
+	 * Creates a canvas big enough for its boards.
+	 * @param rows rows of every board
+	 * @param cols columns of every board
+	 * @param boards number of boards
+	 * @param boardsAcross number of boards in each row of the layout
+	 * @param cellSize width and height of one square in pixels
+	 */
+	public ReversiCanvasBoard(int rows, int cols, int boards, int boardsAcross, double cellSize) {
+		this.rows = rows;
+		this.cols = cols;
+		this.boardsAcross = Math.max(1, Math.min(boardsAcross, boards));
+		this.cellSize = cellSize;
+		this.words = (rows * cols + 63) / 64;
+		this.black = new long[boards][this.words];
+		this.white = new long[boards][this.words];
+		this.dirty = new long[boards][this.words];
+		int boardsDown = (boards + this.boardsAcross - 1) / this.boardsAcross;
+		setWidth(MARGIN + this.boardsAcross * (cols * cellSize + MARGIN));
+		setHeight(MARGIN + boardsDown * (rows * cellSize + MARGIN));
+		addEventHandler(MouseEvent.MOUSE_CLICKED, e -> {
+			int board = boardAt(e.getX(), e.getY());
+			int square = squareAt(e.getX(), e.getY());
+			if(board >= 0 && square >= 0 && this.listener != null) {
+				this.listener.squareClicked(board, square / this.cols, square % this.cols);
+			}
+		});
+	}
+	
+	/**
+	 * Sets who is told about clicked squares.
+	 * @param listener the listener, or null for none
+	 */
+	public void setOnSquareClicked(SquareListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Returns the number of boards on the canvas.
+	 * @return the board count
+	 */
+	public int getBoards() {
+		return this.black.length;
+	}
+	
+	/**
+	 * Sets the discs of a board of at most 64 squares.
+	 * @param board index of the board
+	 * @param blackDiscs mask of the black discs
+	 * @param whiteDiscs mask of the white discs
+	 */
+	public void setBoard(int board, long blackDiscs, long whiteDiscs) {
+		setBoard(board, new long[] {blackDiscs}, new long[] {whiteDiscs});
+	}
+	
+	/**
+	 * Sets the discs of a board. Nothing is drawn until redraw(), which draws only the
+	 * squares that differ from what is on the canvas, so a caller can set any number of
+	 * boards and draw them together once.
+	 * @param board index of the board
+	 * @param blackDiscs bitset of the black discs
+	 * @param whiteDiscs bitset of the white discs
+	 */
+	public void setBoard(int board, long[] blackDiscs, long[] whiteDiscs) {
+		for(int word = 0; word < this.words; word++) {
+			long blackWord = (word < blackDiscs.length) ? blackDiscs[word] : 0;
+			long whiteWord = (word < whiteDiscs.length) ? whiteDiscs[word] : 0;
+			this.dirty[board][word] |= (this.black[board][word] ^ blackWord) | (this.white[board][word] ^ whiteWord);
+			this.black[board][word] = blackWord;
+			this.white[board][word] = whiteWord;
+		}
+	}
+	
+	/**
+	 * Returns the board under a point of the canvas.
+	 * @param x horizontal position in pixels
+	 * @param y vertical position in pixels
+	 * @return the board index, or -1 if the point is not on a board
+	 */
+	public int boardAt(double x, double y) {
+		double boardWidth = this.cols * this.cellSize;
+		double boardHeight = this.rows * this.cellSize;
+		int across = (int) Math.floor((x - MARGIN) / (boardWidth + MARGIN));
+		int down = (int) Math.floor((y - MARGIN) / (boardHeight + MARGIN));
+		if(across < 0 || across >= this.boardsAcross || down < 0) {
+			return -1;
+		}
+		double left = x - MARGIN - across * (boardWidth + MARGIN);
+		double top = y - MARGIN - down * (boardHeight + MARGIN);
+		int board = down * this.boardsAcross + across;
+		if(left >= boardWidth || top >= boardHeight || board >= getBoards()) {
+			return -1;
+		}
+		return board;
+	}
+	
+	/**
+	 * Returns the square under a point of the canvas.
+	 * @param x horizontal position in pixels
+	 * @param y vertical position in pixels
+	 * @return row * cols + col of the square within its board, or -1 if the point is not on a board
+	 */
+	public int squareAt(double x, double y) {
+		int board = boardAt(x, y);
+		if(board < 0) {
+			return -1;
+		}
+		int col = (int) ((x - boardLeft(board)) / this.cellSize);
+		int row = (int) ((y - boardTop(board)) / this.cellSize);
+		return row * this.cols + col;
+	}
+	
+	/**
+	 * Draws every square that changed since the last call, or everything the first time.
+	 */
+	public void redraw() {
+		GraphicsContext graphics = getGraphicsContext2D();
+		if(this.redrawAll) {
+			this.redrawAll = false;
+			graphics.setFill(Color.GREEN);
+			graphics.fillRect(0, 0, getWidth(), getHeight());
+			for(int board = 0; board < getBoards(); board++) {
+				graphics.setFill(Color.BLACK);
+				graphics.fillRect(boardLeft(board), boardTop(board), this.cols * this.cellSize, this.rows * this.cellSize);
+				for(int square = 0; square < this.rows * this.cols; square++) {
+					drawSquare(graphics, board, square);
+				}
+				Arrays.fill(this.dirty[board], 0);
+			}
+			return;
+		}
+		for(int board = 0; board < getBoards(); board++) {
+			for(int word = 0; word < this.words; word++) {
+				long changed = this.dirty[board][word];
+				this.dirty[board][word] = 0;
+				while(changed != 0) {
+					drawSquare(graphics, board, word * 64 + Long.numberOfTrailingZeros(changed));
+					changed &= changed - 1;
+				}
+			}
+		}
+	}
+	
+	private void drawSquare(GraphicsContext graphics, int board, int square) {
+		double left = boardLeft(board) + (square % this.cols) * this.cellSize;
+		double top = boardTop(board) + (square / this.cols) * this.cellSize;
+		double inset = LINE / 2;
+		graphics.setFill(Color.GREEN);
+		graphics.fillRect(left + inset, top + inset, this.cellSize - LINE, this.cellSize - LINE);
+		long bit = 1L << (square & 63);
+		Color disc = ((this.white[board][square >> 6] & bit) != 0) ? Color.WHITE 
+				: ((this.black[board][square >> 6] & bit) != 0) ? Color.BLACK : null;
+		if(disc != null) {
+			double radius = (this.cellSize - LINE) / 2 * DISC;
+			graphics.setFill(disc);
+			graphics.fillOval(left + this.cellSize / 2 - radius, top + this.cellSize / 2 - radius, 2 * radius, 2 * radius);
+		}
+	}
+	
+	private double boardLeft(int board) {
+		return MARGIN + (board % this.boardsAcross) * (this.cols * this.cellSize + MARGIN);
+	}
+	
+	private double boardTop(int board) {
+		return MARGIN + (board / this.boardsAcross) * (this.rows * this.cellSize + MARGIN);
+	}
+	
+}
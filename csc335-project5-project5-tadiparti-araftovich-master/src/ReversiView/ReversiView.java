@@ -1,12 +1,14 @@
 package ReversiView;
 
-import java.util.Observable;
-import java.util.Observer;
-
+import ReversiBoard.ReversiBoard;
 import ReversiController.ReversiController;
+import ReversiEngine.ReversiBitboard;
+import ReversiModel.ReversiChangeEvent;
 import ReversiModel.ReversiModel;
+import ReversiModel.ReversiModelListener;
 import ReversiNetwork.ReversiNetwork;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
@@ -15,6 +17,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
@@ -31,32 +34,56 @@ import javafx.stage.Stage;
  * 
  * Displays the Reversi board with the initial 4 checkers shown.
  * 
+ * The board is 8x8 unless --size=N asks for another even size from 4 to 16.
+ * 
  * @author Andrew Raftovich araftovich@email.arizona.edu
  * 
  * @author Benhur Tadiparti tadiparti@email.arizona.edu
  */
-public class ReversiView extends Application implements Observer{
+public class ReversiView extends Application implements ReversiModelListener {
 	
-	private final int COL_SIZE = 8;
-	private final int ROW_SIZE = 8;
+	private int colSize = ReversiBitboard.SIZE;
+	private int rowSize = ReversiBitboard.SIZE;
 	
 	private MenuBar menu = new MenuBar();
 	private Menu fileText = new Menu("File");
 	private MenuItem newGame = new MenuItem("New Game");
 	private MenuItem networkedGame = new MenuItem("Networked Game");
+	private Menu editText = new Menu("Edit");
+	private MenuItem undo = new MenuItem("Undo");
+	private MenuItem redo = new MenuItem("Redo");
+	private MenuItem goToStart = new MenuItem("Go to Start");
+	private MenuItem goToEnd = new MenuItem("Go to End");
 	private GridPane board = new GridPane();
 	private TilePane tile = new TilePane();
 	private Text gameText = new Text();
 	private GridPane window = new GridPane();
+	private Circle[] cells;
+	private ReversiCanvasBoard canvasBoard;
+	private long pendingSquares;
+	private boolean repaintScheduled;
+	private boolean batchRepaints = true;
 	
 	private ReversiNetwork network;
-	private ReversiModel myModel = new ReversiModel(COL_SIZE, ROW_SIZE);
-	private ReversiController myController = new ReversiController(myModel);	
+	private ReversiModel myModel;
+	private ReversiController myController;	
 
 	@Override
 	public void start(Stage primaryStage) throws Exception {
-		myModel.addObserver(this);
+		String size = getParameters().getNamed().get("size");
+		if(size != null) {
+			colSize = Integer.parseInt(size);
+			rowSize = colSize;
+		}
+		myModel = new ReversiModel(colSize, rowSize);
+		myController = new ReversiController(myModel);
+		cells = new Circle[colSize * rowSize];
+		// Squares shrink on larger boards so that a 16x16 board still fits on the screen.
+		int cellSize = Math.max(24, 384 / Math.max(colSize, rowSize));
+		myModel.addListener(this);
 		this.myModel.setIsNetwork(false);
+		// With --ponder the AI keeps thinking while the player does.
+		this.myController.setPondering(getParameters().getRaw().contains("--ponder"));
 		
 		
 		/** Get position of checker position when user clicks on board */
@@ -70,27 +97,38 @@ public class ReversiView extends Application implements Observer{
 	         } 
 	     }; 
 		
-		board.setBackground(new Background(new BackgroundFill(Color.BLACK, null, null)));
-		for(int x = 0; x < COL_SIZE; x++) {
-			for(int y = 0; y < ROW_SIZE; y++) {
-				Circle tempCircle = new Circle(20.0f);
-				tempCircle.setOpacity(0);
+		// With --canvas the board is drawn on one Canvas instead of a node per square.
+		if(getParameters().getRaw().contains("--canvas")) {
+			this.canvasBoard = new ReversiCanvasBoard(rowSize, colSize, 1, 1, cellSize + 3);
+			this.canvasBoard.setOnSquareClicked((index, row, col) -> myController.humanTurn(row, col));
+		} else {
+			board.setBackground(new Background(new BackgroundFill(Color.BLACK, null, null)));
+			for(int x = 0; x < colSize; x++) {
+				for(int y = 0; y < rowSize; y++) {
+					Circle tempCircle = new Circle(cellSize * 20.0 / 48);
+					tempCircle.setOpacity(0);
 								
-				StackPane tempPane = new StackPane();
-				tempPane.setPrefSize(48, 48);
-				tempPane.setBackground(new Background(new BackgroundFill(Color.GREEN, null, null)));
-				tempPane.getChildren().add(tempCircle);
-				tempPane.addEventFilter(MouseEvent.MOUSE_CLICKED, eventHandler);
-				board.add(tempPane, x, y, 1, 1);
-				GridPane.setMargin(tempPane, new Insets(1.5, 1.5, 1.5, 1.5));
+					StackPane tempPane = new StackPane();
+					tempPane.setPrefSize(cellSize, cellSize);
+					tempPane.setBackground(new Background(new BackgroundFill(Color.GREEN, null, null)));
+					tempPane.getChildren().add(tempCircle);
+					tempPane.addEventFilter(MouseEvent.MOUSE_CLICKED, eventHandler);
+					board.add(tempPane, x, y, 1, 1);
+					cells[y * colSize + x] = tempCircle;
+					GridPane.setMargin(tempPane, new Insets(1.5, 1.5, 1.5, 1.5));
+				}
 			}
 		}
 		
 		this.myModel.forceUpdate();
 		
-		tile.getChildren().add(board);
 		tile.setBackground(new Background(new BackgroundFill(Color.GREEN, null, null)));
-		TilePane.setMargin(board, new Insets(9, 9, 9, 9));
+		if(this.canvasBoard != null) {
+			tile.getChildren().add(this.canvasBoard);
+		} else {
+			tile.getChildren().add(board);
+			TilePane.setMargin(board, new Insets(9, 9, 9, 9));
+		}
 		
 		/** Allows the user to play a new game against whomever they would like to play*/
         EventHandler<ActionEvent> menuAction = new EventHandler<ActionEvent>() {
@@ -104,16 +142,36 @@ public class ReversiView extends Application implements Observer{
                 	network = new ReversiNetwork(myController);
                 	Stage secondaryStage = new Stage();
                 	network.start(secondaryStage);
+                } else if ("Undo".equalsIgnoreCase(label)) {
+                	myController.undo();
+                } else if ("Redo".equalsIgnoreCase(label)) {
+                	myController.redo();
+                } else if ("Go to Start".equalsIgnoreCase(label)) {
+                	myController.goToPly(0);
+                } else if ("Go to End".equalsIgnoreCase(label)) {
+                	myController.goToPly(myModel.getHistoryLength());
                 } 
             }
         };
         newGame.setOnAction(menuAction);
         networkedGame.setOnAction(menuAction);
+        undo.setOnAction(menuAction);
+        redo.setOnAction(menuAction);
+        goToStart.setOnAction(menuAction);
+        goToEnd.setOnAction(menuAction);
+        undo.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        redo.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        goToStart.setAccelerator(KeyCombination.keyCombination("Home"));
+        goToEnd.setAccelerator(KeyCombination.keyCombination("End"));
+        // Network games, like the protocol, are 8x8.
+        networkedGame.setDisable(colSize != ReversiBitboard.SIZE || rowSize != ReversiBitboard.SIZE);
 
 		fileText.getItems().add(newGame);
 		fileText.getItems().add(networkedGame);
+		editText.getItems().addAll(undo, redo, goToStart, goToEnd);
 				
 		menu.getMenus().add(fileText);
+		menu.getMenus().add(editText);
 		gameText.setText("White: " + myModel.getWhite() + " - Black: " + myModel.getBlack());
 		
 		window.add(menu, 0, 0, 1, 1);
@@ -121,21 +179,55 @@ public class ReversiView extends Application implements Observer{
 		window.add(gameText, 0, 2, 1, 1);
 		GridPane.setMargin(gameText, new Insets(1, 1, 1, 1));
 			
-		primaryStage.setScene(new Scene(window, 435, 490));
+		primaryStage.setScene(new Scene(window, colSize * (cellSize + 3) + 27, rowSize * (cellSize + 3) + 82));
         primaryStage.setTitle("Reversi");
         primaryStage.show();
         
 	}
 	
+	/**
+	 * Stops the AI's thread when the window closes.
+	 */
+	@Override
+	public void stop() {
+		myController.shutdown();
+	}
+	
+	/**
+	 * Sets whether repaints wait for the next pulse. When they do, the squares changed by
+	 * every event until then are painted together, once.
+	 * @param batchRepaints true to batch repaints, false to paint on every event
+	 */
+	public void setBatchRepaints(boolean batchRepaints) {
+		this.batchRepaints = batchRepaints;
+	}
+	
 	/**
 	 * When a user input or move event occurs, the view updates the model and board objects.
+	 * Only the squares the event changed are repainted.
 	 */
 	@Override
-	public void update(Observable o, Object arg) {
-		ReversiModel tempModel = (ReversiModel)arg;
-		tempModel.getBoard().updateBoard(this.board);
-		tempModel.getBoard().updateTokenCounter(gameText, this.myModel.getWhite(), this.myModel.getBlack());
-				
+	public void modelChanged(ReversiModel tempModel, ReversiChangeEvent event) {
+		// Moves from the network arrive on the reader thread; the repaint state is only
+		// touched on the JavaFX thread.
+		if(!Platform.isFxApplicationThread()) {
+			Platform.runLater(() -> modelChanged(tempModel, event));
+			return;
+		}
+		if(event.getChanged() != 0) {
+			this.pendingSquares |= event.getChanged();
+			if(!this.batchRepaints) {
+				repaint();
+			} else if(!this.repaintScheduled) {
+				this.repaintScheduled = true;
+				Platform.runLater(this::repaint);
+			}
+		}
+		
+		// Show the final position before a result dialog blocks.
+		if(this.pendingSquares != 0 && (!tempModel.getWinner().equals("") || !tempModel.getLoser().equals(""))) {
+			repaint();
+		}
 		if(!tempModel.getWinner().equals("")) {
 			tempModel.getBoard().showWinner(tempModel.getWinner());
 			tempModel.setWinner("");
@@ -146,4 +238,20 @@ public class ReversiView extends Application implements Observer{
 		}
 	}
 	
+	/**
+	 * Paints the squares that changed since the last repaint and the token counter.
+	 */
+	private void repaint() {
+		this.repaintScheduled = false;
+		ReversiBoard snapshot = this.myModel.getBoard();
+		if(this.canvasBoard != null) {
+			this.canvasBoard.setBoard(0, snapshot.getBlackWords(), snapshot.getWhiteWords());
+			this.canvasBoard.redraw();
+		} else {
+			snapshot.updateSquares(this.cells, this.pendingSquares);
+		}
+		snapshot.updateTokenCounter(gameText, this.myModel.getWhite(), this.myModel.getBlack());
+		this.pendingSquares = 0;
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package ReversiView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import ReversiEngine.ReversiAI;
+import ReversiEngine.ReversiBitboard;
+import ReversiEngine.ReversiEngineConfig;
+import ReversiEngine.ReversiPosition;
+import ReversiEngine.ReversiSearchResult;
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.scene.control.ScrollPane;
+import javafx.stage.Stage;
+
+/**
+ * File: ReversiWall.java
+ * 
+ * Shows many live AI-vs-AI games at once on a single ReversiCanvasBoard. Background threads
+ * play the games and publish each new position; once per pulse the wall copies the latest
+ * positions onto the canvas, which draws only the squares that changed.
+ * 
+ * Usage: java ReversiView.ReversiWall [-boards N] [-across N] [-delay ms] [-threads N] [engine]
+ * 
+ * The engine is a ReversiEngineConfig spec such as "depth=3".
+ * 
+ * @author Andrew Raftovich araftovich@email.arizona.edu
+ * 
+ * @author Benhur J. Tadiparti tadiparti@email.arizona.edu
+ */
+public class ReversiWall extends Application {
+	
+	private static final int DEFAULT_BOARDS = 36;
+	private static final int DEFAULT_ACROSS = 6;
+	private static final long DEFAULT_DELAY = 200;
+	private static final double CELL_SIZE = 14;
+	/** How many rounds a finished game stays on the wall before a new one starts. */
+	private static final int FINISHED_ROUNDS = 10;
+	/** Plies played at random at the start of each game so the games differ. */
+	private static final int RANDOM_PLIES = 6;
+	
+	private AtomicReferenceArray<ReversiPosition> positions;
+	private final List<Thread> players = new ArrayList<>();
+	
+	@Override
+	public void start(Stage primaryStage) {
+		int boards = DEFAULT_BOARDS;
+		int across = DEFAULT_ACROSS;
+		long delay = DEFAULT_DELAY;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String engine = "depth=2";
+		List<String> args = getParameters().getRaw();
+		for(int i = 0; i < args.size(); i++) {
+			if(args.get(i).equals("-boards")) {
+				boards = Integer.parseInt(args.get(++i));
+			} else if(args.get(i).equals("-across")) {
+				across = Integer.parseInt(args.get(++i));
+			} else if(args.get(i).equals("-delay")) {
+				delay = Long.parseLong(args.get(++i));
+			} else if(args.get(i).equals("-threads")) {
+				threads = Integer.parseInt(args.get(++i));
+			} else {
+				engine = args.get(i);
+			}
+		}
+		
+		this.positions = new AtomicReferenceArray<>(boards);
+		for(int i = 0; i < boards; i++) {
+			this.positions.set(i, ReversiPosition.start());
+		}
+		ReversiEngineConfig config = ReversiEngineConfig.parse(engine);
+		threads = Math.max(1, Math.min(threads, boards));
+		for(int i = 0; i < threads; i++) {
+			int first = i;
+			int step = threads;
+			long pause = delay;
+			Thread player = new Thread(() -> play(config, first, step, pause), "ReversiWall-" + i);
+			player.setDaemon(true);
+			this.players.add(player);
+			player.start();
+		}
+		
+		ReversiCanvasBoard canvas = new ReversiCanvasBoard(ReversiBitboard.SIZE, ReversiBitboard.SIZE, boards, across, CELL_SIZE);
+		new AnimationTimer() {
+			@Override
+			public void handle(long now) {
+				for(int board = 0; board < canvas.getBoards(); board++) {
+					ReversiPosition position = positions.get(board);
+					canvas.setBoard(board, position.getBlack(), position.getWhite());
+				}
+				canvas.redraw();
+			}
+		}.start();
+		
+		primaryStage.setScene(new Scene(new ScrollPane(canvas), Math.min(canvas.getWidth() + 2, 1200), Math.min(canvas.getHeight() + 2, 900)));
+		primaryStage.setTitle("Reversi - " + boards + " games");
+		primaryStage.show();
+	}
+	
+	@Override
+	public void stop() {
+		for(Thread player : this.players) {
+			player.interrupt();
+		}
+	}
+	
+	/**
+	 * Plays every step-th board from the first, one move on each board per round, and starts
+	 * a new game on a board some rounds after its game ends.
+	 */
+	private void play(ReversiEngineConfig config, int first, int step, long delay) {
+		ReversiAI ai = config.newAI();
+		Random random = new Random(first);
+		int[] finished = new int[this.positions.length()];
+		while(!Thread.currentThread().isInterrupted()) {
+			for(int board = first; board < this.positions.length(); board += step) {
+				ReversiPosition position = this.positions.get(board);
+				if(ReversiBitboard.isGameOver(position.getBlack(), position.getWhite())) {
+					if(++finished[board] >= FINISHED_ROUNDS) {
+						finished[board] = 0;
+						this.positions.set(board, ReversiPosition.start());
+					}
+					continue;
+				}
+				int move = ReversiSearchResult.PASS;
+				long legal = ReversiBitboard.legalMoves(position.getPlayer(), position.getOpponent());
+				if(legal != 0 && ReversiBitboard.SQUARES - 4 - position.getEmpties() < RANDOM_PLIES) {
+					for(int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) {
+						legal &= legal - 1;
+					}
+					move = Long.numberOfTrailingZeros(legal);
+				} else if(legal != 0) {
+					move = ai.findBestMove(position, config.getLimits()).getMove();
+				}
+				this.positions.set(board, position.play(move));
+			}
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+	
+	public static void main(String[] args) {
+		Application.launch(ReversiWall.class, args);
+	}
+	
+}